@@ -0,0 +1,91 @@
+package com.pasi.inventory_service.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups per second of the off-heap availability store against a HashMap holding the same SKUs.
+ * Setup prints the heap each one retains; run with ./gradlew jmh -PjmhArgs='SkuAvailabilityStoreBenchmark -prof gc'
+ * to see that lookups allocate nothing as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SkuAvailabilityStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int skus;
+
+    private String[] keys;
+    private SkuAvailabilityStore store;
+    private Map<String, Integer> hashMap;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        keys = new String[skus];
+        Random random = new Random(42);
+        for (int i = 0; i < skus; i++) {
+            keys[i] = "SKU-" + Integer.toHexString(random.nextInt()) + "-" + i;
+        }
+
+        long before = usedHeap();
+        store = new SkuAvailabilityStore(true, "", skus, 24);
+        store.open();
+        for (int i = 0; i < skus; i++) {
+            store.put(keys[i], i);
+        }
+        long afterStore = usedHeap();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < skus; i++) {
+            // A fresh String per entry, as rows read from the database would be
+            hashMap.put(new String(keys[i]), i);
+        }
+        long afterHashMap = usedHeap();
+        System.out.printf("%nHeap retained for %d SKUs: store %d KB (+%d KB off-heap), HashMap %d KB%n",
+                skus, (afterStore - before) >> 10, store.getStats().getBytes() >> 10, (afterHashMap - afterStore) >> 10);
+    }
+
+    @Benchmark
+    public int store() {
+        return store.get(nextKey());
+    }
+
+    @Benchmark
+    public Integer hashMap() {
+        return hashMap.get(nextKey());
+    }
+
+    // Lookups come from a separate array, so neither side benefits from an identical key instance
+    private String nextKey() {
+        int i = next;
+        next = i + 1 == skus ? 0 : i + 1;
+        return keys[i];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
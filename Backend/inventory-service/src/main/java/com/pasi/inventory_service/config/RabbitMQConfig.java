@@ -1,7 +1,11 @@
 package com.pasi.inventory_service.config;
 
+import com.pasi.inventory_service.messaging.EventCodec;
+import com.pasi.inventory_service.messaging.JsonEventCodec;
+import com.pasi.inventory_service.messaging.SmileBatchEventCodec;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
@@ -22,6 +26,27 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.product.routing-key}")
     private String productRoutingKey;
 
+    @Value("${app.rabbitmq.product.dead-letter-queue:product.created.queue.v2.dlq}")
+    private String productDeadLetterQueue;
+
+    @Value("${app.rabbitmq.product.dead-letter-routing-key:product.created.v2.dlq}")
+    private String productDeadLetterRoutingKey;
+
+    @Value("${app.rabbitmq.product.listener.concurrency:2}")
+    private int productListenerConcurrency;
+
+    @Value("${app.rabbitmq.product.listener.max-concurrency:4}")
+    private int productListenerMaxConcurrency;
+
+    @Value("${app.rabbitmq.product.listener.prefetch:250}")
+    private int productListenerPrefetch;
+
+    @Value("${app.rabbitmq.product.listener.batch-size:100}")
+    private int productListenerBatchSize;
+
+    @Value("${app.rabbitmq.product.listener.receive-timeout:200}")
+    private long productListenerReceiveTimeout;
+
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(exchange);
@@ -39,15 +64,58 @@ public class RabbitMQConfig {
                 .with(productRoutingKey);
     }
 
+    // Messages the listener could not process are republished here; the main queue keeps its arguments
+    @Bean
+    public Queue productDeadLetterQueue() {
+        return QueueBuilder.durable(productDeadLetterQueue).build();
+    }
+
+    @Bean
+    public Binding productDeadLetterBinding() {
+        return BindingBuilder.bind(productDeadLetterQueue())
+                .to(exchange())
+                .with(productDeadLetterRoutingKey);
+    }
+
+    /**
+     * Hands the product listener up to batch-size messages at a time, acknowledged together once the
+     * listener returns. A batch is cut short when no message arrives within receive-timeout.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory productEventContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setConcurrentConsumers(productListenerConcurrency);
+        factory.setMaxConcurrentConsumers(Math.max(productListenerConcurrency, productListenerMaxConcurrency));
+        factory.setPrefetchCount(Math.max(productListenerPrefetch, productListenerBatchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(productListenerBatchSize);
+        factory.setReceiveTimeout(productListenerReceiveTimeout);
+        return factory;
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    // Incoming event formats, chosen per message by content-type in EventCodecRegistry
+    @Bean
+    public EventCodec jsonEventCodec() {
+        return new JsonEventCodec();
+    }
+
+    @Bean
+    public EventCodec smileBatchEventCodec() {
+        return new SmileBatchEventCodec();
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
         return template;
     }
-}
\ No newline at end of file
+}
@@ -5,8 +5,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 
 @SuppressWarnings("ALL")
@@ -28,6 +30,18 @@ public abstract class InventoryAbstractController {
         ));
     }
 
+    // Checks If-None-Match / If-Modified-Since; when true the 304 status and validators are already set
+    protected boolean isNotModified(WebRequest webRequest, String etag, LocalDateTime lastModified) {
+        if (lastModified == null) {
+            return webRequest.checkNotModified(etag);
+        }
+        return webRequest.checkNotModified(etag, toEpochMillis(lastModified));
+    }
+
+    protected static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     protected <T> ResponseEntity<Map<String, Object>> sendSuccessResponse(T response, String message) {
         Map<String, Object> result = Map.of(
             STATUS_KEY, HttpStatus.OK.value(),
@@ -95,6 +109,14 @@ public abstract class InventoryAbstractController {
         return new ResponseEntity<>(result, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    protected ResponseEntity<Map<String, Object>> sendServiceUnavailableResponse(String message) {
+        Map<String, Object> result = Map.of(
+            STATUS_KEY, HttpStatus.SERVICE_UNAVAILABLE.value(),
+            MESSAGE_KEY, message
+        );
+        return new ResponseEntity<>(result, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     protected ResponseEntity<Map<String, Object>> sendForbiddenResponse(String message) {
         Map<String, Object> result = Map.of(
             STATUS_KEY, HttpStatus.FORBIDDEN.value(),
@@ -1,15 +1,30 @@
 package com.pasi.inventory_service.controller;
 
+import com.pasi.inventory_service.dto.AvailabilityStoreStatsDTO;
 import com.pasi.inventory_service.dto.CreateInventoryRequest;
+import com.pasi.inventory_service.dto.HotSkuStatsDTO;
+import com.pasi.inventory_service.dto.InventoryAvailabilityDTO;
+import com.pasi.inventory_service.dto.InventoryAvailabilityRequest;
+import com.pasi.inventory_service.dto.ReserveStockRequest;
+import com.pasi.inventory_service.dto.StockReservationDTO;
 import com.pasi.inventory_service.dto.UpdateInventoryRequest;
 import com.pasi.inventory_service.dto.InventoryDTO;
+import com.pasi.inventory_service.dto.InventoryMovementDTO;
+import com.pasi.inventory_service.dto.WatermarkDTO;
+import com.pasi.inventory_service.exception.InsufficientStockException;
+import com.pasi.inventory_service.exception.InvalidStatusException;
 import com.pasi.inventory_service.exception.InventoryAlreadyExistsException;
 import com.pasi.inventory_service.exception.InventoryNotFoundException;
+import com.pasi.inventory_service.exception.ReservationNotFoundException;
+import com.pasi.inventory_service.service.HotSkuService;
 import com.pasi.inventory_service.service.InventoryService;
+import com.pasi.inventory_service.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.validation.Valid;
 
 import java.util.List;
@@ -23,6 +38,8 @@ import java.util.Map;
 public class InventoryController extends InventoryAbstractController {
 
     private final InventoryService inventoryService;
+    private final StockReservationService stockReservationService;
+    private final HotSkuService hotSkuService;
 
     /**
      * Create inventory for a product - this is the main method to be called from product service
@@ -44,13 +61,71 @@ public class InventoryController extends InventoryAbstractController {
         }
     }
 
+    /**
+     * Get the available quantity of many SKUs in one call, e.g. for a whole cart
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(@Valid @RequestBody InventoryAvailabilityRequest request) {
+        try {
+            InventoryAvailabilityDTO availability = inventoryService.getAvailability(request.getSkus());
+            return sendSuccessResponse(availability, "Inventory availability retrieved successfully");
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid availability request: {}", e.getMessage());
+            return sendBadRequestResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving availability: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve availability due to an unexpected error");
+        }
+    }
+
+    /**
+     * Get size and hit counts of the off-heap availability store
+     */
+    @GetMapping("/availability-store/stats")
+    public ResponseEntity<Map<String, Object>> getAvailabilityStoreStats() {
+        try {
+            AvailabilityStoreStatsDTO stats = inventoryService.getAvailabilityStoreStats();
+            return sendSuccessResponse(stats, "Availability store stats retrieved successfully");
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving availability store stats: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve availability store stats due to an unexpected error");
+        }
+    }
+
+    /**
+     * Stream stock changes as server-sent events, optionally only for the given SKUs.
+     * Reconnecting clients send Last-Event-ID to receive the changes they missed.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> streamStockChanges(
+            @RequestParam(required = false) List<String> skus,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            SseEmitter emitter = inventoryService.subscribeToStockChanges(skus, lastEventId);
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid stock stream request: {}", e.getMessage());
+            return sendBadRequestResponse(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("Stock stream unavailable: {}", e.getMessage());
+            return sendServiceUnavailableResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error opening stock stream: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to open stock stream due to an unexpected error");
+        }
+    }
+
     /**
      * Get inventory by SKU
      */
     @GetMapping("/{sku}")
-    public ResponseEntity<Map<String, Object>> getInventoryBySku(@PathVariable String sku) {
+    public ResponseEntity<Map<String, Object>> getInventoryBySku(@PathVariable String sku, WebRequest webRequest) {
         try {
             InventoryDTO inventory = inventoryService.getInventoryBySku(sku);
+            // The quantity is the whole payload, so it is the version
+            if (isNotModified(webRequest, "inventory-" + inventory.getId() + "-" + inventory.getQuantity(), null)) {
+                return null;
+            }
             return sendSuccessResponse(inventory, "Inventory retrieved successfully for SKU: " + sku);
         } catch (InventoryNotFoundException e) {
             log.error("Inventory not found: {}", e.getMessage());
@@ -74,12 +149,34 @@ public class InventoryController extends InventoryAbstractController {
         } catch (InventoryNotFoundException e) {
             log.error("Inventory not found: {}", e.getMessage());
             return sendNotFoundResponse("Inventory not found for SKU: " + sku);
+        } catch (InvalidStatusException e) {
+            log.error("Error updating inventory: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
         } catch (Exception e) {
             log.error("Unexpected error updating inventory: {}", e.getMessage());
             return sendInternalServerErrorResponse("Failed to update inventory due to an unexpected error");
         }
     }
 
+    /**
+     * Get the stock movement history of a SKU, newest first
+     */
+    @GetMapping("/{sku}/movements")
+    public ResponseEntity<Map<String, Object>> getMovements(
+            @PathVariable String sku,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<InventoryMovementDTO> movements = inventoryService.getMovements(sku, limit);
+            return sendSuccessResponse(movements, "Inventory movements retrieved successfully for SKU: " + sku);
+        } catch (InventoryNotFoundException e) {
+            log.error("Inventory not found: {}", e.getMessage());
+            return sendNotFoundResponse("Inventory not found for SKU: " + sku);
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving inventory movements: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve inventory movements due to an unexpected error");
+        }
+    }
+
     /**
      * Check if inventory exists for a SKU
      */
@@ -98,8 +195,14 @@ public class InventoryController extends InventoryAbstractController {
      * Get all inventories
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllInventories() {
+    public ResponseEntity<Map<String, Object>> getAllInventories(WebRequest webRequest) {
         try {
+            // The fingerprint covers every row, the uncompacted movements and the hot SKU counters
+            WatermarkDTO watermark = inventoryService.getInventoriesWatermark();
+            String etag = "inventories-" + watermark.getCount() + "-" + watermark.getFingerprint();
+            if (isNotModified(webRequest, etag, null)) {
+                return null;
+            }
             List<InventoryDTO> inventories = inventoryService.getAllInventories();
             return sendSuccessResponse(inventories, "All inventories retrieved successfully");
         } catch (Exception e) {
@@ -107,4 +210,132 @@ public class InventoryController extends InventoryAbstractController {
             return sendInternalServerErrorResponse("Failed to retrieve inventories due to an unexpected error");
         }
     }
+
+    /**
+     * Reserve stock for one or more SKUs, all or nothing
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<Map<String, Object>> reserveStock(@Valid @RequestBody ReserveStockRequest request) {
+        try {
+            StockReservationDTO reservation = stockReservationService.reserve(request);
+            return sendCreatedResponse(reservation, "Stock reserved successfully");
+        } catch (InsufficientStockException e) {
+            log.error("Error reserving stock: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (InventoryNotFoundException e) {
+            log.error("Error reserving stock: {}", e.getMessage());
+            return sendNotFoundResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error reserving stock: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to reserve stock due to an unexpected error");
+        }
+    }
+
+    /**
+     * Get a stock reservation
+     */
+    @GetMapping("/reservations/{reservationId}")
+    public ResponseEntity<Map<String, Object>> getReservation(@PathVariable String reservationId) {
+        try {
+            StockReservationDTO reservation = stockReservationService.getReservation(reservationId);
+            return sendSuccessResponse(reservation, "Reservation retrieved successfully");
+        } catch (ReservationNotFoundException e) {
+            log.error("Reservation not found: {}", e.getMessage());
+            return sendNotFoundResponse("Reservation not found: " + reservationId);
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving reservation: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve reservation due to an unexpected error");
+        }
+    }
+
+    /**
+     * Release a stock reservation, returning its stock to the inventory
+     */
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<Map<String, Object>> releaseReservation(@PathVariable String reservationId) {
+        try {
+            StockReservationDTO reservation = stockReservationService.release(reservationId);
+            return sendSuccessResponse(reservation, "Reservation released successfully");
+        } catch (ReservationNotFoundException e) {
+            log.error("Reservation not found: {}", e.getMessage());
+            return sendNotFoundResponse("Reservation not found: " + reservationId);
+        } catch (InvalidStatusException e) {
+            log.error("Error releasing reservation: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error releasing reservation: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to release reservation due to an unexpected error");
+        }
+    }
+
+    /**
+     * Commit a stock reservation once the order is placed
+     */
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<Map<String, Object>> commitReservation(@PathVariable String reservationId) {
+        try {
+            StockReservationDTO reservation = stockReservationService.commit(reservationId);
+            return sendSuccessResponse(reservation, "Reservation committed successfully");
+        } catch (ReservationNotFoundException e) {
+            log.error("Reservation not found: {}", e.getMessage());
+            return sendNotFoundResponse("Reservation not found: " + reservationId);
+        } catch (InvalidStatusException e) {
+            log.error("Error committing reservation: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error committing reservation: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to commit reservation due to an unexpected error");
+        }
+    }
+
+    /**
+     * Serve a SKU's reservations from an in-memory counter on this instance
+     */
+    @PostMapping("/hot-skus/{sku}")
+    public ResponseEntity<Map<String, Object>> enableHotSku(@PathVariable String sku) {
+        try {
+            HotSkuStatsDTO stats = hotSkuService.enableHotSku(sku);
+            return sendSuccessResponse(stats, "Hot mode enabled for SKU: " + sku);
+        } catch (InventoryNotFoundException e) {
+            log.error("Inventory not found: {}", e.getMessage());
+            return sendNotFoundResponse("Inventory not found for SKU: " + sku);
+        } catch (InvalidStatusException e) {
+            log.error("Error enabling hot mode: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error enabling hot mode: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to enable hot mode due to an unexpected error");
+        }
+    }
+
+    /**
+     * Compact a hot SKU's pending movements and return it to database-backed stock
+     */
+    @DeleteMapping("/hot-skus/{sku}")
+    public ResponseEntity<Map<String, Object>> disableHotSku(@PathVariable String sku) {
+        try {
+            hotSkuService.disableHotSku(sku);
+            return sendSuccessResponse(Map.of("sku", sku), "Hot mode disabled for SKU: " + sku);
+        } catch (InvalidStatusException e) {
+            log.error("Error disabling hot mode: {}", e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error disabling hot mode: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to disable hot mode due to an unexpected error");
+        }
+    }
+
+    /**
+     * Get counter and contention stats for the hot SKUs on this instance
+     */
+    @GetMapping("/hot-skus/stats")
+    public ResponseEntity<Map<String, Object>> getHotSkuStats() {
+        try {
+            List<HotSkuStatsDTO> stats = hotSkuService.getHotSkuStats();
+            return sendSuccessResponse(stats, "Hot SKU stats retrieved successfully");
+        } catch (Exception e) {
+            log.error("Unexpected error retrieving hot SKU stats: {}", e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve hot SKU stats due to an unexpected error");
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.pasi.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityStoreStatsDTO {
+    private boolean enabled;
+    private boolean ready;
+    private boolean persistent;
+    private int skus;
+    private int maxSkus;
+    private long bytes;
+    private long lookups;
+    private long misses;
+    private LocalDateTime lastRefreshAt;
+}
@@ -0,0 +1,21 @@
+package com.pasi.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotSkuStatsDTO {
+    private String sku;
+    private long available;
+    private long pendingDelta;
+    private int stripes;
+    private long reservations;
+    private long rejections;
+    private long casRetries;
+    private long rebalances;
+}
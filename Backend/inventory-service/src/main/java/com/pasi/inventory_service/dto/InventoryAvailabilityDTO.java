@@ -0,0 +1,22 @@
+package com.pasi.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAvailabilityDTO {
+
+    // Available quantity per known SKU, in request order
+    private Map<String, Integer> quantities;
+
+    // Requested SKUs without an inventory, in request order
+    private List<String> missing;
+}
@@ -0,0 +1,18 @@
+package com.pasi.inventory_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAvailabilityRequest {
+
+    @NotEmpty(message = "At least one SKU is required")
+    private List<@NotBlank(message = "SKU must not be blank") String> skus;
+}
@@ -0,0 +1,23 @@
+package com.pasi.inventory_service.dto;
+
+import com.pasi.inventory_service.entity.InventoryMovement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementDTO {
+    private Long id;
+    private String sku;
+    private Integer delta;
+    private InventoryMovement.Reason reason;
+    private String reference;
+    private LocalDateTime createdAt;
+    private LocalDateTime compactedAt;
+}
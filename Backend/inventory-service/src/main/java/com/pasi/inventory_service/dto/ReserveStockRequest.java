@@ -0,0 +1,27 @@
+package com.pasi.inventory_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockRequest {
+
+    // Optional client key; repeating a reserve with the same id returns the first reservation
+    @Size(max = 64, message = "Reservation ID must be at most 64 characters")
+    private String reservationId;
+
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid ReservationItemDTO> items;
+
+    @Min(value = 1, message = "TTL must be at least 1 second")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,17 @@
+package com.pasi.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeDTO {
+    private String sku;
+    private Integer quantity;
+    // Position in this instance's change stream, increasing by one per change
+    private Long version;
+}
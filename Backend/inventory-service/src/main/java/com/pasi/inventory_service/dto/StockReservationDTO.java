@@ -0,0 +1,21 @@
+package com.pasi.inventory_service.dto;
+
+import com.pasi.inventory_service.entity.StockReservation;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+    private String reservationId;
+    private StockReservation.Status status;
+    private LocalDateTime expiresAt;
+    private List<ReservationItemDTO> items;
+}
@@ -0,0 +1,21 @@
+package com.pasi.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row count and fingerprint of the inventories list, cheap enough to compute on every conditional
+ * request. The fingerprint sums a hash of every row's id and updatedAt, so it moves on any insert,
+ * edit or delete even when commits land out of timestamp order, which a newest-updatedAt watermark
+ * misses. It also covers whatever else feeds the list body, such as the hot SKU counters.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WatermarkDTO {
+
+    private Long count;
+
+    private String fingerprint;
+}
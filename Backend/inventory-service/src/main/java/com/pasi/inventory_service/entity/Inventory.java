@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "inventory")
 @Data
@@ -21,4 +23,25 @@ public class Inventory {
     
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
+
+    // Hot SKUs take their stock from HotSkuCounters; the row only moves when the ledger is compacted
+    @Column(name = "hot", nullable = false, columnDefinition = "boolean not null default false")
+    private boolean hot;
+
+    // Instance whose counter serves a hot SKU, and until when another instance may not take it over
+    @Column(name = "hot_owner")
+    private String hotOwner;
+
+    @Column(name = "hot_lease_until")
+    private LocalDateTime hotLeaseUntil;
+
+    // Any write that bypasses JPA must set this too, it backs the conditional GET watermark
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,57 @@
+package com.pasi.inventory_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stock change in the append-only inventory ledger. Until compactedAt is set the delta is not
+ * yet part of the inventory row, so a SKU's real stock is its row quantity plus its uncompacted deltas.
+ * Compacted movements stay behind as the SKU's history.
+ */
+@Entity
+@Table(name = "inventory_movements",
+        indexes = {
+                @Index(name = "idx_inventory_movements_compacted_at_id", columnList = "compacted_at, id"),
+                @Index(name = "idx_inventory_movements_sku_compacted_at", columnList = "sku, compacted_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sku", nullable = false)
+    private String sku;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, length = 16)
+    private Reason reason;
+
+    // Reservation ID or similar key of whatever caused the change
+    @Column(name = "reference", length = 64)
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "compacted_at")
+    private LocalDateTime compactedAt;
+
+    public enum Reason {
+        CREATED,
+        ADJUSTED,
+        RESERVED,
+        RELEASED,
+        EXPIRED
+    }
+}
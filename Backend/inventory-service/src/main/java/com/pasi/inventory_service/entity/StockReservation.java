@@ -0,0 +1,56 @@
+package com.pasi.inventory_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One SKU line of a stock reservation. The quantity has already been taken off the inventory; all lines
+ * of a reservation move through the statuses together.
+ */
+@Entity
+@Table(name = "stock_reservations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_reservations_reservation_sku",
+                columnNames = {"reservation_id", "sku"}),
+        indexes = @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reservation_id", nullable = false, length = 64)
+    private String reservationId;
+
+    @Column(name = "sku", nullable = false)
+    private String sku;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        RESERVED,
+        COMMITTED,
+        RELEASED,
+        EXPIRED
+    }
+}
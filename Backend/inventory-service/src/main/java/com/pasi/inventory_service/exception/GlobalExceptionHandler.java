@@ -44,6 +44,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientStockException(InsufficientStockException ex) {
+        log.error("Insufficient stock: {}", ex.getMessage());
+        Map<String, Object> response = Map.of(
+            TIMESTAMP_KEY, LocalDateTime.now(),
+            STATUS_KEY, HttpStatus.CONFLICT.value(),
+            ERROR_KEY, "Insufficient Stock",
+            MESSAGE_KEY, ex.getMessage()
+        );
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleReservationNotFoundException(ReservationNotFoundException ex) {
+        log.error("Reservation not found: {}", ex.getMessage());
+        Map<String, Object> response = Map.of(
+            TIMESTAMP_KEY, LocalDateTime.now(),
+            STATUS_KEY, HttpStatus.NOT_FOUND.value(),
+            ERROR_KEY, "Reservation Not Found",
+            MESSAGE_KEY, ex.getMessage()
+        );
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(InvalidStatusException.class)
     public ResponseEntity<Map<String, Object>> handleInvalidStatusException(InvalidStatusException ex) {
         log.error("Invalid status: {}", ex.getMessage());
@@ -0,0 +1,17 @@
+package com.pasi.inventory_service.exception;
+
+import java.util.List;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> skus;
+
+    public InsufficientStockException(List<String> skus) {
+        super("Insufficient stock for SKUs: " + String.join(", ", skus));
+        this.skus = List.copyOf(skus);
+    }
+
+    public List<String> getSkus() {
+        return skus;
+    }
+}
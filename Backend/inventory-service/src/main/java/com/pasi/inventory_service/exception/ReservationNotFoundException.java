@@ -0,0 +1,11 @@
+package com.pasi.inventory_service.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+    
+    public ReservationNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
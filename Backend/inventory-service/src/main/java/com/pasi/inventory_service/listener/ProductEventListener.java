@@ -1,11 +1,22 @@
 package com.pasi.inventory_service.listener;
 
 import com.pasi.inventory_service.dto.ProductCreatedEvent;
+import com.pasi.inventory_service.messaging.EventCodecRegistry;
 import com.pasi.inventory_service.service.InventoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -13,31 +24,84 @@ import org.springframework.stereotype.Service;
 public class ProductEventListener {
 
     private final InventoryService inventoryService;
+    private final EventCodecRegistry eventCodecRegistry;
+    private final RabbitTemplate rabbitTemplate;
 
-    @RabbitListener(queues = "${app.rabbitmq.product.queue}")
-    public void handleProductCreatedEvent(ProductCreatedEvent event) {
-        try {
-            log.info("Received ProductCreatedEvent for SKU: {} with Product ID: {}", 
-                    event.getSku(), event.getProductId());
+    @Value("${app.rabbitmq.exchange}")
+    private String exchange;
+
+    @Value("${app.rabbitmq.product.queue}")
+    private String productQueue;
+
+    @Value("${app.rabbitmq.product.dead-letter-routing-key:product.created.v2.dlq}")
+    private String productDeadLetterRoutingKey;
+
+    /**
+     * Creates the inventories for a whole batch of messages with one insert, and the container acks the
+     * batch when this returns. Messages that cannot be decoded or inserted are dead-lettered one by one;
+     * anything else, such as a lost database connection, is rethrown so the batch is redelivered.
+     */
+    @RabbitListener(queues = "${app.rabbitmq.product.queue}", containerFactory = "productEventContainerFactory")
+    public void handleProductCreatedMessages(List<Message> messages) {
+        List<DecodedMessage> decodedMessages = new ArrayList<>(messages.size());
+        Map<String, Integer> quantitiesBySku = new LinkedHashMap<>();
+        int eventCount = 0;
 
-            // Check if inventory already exists to avoid duplicates
-            if (inventoryService.inventoryExists(event.getSku())) {
-                log.warn("Inventory already exists for SKU: {}, skipping creation", event.getSku());
-                return;
+        for (Message message : messages) {
+            try {
+                Map<String, Integer> quantities = toQuantitiesBySku(
+                        eventCodecRegistry.decode(message, ProductCreatedEvent.class));
+                decodedMessages.add(new DecodedMessage(message, quantities));
+                quantities.forEach(quantitiesBySku::putIfAbsent);
+                eventCount += quantities.size();
+            } catch (Exception e) {
+                deadLetter(message, e);
             }
+        }
 
-            // Create inventory record using the service method
-            Integer quantity = event.getInitialQuantity() != null ? event.getInitialQuantity() : 0;
-            inventoryService.createInventoryForProduct(event.getSku(), quantity);
+        if (quantitiesBySku.isEmpty()) {
+            return;
+        }
+        log.info("Received {} ProductCreatedEvents in {} messages", eventCount, messages.size());
 
-            log.info("Successfully created inventory for SKU: {} with quantity: {}", 
-                    event.getSku(), quantity);
+        try {
+            inventoryService.createInventoriesIfAbsent(quantitiesBySku);
+        } catch (NonTransientDataAccessException e) {
+            // Some row in the batch cannot be written; insert per message to find and isolate it
+            log.warn("Batch inventory insert failed, retrying {} messages one by one - Error: {}",
+                    decodedMessages.size(), e.getMessage());
+            for (DecodedMessage decodedMessage : decodedMessages) {
+                try {
+                    inventoryService.createInventoriesIfAbsent(decodedMessage.quantitiesBySku());
+                } catch (NonTransientDataAccessException messageError) {
+                    deadLetter(decodedMessage.message(), messageError);
+                }
+            }
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to process ProductCreatedEvent for SKU: {} - Error: {}", 
-                    event.getSku(), e.getMessage(), e);
-            // Message will be sent to dead letter queue for manual processing
-            throw e; // Re-throw to trigger dead letter queue
+    private Map<String, Integer> toQuantitiesBySku(List<ProductCreatedEvent> events) {
+        Map<String, Integer> quantitiesBySku = new LinkedHashMap<>();
+        for (ProductCreatedEvent event : events) {
+            if (!StringUtils.hasText(event.getSku())) {
+                throw new IllegalArgumentException("ProductCreatedEvent without SKU for Product ID: " + event.getProductId());
+            }
+            Integer quantity = event.getInitialQuantity() != null ? event.getInitialQuantity() : 0;
+            quantitiesBySku.putIfAbsent(event.getSku(), quantity);
         }
+        return quantitiesBySku;
+    }
+
+    // Inserts are idempotent, so a whole message can be replayed from the dead-letter queue even when it carried a batch
+    private void deadLetter(Message message, Exception cause) {
+        log.error("Dead-lettering ProductCreated message {} - Error: {}",
+                message.getMessageProperties().getDeliveryTag(), cause.getMessage(), cause);
+        message.getMessageProperties().setHeader("x-original-queue", productQueue);
+        message.getMessageProperties().setHeader("x-exception-message", String.valueOf(cause.getMessage()));
+        // A failed publish propagates and the batch is redelivered, so nothing is lost
+        rabbitTemplate.send(exchange, productDeadLetterRoutingKey, message);
+    }
+
+    private record DecodedMessage(Message message, Map<String, Integer> quantitiesBySku) {
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.pasi.inventory_service.mapper;
 
 import com.pasi.inventory_service.dto.InventoryDTO;
+import com.pasi.inventory_service.dto.InventoryMovementDTO;
 import com.pasi.inventory_service.entity.Inventory;
+import com.pasi.inventory_service.entity.InventoryMovement;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -19,6 +21,22 @@ public class InventoryMapper {
         );
     }
     
+    public InventoryMovementDTO toMovementDTO(InventoryMovement movement) {
+        if (movement == null) {
+            return null;
+        }
+        
+        return InventoryMovementDTO.builder()
+                .id(movement.getId())
+                .sku(movement.getSku())
+                .delta(movement.getDelta())
+                .reason(movement.getReason())
+                .reference(movement.getReference())
+                .createdAt(movement.getCreatedAt())
+                .compactedAt(movement.getCompactedAt())
+                .build();
+    }
+    
     public Inventory toEntity(InventoryDTO dto) {
         if (dto == null) {
             return null;
@@ -0,0 +1,19 @@
+package com.pasi.inventory_service.messaging;
+
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+
+/**
+ * Decodes the events carried by an AMQP message. Which codec applies is decided by the message
+ * content-type, so producers can switch wire formats independently of this service.
+ */
+public interface EventCodec {
+
+    String contentType();
+
+    /**
+     * Returns every event in the message, in the order they were written
+     */
+    <T> List<T> decode(Message message, Class<T> eventType);
+}
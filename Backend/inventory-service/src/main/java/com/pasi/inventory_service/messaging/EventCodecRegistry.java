@@ -0,0 +1,43 @@
+package com.pasi.inventory_service.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the EventCodec for an incoming message by its content-type; messages without one are read as JSON
+ */
+@Component
+@Slf4j
+public class EventCodecRegistry {
+
+    private final Map<String, EventCodec> codecs;
+
+    public EventCodecRegistry(List<EventCodec> codecs) {
+        this.codecs = codecs.stream().collect(Collectors.toMap(EventCodec::contentType, Function.identity()));
+        log.info("Registered event codecs for content types: {}", this.codecs.keySet());
+    }
+
+    public <T> List<T> decode(Message message, Class<T> eventType) {
+        String contentType = message.getMessageProperties().getContentType();
+        EventCodec codec = codecs.get(contentType == null ? MessageProperties.CONTENT_TYPE_JSON : baseType(contentType));
+        if (codec == null) {
+            throw new MessageConversionException("No event codec for content type: " + contentType);
+        }
+        return codec.decode(message, eventType);
+    }
+
+    // Drops parameters such as charset
+    private static String baseType(String contentType) {
+        MimeType mimeType = MimeType.valueOf(contentType);
+        return mimeType.getType() + "/" + mimeType.getSubtype();
+    }
+}
@@ -0,0 +1,36 @@
+package com.pasi.inventory_service.messaging;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One JSON event per message, as written by Jackson2JsonMessageConverter
+ */
+public class JsonEventCodec implements EventCodec {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public String contentType() {
+        return MessageProperties.CONTENT_TYPE_JSON;
+    }
+
+    @Override
+    public <T> List<T> decode(Message message, Class<T> eventType) {
+        try {
+            return List.of(objectMapper.readValue(message.getBody(), eventType));
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode JSON event", e);
+        }
+    }
+}
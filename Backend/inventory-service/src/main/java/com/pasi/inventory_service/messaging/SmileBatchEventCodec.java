@@ -0,0 +1,42 @@
+package com.pasi.inventory_service.messaging;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A Smile (binary JSON) array of events, gzipped when the message says content-encoding: gzip
+ */
+public class SmileBatchEventCodec implements EventCodec {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+    private static final String GZIP = "gzip";
+
+    private final SmileMapper smileMapper = SmileMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public <T> List<T> decode(Message message, Class<T> eventType) {
+        InputStream body = new ByteArrayInputStream(message.getBody());
+        try (InputStream input = GZIP.equalsIgnoreCase(message.getMessageProperties().getContentEncoding())
+                ? new GZIPInputStream(body) : body) {
+            return smileMapper.readerForListOf(eventType).readValue(input);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode Smile event batch", e);
+        }
+    }
+}
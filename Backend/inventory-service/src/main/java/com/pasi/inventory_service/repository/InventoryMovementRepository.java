@@ -0,0 +1,14 @@
+package com.pasi.inventory_service.repository;
+
+import com.pasi.inventory_service.entity.InventoryMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    List<InventoryMovement> findBySkuOrderByIdDesc(String sku, Pageable pageable);
+}
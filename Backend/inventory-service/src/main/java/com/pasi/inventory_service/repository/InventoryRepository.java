@@ -1,15 +1,28 @@
 package com.pasi.inventory_service.repository;
 
 import com.pasi.inventory_service.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findBySku(String sku);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.sku = :sku")
+    Optional<Inventory> findBySkuForUpdate(@Param("sku") String sku);
     
     boolean existsBySku(String sku);
+
+    @Query("SELECT i.sku FROM Inventory i WHERE i.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
 }
@@ -0,0 +1,13 @@
+package com.pasi.inventory_service.repository;
+
+import com.pasi.inventory_service.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationIdOrderBySku(String reservationId);
+}
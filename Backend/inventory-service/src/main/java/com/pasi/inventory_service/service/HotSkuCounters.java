@@ -0,0 +1,327 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.HotSkuStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Authoritative in-memory stock for SKUs in hot mode. Each SKU's stock is split over several
+ * stripes so concurrent reservations CAS different cache lines instead of queueing on one
+ * inventory row. A counter only lives in the instance holding the SKU's lease, and stops serving
+ * once its lease deadline passes without a renewal, since another instance may have taken over.
+ * Stock taken for a reservation stays in flight until its transaction settles the {@link Hold}, so a
+ * SKU leaving hot mode can wait for every take to reach the ledger before compacting it.
+ */
+@Component
+public class HotSkuCounters {
+
+    private final Map<String, StripedStock> counters = new ConcurrentHashMap<>();
+    private final int stripes;
+
+    public HotSkuCounters(@Value("${app.inventory.hot-skus.stripes:16}") int stripes) {
+        // Power of two so a stripe can be picked with a mask
+        this.stripes = Integer.highestOneBit(Math.max(1, Math.min(stripes, 256)));
+    }
+
+    public boolean isHot(String sku) {
+        return owned(sku) != null;
+    }
+
+    public Set<String> hotSkus() {
+        return Set.copyOf(counters.keySet());
+    }
+
+    /**
+     * Loads a counter unless this instance already serves the SKU under a live lease
+     * @param leaseDeadline System.nanoTime() after which the counter stops serving unless renewed
+     * @return whether the counter was loaded, false when a live one was kept
+     */
+    public boolean load(String sku, long available, long leaseDeadline) {
+        boolean[] loaded = new boolean[1];
+        counters.compute(sku, (key, current) -> {
+            if (current != null && !current.leaseLapsed()) {
+                return current;
+            }
+            loaded[0] = true;
+            return new StripedStock(stripes, available, leaseDeadline);
+        });
+        return loaded[0];
+    }
+
+    /**
+     * Extends the lease of a counter that is still live. A lapsed one is not revived, since stock
+     * released while it was lapsed went to the ledger only; it has to be loaded again.
+     */
+    public boolean renew(String sku, long leaseDeadline) {
+        StripedStock stock = owned(sku);
+        if (stock == null) {
+            return false;
+        }
+        stock.leaseDeadline = leaseDeadline;
+        return true;
+    }
+
+    public void unload(String sku) {
+        counters.remove(sku);
+    }
+
+    /**
+     * Stops the counter serving new takes and waits for the ones in flight to be settled
+     * @return whether they all settled within the timeout; the counter stays closed either way
+     */
+    public boolean drain(String sku, long timeoutMs) {
+        StripedStock stock = counters.get(sku);
+        if (stock == null) {
+            return true;
+        }
+        stock.draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (stock.inFlight.get() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    // Serves again after a drain whose transaction did not commit
+    public void reopen(String sku) {
+        StripedStock stock = counters.get(sku);
+        if (stock != null) {
+            stock.draining = false;
+        }
+    }
+
+    // Only removes a counter that is still the lapsed one, not one loaded again meanwhile
+    public void unloadLapsed() {
+        counters.values().removeIf(StripedStock::leaseLapsed);
+    }
+
+    public OptionalLong available(String sku) {
+        StripedStock stock = owned(sku);
+        return stock == null ? OptionalLong.empty() : OptionalLong.of(stock.sum());
+    }
+
+    /**
+     * Takes every quantity or none of them. What was taken stays in flight until the hold is settled.
+     * @return a hold whose unavailable SKUs are the ones without enough stock; when there are any,
+     * nothing was taken and the hold is already settled
+     */
+    public Hold reserveAll(Map<String, Integer> quantitiesBySku) {
+        Hold hold = new Hold(quantitiesBySku.size());
+        for (Map.Entry<String, Integer> entry : quantitiesBySku.entrySet()) {
+            StripedStock stock = owned(entry.getKey());
+            if (stock != null && stock.enter()) {
+                if (stock.tryTake(entry.getValue())) {
+                    hold.taken.add(Map.entry(stock, entry.getValue()));
+                    continue;
+                }
+                stock.inFlight.decrementAndGet();
+            }
+            hold.unavailable.add(entry.getKey());
+        }
+        if (!hold.unavailable.isEmpty()) {
+            hold.settle(false);
+        }
+        return hold;
+    }
+
+    public void releaseAll(Map<String, Integer> quantitiesBySku) {
+        quantitiesBySku.forEach(this::release);
+    }
+
+    public void release(String sku, int quantity) {
+        StripedStock stock = owned(sku);
+        if (stock != null) {
+            stock.add(quantity);
+        }
+    }
+
+    public List<HotSkuStatsDTO> getStats(Map<String, Long> pendingDeltas) {
+        List<HotSkuStatsDTO> stats = new ArrayList<>(counters.size());
+        counters.forEach((sku, stock) -> stats.add(HotSkuStatsDTO.builder()
+                .sku(sku)
+                .available(stock.sum())
+                .pendingDelta(pendingDeltas.getOrDefault(sku, 0L))
+                .stripes(stripes)
+                .reservations(stock.reservations.sum())
+                .rejections(stock.rejections.sum())
+                .casRetries(stock.casRetries.sum())
+                .rebalances(stock.rebalances.sum())
+                .build()));
+        return stats;
+    }
+
+    // Neither lapsed nor draining
+    private StripedStock owned(String sku) {
+        StripedStock stock = counters.get(sku);
+        return stock == null || stock.leaseLapsed() || stock.draining ? null : stock;
+    }
+
+    /**
+     * Stock one reservation took, settled once its transaction has completed
+     */
+    public static final class Hold {
+
+        private final List<Map.Entry<StripedStock, Integer>> taken;
+        private final List<String> unavailable = new ArrayList<>();
+        private boolean settled;
+
+        private Hold(int size) {
+            this.taken = new ArrayList<>(size);
+        }
+
+        public List<String> unavailable() {
+            return unavailable;
+        }
+
+        // Gives the stock back to the counters it came from unless it committed; only the first call counts
+        public synchronized void settle(boolean committed) {
+            if (settled) {
+                return;
+            }
+            settled = true;
+            for (Map.Entry<StripedStock, Integer> entry : taken) {
+                if (!committed) {
+                    entry.getKey().add(entry.getValue());
+                }
+                entry.getKey().inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    static final class StripedStock {
+
+        // Cells are spaced a cache line apart so stripes do not false-share
+        private static final int PAD = 8;
+
+        private final AtomicLongArray cells;
+        private final int mask;
+        private final ReentrantLock rebalanceLock = new ReentrantLock();
+        // Odd while a rebalance is moving stock between cells
+        private final AtomicLong rebalanceVersion = new AtomicLong();
+
+        final LongAdder reservations = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+        final LongAdder casRetries = new LongAdder();
+        final LongAdder rebalances = new LongAdder();
+
+        volatile long leaseDeadline;
+        // Set before waiting for inFlight to reach zero, and checked after entering, so no take slips past
+        volatile boolean draining;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        StripedStock(int stripes, long available, long leaseDeadline) {
+            this.cells = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+            this.leaseDeadline = leaseDeadline;
+            spread(Math.max(0, available));
+        }
+
+        boolean enter() {
+            inFlight.incrementAndGet();
+            if (draining) {
+                inFlight.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        boolean leaseLapsed() {
+            return System.nanoTime() - leaseDeadline > 0;
+        }
+
+        boolean tryTake(int quantity) {
+            int start = probe();
+            for (int i = 0; i <= mask; i++) {
+                int slot = ((start + i) & mask) * PAD;
+                long current = cells.get(slot);
+                while (current >= quantity) {
+                    if (cells.compareAndSet(slot, current, current - quantity)) {
+                        reservations.increment();
+                        return true;
+                    }
+                    casRetries.increment();
+                    current = cells.get(slot);
+                }
+            }
+            // Sold out: reject without the lock unless a rebalance may have hidden stock from the sum
+            long version = rebalanceVersion.get();
+            if ((version & 1) == 0 && sum() < quantity && rebalanceVersion.get() == version) {
+                rejections.increment();
+                return false;
+            }
+            // No single stripe holds enough, which is normal once stock runs low
+            return takeRebalanced(quantity);
+        }
+
+        void add(long quantity) {
+            cells.getAndAdd((probe() & mask) * PAD, quantity);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i <= mask; i++) {
+                sum += cells.get(i * PAD);
+            }
+            return sum;
+        }
+
+        private boolean takeRebalanced(int quantity) {
+            rebalanceLock.lock();
+            rebalanceVersion.incrementAndGet();
+            try {
+                rebalances.increment();
+                long total = 0;
+                for (int i = 0; i <= mask; i++) {
+                    total += cells.getAndSet(i * PAD, 0);
+                }
+                boolean taken = total >= quantity;
+                if (taken) {
+                    total -= quantity;
+                    reservations.increment();
+                } else {
+                    rejections.increment();
+                }
+                spread(total);
+                return taken;
+            } finally {
+                rebalanceVersion.incrementAndGet();
+                rebalanceLock.unlock();
+            }
+        }
+
+        // Adds rather than sets, so releases that land during a rebalance are kept
+        private void spread(long total) {
+            int stripes = mask + 1;
+            long share = total / stripes;
+            long remainder = total % stripes;
+            for (int i = 0; i < stripes; i++) {
+                long amount = share + (i < remainder ? 1 : 0);
+                if (amount != 0) {
+                    cells.getAndAdd(i * PAD, amount);
+                }
+            }
+        }
+
+        private static int probe() {
+            long id = Thread.currentThread().getId();
+            return (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16;
+        }
+    }
+}
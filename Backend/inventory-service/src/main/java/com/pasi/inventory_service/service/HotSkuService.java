@@ -0,0 +1,29 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.HotSkuStatsDTO;
+
+import java.util.List;
+
+public interface HotSkuService {
+
+    /**
+     * Move a SKU's stock into an in-memory counter on this instance
+     */
+    HotSkuStatsDTO enableHotSku(String sku);
+
+    /**
+     * Compact the SKU's pending movements and return it to database-backed stock
+     */
+    void disableHotSku(String sku);
+
+    /**
+     * Renew this instance's hot SKU leases and load the counters of hot SKUs it owns or whose lease
+     * ran out, after a restart or when another instance stops renewing
+     */
+    int loadHotSkus();
+
+    /**
+     * Get the counter and contention stats of every hot SKU on this instance
+     */
+    List<HotSkuStatsDTO> getHotSkuStats();
+}
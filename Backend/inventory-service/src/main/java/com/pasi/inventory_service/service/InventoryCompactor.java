@@ -0,0 +1,85 @@
+package com.pasi.inventory_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Folds the inventory ledger into the inventory rows in batches, so a busy row takes one update per
+ * compaction instead of one per stock change, and trims compacted history past its retention.
+ * Also restores hot SKU counters after a restart, since those are rebuilt from rows plus ledger, and
+ * keeps renewing this instance's hot SKU leases.
+ */
+@Component
+@Slf4j
+public class InventoryCompactor {
+
+    private final InventoryLedger inventoryLedger;
+    private final HotSkuService hotSkuService;
+    private final int batchSize;
+    private final Duration retention;
+
+    public InventoryCompactor(InventoryLedger inventoryLedger,
+                              HotSkuService hotSkuService,
+                              @Value("${app.inventory.ledger.compaction-batch-size:5000}") int batchSize,
+                              @Value("${app.inventory.ledger.retention-days:30}") int retentionDays) {
+        this.inventoryLedger = inventoryLedger;
+        this.hotSkuService = hotSkuService;
+        this.batchSize = batchSize;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            hotSkuService.loadHotSkus();
+        } catch (Exception e) {
+            log.error("Failed to load hot SKU counters - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.hot-skus.lease-renew-interval:10000}", initialDelayString = "${app.inventory.hot-skus.lease-renew-interval:10000}")
+    public void renewHotSkuLeases() {
+        try {
+            hotSkuService.loadHotSkus();
+        } catch (Exception e) {
+            log.error("Failed to renew hot SKU leases, will retry - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.compaction-interval:1000}")
+    public void compact() {
+        try {
+            int compacted;
+            do {
+                compacted = inventoryLedger.compact(batchSize);
+            } while (compacted == batchSize);
+        } catch (Exception e) {
+            log.error("Failed to compact inventory ledger, will retry - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.purge-interval:3600000}")
+    public void purge() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            int purged = 0;
+            int deleted;
+            do {
+                deleted = inventoryLedger.purge(cutoff, batchSize);
+                purged += deleted;
+            } while (deleted == batchSize);
+            if (purged > 0) {
+                log.info("Purged {} inventory movements compacted before {}", purged, cutoff);
+            }
+        } catch (Exception e) {
+            log.error("Failed to purge inventory ledger - Error: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.entity.InventoryMovement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Append-only ledger of stock movements. Writers that do not need a stock check, and hot SKUs whose
+ * check happens in memory, only insert here; the compactor later folds those movements into the
+ * inventory rows in batches. Guarded decrements of cold SKUs still update their row directly, since
+ * the row lock is what keeps them from overselling, and are recorded as already compacted.
+ */
+@Component
+@Slf4j
+public class InventoryLedger {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_movements (sku, delta, reason, reference, created_at, compacted_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    // SKIP LOCKED and the compacted_at flag rather than an id cursor, since ids do not commit in order
+    private static final String COMPACT_SQL =
+            "UPDATE inventory_movements SET compacted_at = ? WHERE id IN (" +
+            "SELECT id FROM inventory_movements WHERE compacted_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING sku, delta";
+    private static final String COMPACT_SKU_SQL =
+            "UPDATE inventory_movements SET compacted_at = ? WHERE sku = ? AND compacted_at IS NULL RETURNING sku, delta";
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory SET quantity = quantity + ?, updated_at = ? WHERE sku = ?";
+    private static final String PENDING_DELTA_SQL =
+            "SELECT COALESCE(SUM(delta), 0) FROM inventory_movements WHERE sku = ? AND compacted_at IS NULL";
+    private static final String PENDING_DELTAS_SQL =
+            "SELECT sku, SUM(delta) AS pending FROM inventory_movements WHERE compacted_at IS NULL GROUP BY sku";
+    // Movement ids do not commit in order, so a hash over the whole uncompacted set rather than MAX(id)
+    private static final String PENDING_FINGERPRINT_SQL =
+            "SELECT COUNT(*) || '.' || COALESCE(SUM(hashint8(id)), 0) FROM inventory_movements WHERE compacted_at IS NULL";
+    private static final String PURGE_SQL =
+            "DELETE FROM inventory_movements WHERE id IN (" +
+            "SELECT id FROM inventory_movements WHERE compacted_at < ? ORDER BY id LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SkuAvailabilityStore availabilityStore;
+    private final StockChangeStream stockChangeStream;
+    private final ReadConsistency readConsistency;
+
+    public InventoryLedger(JdbcTemplate jdbcTemplate,
+                           SkuAvailabilityStore availabilityStore,
+                           StockChangeStream stockChangeStream,
+                           @Value("${app.inventory.ledger.read-consistency:strong}") String readConsistency) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.availabilityStore = availabilityStore;
+        this.stockChangeStream = stockChangeStream;
+        this.readConsistency = ReadConsistency.valueOf(readConsistency.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * How reads see movements that are not compacted yet
+     */
+    public enum ReadConsistency {
+        // Row quantity plus uncompacted deltas, always current
+        STRONG,
+        // Row quantity only, behind by at most one compaction interval
+        SNAPSHOT
+    }
+
+    public ReadConsistency getReadConsistency() {
+        return readConsistency;
+    }
+
+    public boolean isStrong() {
+        return readConsistency == ReadConsistency.STRONG;
+    }
+
+    /**
+     * Records movements that the compactor still has to apply to the inventory rows
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Collection<Movement> movements) {
+        insert(movements, null);
+    }
+
+    /**
+     * Records movements the caller has already applied to the inventory rows, as history only
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendApplied(Collection<Movement> movements) {
+        insert(movements, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Folds up to batchSize uncompacted movements into the inventory rows as one net delta per SKU.
+     * Marking them and moving the rows commit together, so each movement is applied exactly once.
+     * @return the number of movements compacted
+     */
+    @Transactional
+    public int compact(int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<String, Long>> compacted = jdbcTemplate.query(COMPACT_SQL, (rs, rowNum) ->
+                Map.entry(rs.getString("sku"), rs.getLong("delta")), now, batchSize);
+        applyDeltas(compacted, now);
+        return compacted.size();
+    }
+
+    @Transactional
+    public int compactSku(String sku) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<String, Long>> compacted = jdbcTemplate.query(COMPACT_SKU_SQL, (rs, rowNum) ->
+                Map.entry(rs.getString("sku"), rs.getLong("delta")), now, sku);
+        applyDeltas(compacted, now);
+        return compacted.size();
+    }
+
+    /**
+     * Deletes up to batchSize movements compacted before the cutoff
+     * @return the number of movements deleted
+     */
+    @Transactional
+    public int purge(LocalDateTime compactedBefore, int batchSize) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(compactedBefore), batchSize);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public long pendingDelta(String sku) {
+        Long pending = jdbcTemplate.queryForObject(PENDING_DELTA_SQL, Long.class, sku);
+        return pending == null ? 0 : pending;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, Long> pendingDeltas() {
+        Map<String, Long> pending = new HashMap<>();
+        jdbcTemplate.query(PENDING_DELTAS_SQL, rs -> {
+            pending.put(rs.getString("sku"), rs.getLong("pending"));
+        });
+        return pending;
+    }
+
+    // Uncompacted movements do not touch the rows' updated_at, so conditional GETs need this too
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String pendingFingerprint() {
+        return jdbcTemplate.queryForObject(PENDING_FINGERPRINT_SQL, String.class);
+    }
+
+    private void insert(Collection<Movement> movements, Timestamp compactedAt) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(movements.size());
+        Map<String, Integer> deltasBySku = new HashMap<>();
+        for (Movement movement : movements) {
+            rows.add(new Object[]{movement.sku(), movement.delta(), movement.reason().name(),
+                    movement.reference(), now, compactedAt});
+            deltasBySku.merge(movement.sku(), movement.delta(), Integer::sum);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        // Every stock change passes through here, which keeps this instance's store and subscribers current
+        availabilityStore.addAfterCommit(deltasBySku);
+        stockChangeStream.markChangedAfterCommit(deltasBySku.keySet());
+    }
+
+    private void applyDeltas(List<Map.Entry<String, Long>> compacted, Timestamp now) {
+        if (compacted.isEmpty()) {
+            return;
+        }
+        // Sorted so concurrent compactions lock rows in the same order
+        SortedMap<String, Long> netDeltas = new TreeMap<>();
+        compacted.forEach(entry -> netDeltas.merge(entry.getKey(), entry.getValue(), Long::sum));
+
+        List<Object[]> updates = new ArrayList<>(netDeltas.size());
+        netDeltas.forEach((sku, delta) -> {
+            if (delta != 0) {
+                updates.add(new Object[]{delta, now, sku});
+            }
+        });
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, updates);
+        log.debug("Compacted {} movements into {} net deltas", compacted.size(), updates.size());
+    }
+
+    public record Movement(String sku, int delta, InventoryMovement.Reason reason, String reference) {
+    }
+}
@@ -1,8 +1,14 @@
 package com.pasi.inventory_service.service;
 
+import com.pasi.inventory_service.dto.AvailabilityStoreStatsDTO;
+import com.pasi.inventory_service.dto.InventoryAvailabilityDTO;
 import com.pasi.inventory_service.dto.InventoryDTO;
+import com.pasi.inventory_service.dto.InventoryMovementDTO;
+import com.pasi.inventory_service.dto.WatermarkDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 public interface InventoryService {
     
@@ -12,11 +18,37 @@ public interface InventoryService {
      */
     InventoryDTO createInventoryForProduct(String sku, Integer quantity);
     
+    /**
+     * Create inventories for many SKUs in one statement, skipping SKUs that already have one
+     * @return the number of inventories actually created
+     */
+    int createInventoriesIfAbsent(Map<String, Integer> quantitiesBySku);
+    
     /**
      * Get inventory by SKU
      */
     InventoryDTO getInventoryBySku(String sku);
     
+    /**
+     * Get the available quantity of many SKUs at once; SKUs without an inventory are listed as missing
+     */
+    InventoryAvailabilityDTO getAvailability(List<String> skus);
+    
+    /**
+     * Get the size and hit counts of the off-heap availability store
+     */
+    AvailabilityStoreStatsDTO getAvailabilityStoreStats();
+    
+    /**
+     * Stream committed quantity changes of the given SKUs, or of all SKUs, resuming after lastEventId if given
+     */
+    SseEmitter subscribeToStockChanges(List<String> skus, String lastEventId);
+    
+    /**
+     * Get the most recent stock movements of a SKU, newest first
+     */
+    List<InventoryMovementDTO> getMovements(String sku, int limit);
+    
     /**
      * Update inventory quantity
      */
@@ -32,4 +64,9 @@ public interface InventoryService {
      */
     List<InventoryDTO> getAllInventories();
     
+    /**
+     * Get the row count and latest update time of all inventories, used to answer conditional GETs
+     */
+    WatermarkDTO getInventoriesWatermark();
+    
 }
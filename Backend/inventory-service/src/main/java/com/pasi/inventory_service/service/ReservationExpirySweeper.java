@@ -0,0 +1,36 @@
+package com.pasi.inventory_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Returns the stock of reservations that were neither committed nor released before they expired.
+ * Each batch claims its rows with SKIP LOCKED, so several replicas can sweep at the same time.
+ */
+@Component
+@Slf4j
+public class ReservationExpirySweeper {
+
+    private final StockReservationService stockReservationService;
+    private final int batchSize;
+
+    public ReservationExpirySweeper(StockReservationService stockReservationService,
+                                    @Value("${app.inventory.reservations.sweep-batch-size:500}") int batchSize) {
+        this.stockReservationService = stockReservationService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reservations.sweep-interval:30000}")
+    public void sweep() {
+        try {
+            int expired;
+            do {
+                expired = stockReservationService.expireReservations(batchSize);
+            } while (expired == batchSize);
+        } catch (Exception e) {
+            log.error("Failed to expire stock reservations, will retry - Error: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.AvailabilityStoreStatsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Available quantity per SKU kept outside the Java heap, in a memory-mapped file when a path is
+ * configured. SKUs are dictionary-encoded to dense int ids through an open-addressing index, and
+ * everything is stored in flat primitive regions, so millions of SKUs cost no objects and no GC work.
+ * Lookups are lock-free and allocation-free; writes are serialized and publish each new SKU with a
+ * release store, so a reader either sees a complete entry or none.
+ *
+ * <pre>
+ * header | index long[indexCapacity] (hash &lt;&lt; 32 | id + 1, 0 = empty) | quantities int[maxSkus]
+ *        | charOffsets int[maxSkus] | chars char[charCapacity] (length, then the SKU's UTF-16 chars)
+ * </pre>
+ */
+@Component
+@Slf4j
+public class SkuAvailabilityStore {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x534B5541;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int MAX_SKUS_AT = 8;
+    private static final int CHAR_CAPACITY_AT = 12;
+    private static final int SIZE_AT = 16;
+    private static final int CHARS_USED_AT = 20;
+    private static final int CLEAN_AT = 24;
+    private static final int SYNCED_AT = 32;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ORDER);
+
+    private final boolean enabled;
+    private final Path path;
+    private final int maxSkus;
+    private final int charCapacity;
+    private final int indexMask;
+    private final int indexAt;
+    private final int quantitiesAt;
+    private final int charOffsetsAt;
+    private final int charsAt;
+    private final long totalBytes;
+
+    private final Object writeLock = new Object();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private LocalDateTime warmSince;
+    private volatile boolean ready;
+    private volatile LocalDateTime lastRefreshAt;
+
+    public SkuAvailabilityStore(@Value("${app.inventory.availability-store.enabled:false}") boolean enabled,
+                                @Value("${app.inventory.availability-store.path:}") String path,
+                                @Value("${app.inventory.availability-store.max-skus:2000000}") int maxSkus,
+                                @Value("${app.inventory.availability-store.average-sku-length:24}") int averageSkuLength) {
+        this.enabled = enabled;
+        this.path = StringUtils.hasText(path) ? Path.of(path) : null;
+        this.maxSkus = maxSkus;
+        // Each SKU also stores its length as one char
+        this.charCapacity = Math.multiplyExact(maxSkus, averageSkuLength + 1);
+
+        // At most half full, so probes stay short
+        int indexCapacity = Integer.highestOneBit(Math.max(2, maxSkus) * 2 - 1) << 1;
+        this.indexMask = indexCapacity - 1;
+        this.indexAt = HEADER_BYTES;
+        this.quantitiesAt = Math.addExact(indexAt, Math.multiplyExact(indexCapacity, 8));
+        this.charOffsetsAt = Math.addExact(quantitiesAt, Math.multiplyExact(maxSkus, 4));
+        this.charsAt = Math.addExact(charOffsetsAt, Math.multiplyExact(maxSkus, 4));
+        this.totalBytes = Math.addExact((long) charsAt, (long) charCapacity * 2);
+        if (enabled && totalBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Availability store of " + totalBytes + " bytes exceeds one mapping, lower max-skus");
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (path == null) {
+            buffer = ByteBuffer.allocateDirect((int) totalBytes).order(ORDER);
+            log.info("Availability store allocated {} MB off-heap for {} SKUs", totalBytes >> 20, maxSkus);
+            return;
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = channel.size() == totalBytes;
+        if (!reusable) {
+            // A fresh file reads as zeros, which is an empty store
+            channel.truncate(0);
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, totalBytes);
+        buffer = mapped.order(ORDER);
+
+        // Only a file closed cleanly by this layout is trusted; anything else is rebuilt from the database
+        if (reusable && headerMatches() && (int) INT.get(buffer, CLEAN_AT) == 1) {
+            warmSince = toLocalDateTime((long) LONG.get(buffer, SYNCED_AT));
+            log.info("Availability store reopened {} with {} SKUs synced at {}", path, size(), warmSince);
+        } else {
+            if (reusable) {
+                log.warn("Availability store {} was not closed cleanly or has another layout, rebuilding it", path);
+            }
+            clear();
+        }
+        INT.setVolatile(buffer, CLEAN_AT, 0);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            LocalDateTime syncedAt = lastRefreshAt;
+            if (ready && syncedAt != null) {
+                LONG.setVolatile(buffer, SYNCED_AT, syncedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                ((MappedByteBuffer) buffer).force();
+                INT.setVolatile(buffer, CLEAN_AT, 1);
+            }
+            ((MappedByteBuffer) buffer).force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * When the reopened file was last in sync with the database, or null when it has to be loaded in full
+     */
+    public LocalDateTime getWarmSince() {
+        return warmSince;
+    }
+
+    public void markReady(LocalDateTime refreshedAt) {
+        lastRefreshAt = refreshedAt;
+        ready = true;
+    }
+
+    public void markRefreshed(LocalDateTime refreshedAt) {
+        lastRefreshAt = refreshedAt;
+    }
+
+    /**
+     * @return the available quantity, or MISSING when the SKU is not in the store
+     */
+    public int get(String sku) {
+        lookups.increment();
+        int id = find(sku, spread(sku.hashCode()));
+        if (id < 0) {
+            misses.increment();
+            return MISSING;
+        }
+        return (int) INT.getAcquire(buffer, quantitiesAt + id * 4);
+    }
+
+    public void put(String sku, int quantity) {
+        synchronized (writeLock) {
+            int id = findOrInsert(sku);
+            if (id >= 0) {
+                INT.setRelease(buffer, quantitiesAt + id * 4, quantity);
+            }
+        }
+    }
+
+    public void add(String sku, int delta) {
+        int id = find(sku, spread(sku.hashCode()));
+        if (id >= 0) {
+            INT.getAndAdd(buffer, quantitiesAt + id * 4, delta);
+            return;
+        }
+        synchronized (writeLock) {
+            id = findOrInsert(sku);
+            if (id >= 0) {
+                INT.getAndAdd(buffer, quantitiesAt + id * 4, delta);
+            }
+        }
+    }
+
+    /**
+     * Applies stock changes once the surrounding transaction commits, or right away without one
+     */
+    public void addAfterCommit(Map<String, Integer> deltasBySku) {
+        if (!enabled || deltasBySku.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deltasBySku.forEach(this::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deltasBySku.forEach(SkuAvailabilityStore.this::add);
+            }
+        });
+    }
+
+    public int size() {
+        return (int) INT.getAcquire(buffer, SIZE_AT);
+    }
+
+    public AvailabilityStoreStatsDTO getStats() {
+        return AvailabilityStoreStatsDTO.builder()
+                .enabled(enabled)
+                .ready(isReady())
+                .persistent(path != null)
+                .skus(enabled ? size() : 0)
+                .maxSkus(maxSkus)
+                .bytes(enabled ? totalBytes : 0)
+                .lookups(lookups.sum())
+                .misses(misses.sum())
+                .lastRefreshAt(lastRefreshAt)
+                .build();
+    }
+
+    // The hash sits next to the id in the index, so a probe only leaves the index for a likely match
+    private int find(String sku, int hash) {
+        for (int slot = hash & indexMask; ; slot = (slot + 1) & indexMask) {
+            long entry = (long) LONG.getAcquire(buffer, indexAt + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            int id = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && skuEquals(id, sku)) {
+                return id;
+            }
+        }
+    }
+
+    // Caller holds writeLock
+    private int findOrInsert(String sku) {
+        int hash = spread(sku.hashCode());
+        int slot = hash & indexMask;
+        for (; ; slot = (slot + 1) & indexMask) {
+            long entry = (long) LONG.getAcquire(buffer, indexAt + slot * 8);
+            if (entry == 0) {
+                break;
+            }
+            int id = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && skuEquals(id, sku)) {
+                return id;
+            }
+        }
+
+        int id = size();
+        int charsUsed = (int) INT.get(buffer, CHARS_USED_AT);
+        if (id >= maxSkus || charsUsed + sku.length() + 1 > charCapacity || sku.length() > Character.MAX_VALUE) {
+            log.warn("Availability store is full at {} SKUs, {} will be served from the database", id, sku);
+            return -1;
+        }
+
+        // Entry first, then the index slot that makes it visible
+        int charAt = charsAt + charsUsed * 2;
+        buffer.putChar(charAt, (char) sku.length());
+        for (int i = 0; i < sku.length(); i++) {
+            buffer.putChar(charAt + 2 + i * 2, sku.charAt(i));
+        }
+        INT.set(buffer, charOffsetsAt + id * 4, charsUsed);
+        INT.set(buffer, quantitiesAt + id * 4, 0);
+        INT.set(buffer, CHARS_USED_AT, charsUsed + sku.length() + 1);
+        LONG.setRelease(buffer, indexAt + slot * 8, ((long) hash << 32) | (id + 1L));
+        INT.setRelease(buffer, SIZE_AT, id + 1);
+        return id;
+    }
+
+    private boolean skuEquals(int id, String sku) {
+        int charAt = charsAt + (int) INT.get(buffer, charOffsetsAt + id * 4) * 2;
+        int length = buffer.getChar(charAt);
+        if (length != sku.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(charAt + 2 + i * 2) != sku.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean headerMatches() {
+        return (int) INT.get(buffer, MAGIC_AT) == MAGIC
+                && (int) INT.get(buffer, VERSION_AT) == FORMAT_VERSION
+                && (int) INT.get(buffer, MAX_SKUS_AT) == maxSkus
+                && (int) INT.get(buffer, CHAR_CAPACITY_AT) == charCapacity;
+    }
+
+    private void clear() {
+        for (int offset = 0; offset < quantitiesAt; offset += 4) {
+            INT.set(buffer, offset, 0);
+        }
+        INT.set(buffer, MAGIC_AT, MAGIC);
+        INT.set(buffer, VERSION_AT, FORMAT_VERSION);
+        INT.set(buffer, MAX_SKUS_AT, maxSkus);
+        INT.set(buffer, CHAR_CAPACITY_AT, charCapacity);
+        warmSince = null;
+    }
+
+    // Spreads String.hashCode, which is cached by the String, over the index
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return epochMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
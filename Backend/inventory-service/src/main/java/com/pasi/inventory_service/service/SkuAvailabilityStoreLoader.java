@@ -0,0 +1,129 @@
+package com.pasi.inventory_service.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fills SkuAvailabilityStore from the database and keeps it in step with writes made by other
+ * instances. A cleanly reopened file only needs the rows changed since it was last synced; this
+ * instance's own writes reach the store directly through the ledger.
+ */
+@Component
+@Slf4j
+public class SkuAvailabilityStoreLoader {
+
+    private static final String AVAILABLE_SQL =
+            "SELECT i.sku, i.quantity + COALESCE(p.pending, 0) AS available FROM inventory i " +
+            "LEFT JOIN (SELECT sku, SUM(delta) AS pending FROM inventory_movements " +
+            "WHERE compacted_at IS NULL GROUP BY sku) p ON p.sku = i.sku";
+    private static final String CHANGED_SINCE_SQL = AVAILABLE_SQL +
+            " WHERE i.updated_at > ? OR i.sku IN (SELECT sku FROM inventory_movements WHERE created_at > ?)";
+
+    private final SkuAvailabilityStore availabilityStore;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long overlapMs;
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-store-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SkuAvailabilityStoreLoader(SkuAvailabilityStore availabilityStore,
+                                      DataSource dataSource,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.inventory.availability-store.fetch-size:10000}") int fetchSize,
+                                      @Value("${app.inventory.availability-store.refresh-overlap:10000}") long overlapMs) {
+        this.availabilityStore = availabilityStore;
+        // The driver only streams with a fetch size inside a transaction
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.overlapMs = overlapMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (availabilityStore.isEnabled()) {
+            loadExecutor.execute(this::load);
+        }
+    }
+
+    // Reads are answered from the database until the first load is done
+    private void load() {
+        try {
+            long startedAt = System.nanoTime();
+            LocalDateTime loadStartedAt = LocalDateTime.now();
+            LocalDateTime warmSince = availabilityStore.getWarmSince();
+            int loaded = warmSince == null ? loadAll() : loadChangedSince(warmSince);
+            availabilityStore.markReady(loadStartedAt);
+            log.info("Availability store ready with {} SKUs after {} {} in {} ms", availabilityStore.size(),
+                    warmSince == null ? "full load of" : "catching up on", loaded, (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to load availability store, reads stay on the database - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.availability-store.refresh-interval:5000}")
+    public void refresh() {
+        if (!availabilityStore.isReady()) {
+            return;
+        }
+        try {
+            LocalDateTime refreshStartedAt = LocalDateTime.now();
+            int refreshed = loadChangedSince(availabilityStore.getStats().getLastRefreshAt());
+            availabilityStore.markRefreshed(refreshStartedAt);
+            if (refreshed > 0) {
+                log.debug("Refreshed {} SKUs in the availability store", refreshed);
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh availability store, will retry - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdownNow();
+    }
+
+    private int loadAll() {
+        Integer loaded = transactionTemplate.execute(status -> {
+            int[] count = {0};
+            streamingJdbcTemplate.query(AVAILABLE_SQL, rs -> {
+                availabilityStore.put(rs.getString("sku"), rs.getInt("available"));
+                count[0]++;
+            });
+            return count[0];
+        });
+        return loaded == null ? 0 : loaded;
+    }
+
+    // The overlap covers transactions that stamped their rows before the last refresh but committed after it
+    private int loadChangedSince(LocalDateTime since) {
+        Timestamp from = Timestamp.valueOf(since.minusNanos(overlapMs * 1_000_000));
+        Integer loaded = transactionTemplate.execute(status -> {
+            int[] count = {0};
+            streamingJdbcTemplate.query(CHANGED_SINCE_SQL, rs -> {
+                availabilityStore.put(rs.getString("sku"), rs.getInt("available"));
+                count[0]++;
+            }, from, from);
+            return count[0];
+        });
+        return loaded == null ? 0 : loaded;
+    }
+}
@@ -0,0 +1,403 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.StockChangeDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes committed stock changes to server-sent event subscribers so clients stop polling the
+ * inventory list. Writers only mark a SKU as changed after commit; every coalescing window one thread
+ * reads the current quantity of all changed SKUs in one query, numbers the ones that really moved,
+ * and fans them out to the subscribers whose SKU filter matches. Recent changes are kept in a replay
+ * buffer so a client reconnecting with Last-Event-ID gets what it missed, or a resync event when
+ * that is no longer possible. Writes made by other instances are picked up by polling the ledger.
+ */
+@Component
+@Slf4j
+public class StockChangeStream {
+
+    public static final String CHANGES_EVENT = "stock-changes";
+    public static final String READY_EVENT = "ready";
+    public static final String RESYNC_EVENT = "resync";
+
+    private static final String QUANTITIES_SQL =
+            "SELECT i.sku, i.quantity + COALESCE(p.pending, 0) AS quantity FROM inventory i " +
+            "LEFT JOIN (SELECT sku, SUM(delta) AS pending FROM inventory_movements " +
+            "WHERE compacted_at IS NULL AND sku = ANY(?) GROUP BY sku) p ON p.sku = i.sku " +
+            "WHERE i.sku = ANY(?)";
+    // Both branches use the compacted_at index; rows re-stamped by compaction come back too but are
+    // dropped when their quantity has not moved
+    private static final String CHANGED_SKUS_SQL =
+            "SELECT DISTINCT sku FROM inventory_movements " +
+            "WHERE (compacted_at IS NULL AND created_at > ?) OR compacted_at > ?";
+    private static final int QUERY_CHUNK_SIZE = 1000;
+    private static final int LAST_SENT_CAPACITY = 100_000;
+    private static final long RECONNECT_DELAY_MS = 3000;
+    private static final long NOT_RESUMING = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotSkuCounters hotSkuCounters;
+    private final boolean enabled;
+    private final long coalesceWindowMs;
+    private final int replayCapacity;
+    private final long resumeWindowMs;
+    private final long timeoutMs;
+    private final long heartbeatIntervalMs;
+    private final long remotePollIntervalMs;
+    private final long remotePollOverlapMs;
+    private final int maxSubscribers;
+    private final int maxFilterSize;
+
+    // Instance start time, so ids handed out before a restart are recognised as foreign
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<String> changedSkus = ConcurrentHashMap.newKeySet();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Object publishLock = new Object();
+    private final ArrayDeque<StockChangeDTO> replay = new ArrayDeque<>();
+    // Touched only by the dispatcher thread
+    private final Map<String, Integer> lastSent = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > LAST_SENT_CAPACITY;
+        }
+    };
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by publishLock; a client can resume from any version in [resumableFrom, version]
+    private long version;
+    private long resumableFrom;
+    // Stamped before each removal, so whoever sees no subscribers also sees when the last one left
+    private volatile long lastDisconnectedAt;
+    private LocalDateTime lastPolledAt = LocalDateTime.now();
+
+    public StockChangeStream(JdbcTemplate jdbcTemplate,
+                             HotSkuCounters hotSkuCounters,
+                             @Value("${app.inventory.stream.enabled:true}") boolean enabled,
+                             @Value("${app.inventory.stream.coalesce-window:250}") long coalesceWindowMs,
+                             @Value("${app.inventory.stream.replay-capacity:10000}") int replayCapacity,
+                             @Value("${app.inventory.stream.resume-window:60000}") long resumeWindowMs,
+                             @Value("${app.inventory.stream.timeout:1800000}") long timeoutMs,
+                             @Value("${app.inventory.stream.heartbeat-interval:15000}") long heartbeatIntervalMs,
+                             @Value("${app.inventory.stream.remote-poll-interval:2000}") long remotePollIntervalMs,
+                             @Value("${app.inventory.stream.remote-poll-overlap:5000}") long remotePollOverlapMs,
+                             @Value("${app.inventory.stream.max-subscribers:5000}") int maxSubscribers,
+                             @Value("${app.inventory.stream.max-filter-size:1000}") int maxFilterSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotSkuCounters = hotSkuCounters;
+        this.enabled = enabled;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.replayCapacity = replayCapacity;
+        this.resumeWindowMs = resumeWindowMs;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.remotePollIntervalMs = remotePollIntervalMs;
+        this.remotePollOverlapMs = remotePollOverlapMs;
+        this.maxSubscribers = maxSubscribers;
+        this.maxFilterSize = maxFilterSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        dispatcher.scheduleWithFixedDelay(this::dispatch, coalesceWindowMs, coalesceWindowMs, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        if (remotePollIntervalMs > 0) {
+            dispatcher.scheduleWithFixedDelay(this::pollRemoteChanges, remotePollIntervalMs, remotePollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Marks SKUs as changed once the surrounding transaction commits; a rollback marks nothing
+     */
+    public void markChangedAfterCommit(Collection<String> skus) {
+        if (!enabled || skus.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedSkus.addAll(skus);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedSkus.addAll(skus);
+            }
+        });
+    }
+
+    /**
+     * Opens a stream of changes to the given SKUs, or to all SKUs when none are given. A lastEventId
+     * from an earlier stream replays what happened since, if this instance still has it.
+     */
+    public SseEmitter subscribe(Collection<String> skus, String lastEventId) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock change stream is disabled");
+        }
+        Set<String> filter = skus == null || skus.isEmpty() ? null : new LinkedHashSet<>(skus);
+        if (filter != null && filter.size() > maxFilterSize) {
+            throw new IllegalArgumentException("At most " + maxFilterSize + " SKUs can be watched by one stream");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many stock change subscribers, try again later");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        // Replaying and registering under the publish lock means no change is missed or sent twice
+        synchronized (publishLock) {
+            try {
+                long resumeFrom = parseVersion(lastEventId);
+                if (resumeFrom == NOT_RESUMING) {
+                    emitter.send(SseEmitter.event().name(READY_EVENT).id(eventId(version))
+                            .reconnectTime(RECONNECT_DELAY_MS).data(Map.of("version", version)));
+                } else {
+                    replay(subscriber, resumeFrom);
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            subscribers.add(subscriber);
+        }
+        log.debug("Stock change subscriber added, {} SKUs watched, {} subscribers",
+                filter == null ? "all" : filter.size(), subscribers.size());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        subscribers.clear();
+    }
+
+    // Runs on the dispatcher thread only
+    private void dispatch() {
+        try {
+            if (changedSkus.isEmpty()) {
+                return;
+            }
+            List<String> skus = new ArrayList<>(changedSkus);
+            changedSkus.removeAll(skus);
+
+            // Nobody could resume across this gap, so the changes are dropped and old ids invalidated
+            if (subscribers.isEmpty() && System.currentTimeMillis() - lastDisconnectedAt > resumeWindowMs) {
+                synchronized (publishLock) {
+                    replay.clear();
+                    resumableFrom = ++version;
+                }
+                lastSent.clear();
+                return;
+            }
+
+            Map<String, Integer> quantities = currentQuantities(skus);
+            List<StockChangeDTO> changes = new ArrayList<>(quantities.size());
+            List<Subscriber> recipients;
+            synchronized (publishLock) {
+                for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                    // A reserve and release inside one window, or an overlapping poll, changes nothing
+                    if (entry.getValue().equals(lastSent.put(entry.getKey(), entry.getValue()))) {
+                        continue;
+                    }
+                    StockChangeDTO change = new StockChangeDTO(entry.getKey(), entry.getValue(), ++version);
+                    changes.add(change);
+                    replay.addLast(change);
+                    if (replay.size() > replayCapacity) {
+                        resumableFrom = replay.removeFirst().getVersion();
+                    }
+                }
+                recipients = List.copyOf(subscribers);
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            for (Subscriber subscriber : recipients) {
+                send(subscriber, changes);
+            }
+            log.debug("Published {} stock changes to {} subscribers", changes.size(), recipients.size());
+        } catch (Exception e) {
+            log.error("Failed to publish stock changes - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    // Comments keep idle connections open through proxies and reveal clients that went away
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+            } catch (Exception e) {
+                drop(subscriber, e);
+            }
+        }
+    }
+
+    // The overlap covers transactions that stamped their rows before the last poll but committed after it
+    private void pollRemoteChanges() {
+        try {
+            if (subscribers.isEmpty()) {
+                lastPolledAt = LocalDateTime.now();
+                return;
+            }
+            LocalDateTime pollStartedAt = LocalDateTime.now();
+            Timestamp from = Timestamp.valueOf(lastPolledAt.minusNanos(remotePollOverlapMs * 1_000_000));
+            List<String> skus = jdbcTemplate.queryForList(CHANGED_SKUS_SQL, String.class, from, from);
+            changedSkus.addAll(skus);
+            lastPolledAt = pollStartedAt;
+        } catch (Exception e) {
+            log.error("Failed to poll stock changes from the ledger, will retry - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    // Hot SKUs report their in-memory stock, everything else its row plus uncompacted deltas
+    private Map<String, Integer> currentQuantities(List<String> skus) {
+        Map<String, Integer> quantities = new HashMap<>();
+        List<String> coldSkus = new ArrayList<>(skus.size());
+        for (String sku : skus) {
+            OptionalLong available = hotSkuCounters.available(sku);
+            if (available.isPresent()) {
+                quantities.put(sku, (int) available.getAsLong());
+            } else {
+                coldSkus.add(sku);
+            }
+        }
+        for (int from = 0; from < coldSkus.size(); from += QUERY_CHUNK_SIZE) {
+            List<String> chunk = coldSkus.subList(from, Math.min(from + QUERY_CHUNK_SIZE, coldSkus.size()));
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(QUANTITIES_SQL);
+                Array skuArray = connection.createArrayOf("text", chunk.toArray());
+                statement.setArray(1, skuArray);
+                statement.setArray(2, skuArray);
+                return statement;
+            }, rs -> {
+                quantities.put(rs.getString("sku"), rs.getInt("quantity"));
+            });
+        }
+        return quantities;
+    }
+
+    // Caller holds publishLock
+    private void replay(Subscriber subscriber, long resumeFrom) throws IOException {
+        if (resumeFrom < resumableFrom || resumeFrom > version) {
+            subscriber.emitter().send(SseEmitter.event().name(RESYNC_EVENT).id(eventId(version))
+                    .reconnectTime(RECONNECT_DELAY_MS).data(Map.of("version", version)));
+            return;
+        }
+        List<StockChangeDTO> missed = new ArrayList<>();
+        for (StockChangeDTO change : replay) {
+            if (change.getVersion() > resumeFrom && subscriber.watches(change.getSku())) {
+                missed.add(change);
+            }
+        }
+        if (missed.isEmpty()) {
+            subscriber.emitter().send(SseEmitter.event().name(READY_EVENT).id(eventId(version))
+                    .reconnectTime(RECONNECT_DELAY_MS).data(Map.of("version", version)));
+            return;
+        }
+        subscriber.emitter().send(SseEmitter.event().name(CHANGES_EVENT).id(eventId(version))
+                .reconnectTime(RECONNECT_DELAY_MS).data(missed));
+    }
+
+    private void send(Subscriber subscriber, List<StockChangeDTO> changes) {
+        List<StockChangeDTO> matching = changes;
+        if (subscriber.filter() != null) {
+            matching = new ArrayList<>();
+            for (StockChangeDTO change : changes) {
+                if (subscriber.watches(change.getSku())) {
+                    matching.add(change);
+                }
+            }
+            if (matching.isEmpty()) {
+                return;
+            }
+        }
+        try {
+            // The id is the newest version in the batch, which is where a reconnect resumes
+            subscriber.emitter().send(SseEmitter.event().name(CHANGES_EVENT)
+                    .id(eventId(changes.get(changes.size() - 1).getVersion())).data(matching));
+        } catch (Exception e) {
+            drop(subscriber, e);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        remove(subscriber);
+        subscriber.emitter().completeWithError(e);
+        log.debug("Dropped stock change subscriber - Error: {}", e.getMessage());
+    }
+
+    // The resume window runs from the last disconnect, not the last subscribe
+    private void remove(Subscriber subscriber) {
+        lastDisconnectedAt = System.currentTimeMillis();
+        subscribers.remove(subscriber);
+    }
+
+    private String eventId(long eventVersion) {
+        return epoch + "-" + eventVersion;
+    }
+
+    // Long.MIN_VALUE for an id this instance did not hand out, which forces a resync
+    private long parseVersion(String lastEventId) {
+        if (!StringUtils.hasText(lastEventId)) {
+            return NOT_RESUMING;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator <= 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private record Subscriber(SseEmitter emitter, Set<String> filter) {
+        boolean watches(String sku) {
+            return filter == null || filter.contains(sku);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.ReserveStockRequest;
+import com.pasi.inventory_service.dto.StockReservationDTO;
+
+public interface StockReservationService {
+
+    /**
+     * Reserve stock for every item or for none of them
+     * Repeating a request with the same reservation ID returns the existing reservation
+     */
+    StockReservationDTO reserve(ReserveStockRequest request);
+
+    /**
+     * Return the reserved stock to the inventory; releasing twice is a no-op
+     */
+    StockReservationDTO release(String reservationId);
+
+    /**
+     * Turn the reservation into a sale so the stock is not returned; committing twice is a no-op
+     */
+    StockReservationDTO commit(String reservationId);
+
+    /**
+     * Get a reservation with its items
+     */
+    StockReservationDTO getReservation(String reservationId);
+
+    /**
+     * Release up to batchSize reservations whose expiry has passed
+     * @return the number of reservation lines expired
+     */
+    int expireReservations(int batchSize);
+}
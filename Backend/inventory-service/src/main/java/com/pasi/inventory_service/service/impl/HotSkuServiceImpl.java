@@ -0,0 +1,209 @@
+package com.pasi.inventory_service.service.impl;
+
+import com.pasi.inventory_service.dto.HotSkuStatsDTO;
+import com.pasi.inventory_service.exception.InvalidStatusException;
+import com.pasi.inventory_service.exception.InventoryNotFoundException;
+import com.pasi.inventory_service.service.HotSkuCounters;
+import com.pasi.inventory_service.service.HotSkuService;
+import com.pasi.inventory_service.service.InventoryLedger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches SKUs in and out of hot mode. Flagging the row hot takes its lock, so cold-path reservations
+ * already in flight finish first, and the conditional decrement skips hot rows afterwards. From then on
+ * the row only changes when the ledger is compacted. The row also records which instance serves the
+ * SKU and until when; that instance keeps renewing the lease, and another one can only take the SKU
+ * over once the lease has run out. Lease times come from the database clock, so instances with
+ * skewed clocks still agree on them.
+ *
+ * <p>Leaving hot mode locks the row first, so cold reservations queue behind it, then drains the
+ * counter so every hot take has reached the ledger, compacts the ledger into the row and only then
+ * flags it cold. A cold reservation therefore never sees a row missing hot sales.
+ */
+@Service
+@Slf4j
+@Transactional
+public class HotSkuServiceImpl implements HotSkuService {
+
+    private static final String FLAG_HOT_SQL =
+            "UPDATE inventory SET hot = true, hot_owner = ?, hot_lease_until = now() + ? * interval '1 millisecond', " +
+            "updated_at = ? WHERE sku = ? AND (hot = false OR hot_owner = ? OR hot_owner IS NULL OR hot_lease_until < now()) " +
+            "RETURNING quantity";
+    private static final String FLAG_COLD_SQL =
+            "UPDATE inventory SET hot = false, hot_owner = NULL, hot_lease_until = NULL, updated_at = ? " +
+            "WHERE sku = ? AND hot_owner = ?";
+    // NO KEY UPDATE, so reservations that only reference the row (ledger inserts) are not blocked
+    private static final String LOCK_OWNED_SQL =
+            "SELECT sku FROM inventory WHERE sku = ? AND hot_owner = ? FOR NO KEY UPDATE";
+    private static final String OWNER_SQL =
+            "SELECT hot_owner FROM inventory WHERE sku = ?";
+    // Renews this instance's leases and takes over hot SKUs whose owner stopped renewing
+    private static final String CLAIM_SQL =
+            "UPDATE inventory SET hot_owner = ?, hot_lease_until = now() + ? * interval '1 millisecond' " +
+            "WHERE hot = true AND (hot_owner = ? OR hot_owner IS NULL OR hot_lease_until < now()) RETURNING sku, quantity";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotSkuCounters hotSkuCounters;
+    private final InventoryLedger inventoryLedger;
+    private final boolean enabled;
+    private final String instanceId;
+    private final long leaseMs;
+    private final long drainTimeoutMs;
+
+    public HotSkuServiceImpl(JdbcTemplate jdbcTemplate,
+                             HotSkuCounters hotSkuCounters,
+                             InventoryLedger inventoryLedger,
+                             @Value("${app.inventory.hot-skus.enabled:false}") boolean enabled,
+                             @Value("${app.inventory.hot-skus.instance-id:}") String instanceId,
+                             @Value("${app.inventory.hot-skus.lease:30000}") long leaseMs,
+                             @Value("${app.inventory.hot-skus.drain-timeout:5000}") long drainTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotSkuCounters = hotSkuCounters;
+        this.inventoryLedger = inventoryLedger;
+        this.enabled = enabled;
+        // A stable id lets a restarted instance take its SKUs back without waiting out the lease
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+        this.leaseMs = leaseMs;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    @Override
+    public HotSkuStatsDTO enableHotSku(String sku) {
+        if (!enabled) {
+            throw new InvalidStatusException("Hot SKU mode is disabled");
+        }
+        if (hotSkuCounters.isHot(sku)) {
+            return statsFor(sku);
+        }
+
+        long leaseDeadline = leaseDeadline();
+        List<Integer> quantity = jdbcTemplate.queryForList(FLAG_HOT_SQL, Integer.class,
+                instanceId, leaseMs, Timestamp.valueOf(LocalDateTime.now()), sku, instanceId);
+        if (quantity.isEmpty()) {
+            throw notOwned(sku);
+        }
+        // Published while the row lock is held; dropped again if the flag does not commit. A concurrent
+        // enable on this instance that got here first keeps its counter
+        if (!hotSkuCounters.load(sku, quantity.get(0) + inventoryLedger.pendingDelta(sku), leaseDeadline)) {
+            return statsFor(sku);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    hotSkuCounters.unload(sku);
+                }
+            }
+        });
+
+        log.info("SKU {} is now hot with {} available", sku, hotSkuCounters.available(sku).orElse(0));
+        return statsFor(sku);
+    }
+
+    @Override
+    public void disableHotSku(String sku) {
+        if (!hotSkuCounters.isHot(sku)) {
+            throw new InvalidStatusException("SKU is not hot on this instance: " + sku);
+        }
+        if (jdbcTemplate.queryForList(LOCK_OWNED_SQL, String.class, sku, instanceId).isEmpty()) {
+            throw new InvalidStatusException("SKU " + sku + " is no longer leased to this instance");
+        }
+        // The counter only goes once the row is cold for good, and serves again if that fails
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    hotSkuCounters.unload(sku);
+                } else {
+                    hotSkuCounters.reopen(sku);
+                }
+            }
+        });
+        if (!hotSkuCounters.drain(sku, drainTimeoutMs)) {
+            throw new InvalidStatusException("Reservations of SKU " + sku + " are still in flight, try again");
+        }
+        inventoryLedger.compactSku(sku);
+        jdbcTemplate.update(FLAG_COLD_SQL, Timestamp.valueOf(LocalDateTime.now()), sku, instanceId);
+        log.info("SKU {} is no longer hot", sku);
+    }
+
+    @Override
+    public int loadHotSkus() {
+        if (!enabled) {
+            return 0;
+        }
+        long leaseDeadline = leaseDeadline();
+        Map<String, Integer> claimed = new HashMap<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            claimed.put(rs.getString("sku"), rs.getInt("quantity"));
+        }, instanceId, leaseMs, instanceId);
+        hotSkuCounters.unloadLapsed();
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // Counters still live only need the longer lease; the rest start from the row plus its ledger
+        Map<String, Long> pending = inventoryLedger.pendingDeltas();
+        List<String> loaded = new ArrayList<>();
+        claimed.forEach((sku, quantity) -> {
+            if (!hotSkuCounters.renew(sku, leaseDeadline)
+                    && hotSkuCounters.load(sku, quantity + pending.getOrDefault(sku, 0L), leaseDeadline)) {
+                loaded.add(sku);
+            }
+        });
+        if (!loaded.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        loaded.forEach(hotSkuCounters::unload);
+                    }
+                }
+            });
+            log.info("Loaded {} hot SKU counters: {}", loaded.size(), loaded);
+        }
+        return loaded.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<HotSkuStatsDTO> getHotSkuStats() {
+        return hotSkuCounters.getStats(inventoryLedger.pendingDeltas());
+    }
+
+    // Taken before the lease is written, so this instance stops serving before the row lease runs out
+    private long leaseDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMs);
+    }
+
+    private RuntimeException notOwned(String sku) {
+        List<String> owner = jdbcTemplate.queryForList(OWNER_SQL, String.class, sku);
+        if (owner.isEmpty()) {
+            return new InventoryNotFoundException("Inventory not found for sku: " + sku);
+        }
+        return new InvalidStatusException("SKU " + sku + " is hot on another instance: " + owner.get(0));
+    }
+
+    private HotSkuStatsDTO statsFor(String sku) {
+        return hotSkuCounters.getStats(inventoryLedger.pendingDeltas()).stream()
+                .filter(stats -> stats.getSku().equals(sku))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -1,18 +1,48 @@
 package com.pasi.inventory_service.service.impl;
 
+import com.pasi.inventory_service.exception.InvalidStatusException;
 import com.pasi.inventory_service.exception.InventoryAlreadyExistsException;
 import com.pasi.inventory_service.exception.InventoryNotFoundException;
+import com.pasi.inventory_service.repository.InventoryMovementRepository;
 import com.pasi.inventory_service.repository.InventoryRepository;
+import com.pasi.inventory_service.service.HotSkuCounters;
+import com.pasi.inventory_service.service.InventoryLedger;
 import com.pasi.inventory_service.service.InventoryService;
+import com.pasi.inventory_service.service.SkuAvailabilityStore;
+import com.pasi.inventory_service.service.StockChangeStream;
+import com.pasi.inventory_service.dto.AvailabilityStoreStatsDTO;
+import com.pasi.inventory_service.dto.InventoryAvailabilityDTO;
 import com.pasi.inventory_service.dto.InventoryDTO;
+import com.pasi.inventory_service.dto.InventoryMovementDTO;
+import com.pasi.inventory_service.dto.WatermarkDTO;
 import com.pasi.inventory_service.entity.Inventory;
+import com.pasi.inventory_service.entity.InventoryMovement;
 import com.pasi.inventory_service.mapper.InventoryMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigInteger;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,8 +51,46 @@ import java.util.stream.Collectors;
 @Transactional
 public class InventoryServiceImpl implements InventoryService {
 
+    // One round trip for the whole batch; the unique sku constraint decides which rows are new,
+    // and only those get their CREATED movement
+    private static final String INSERT_IF_ABSENT_SQL =
+            "WITH created AS (" +
+            "INSERT INTO inventory (sku, quantity, updated_at) " +
+            "SELECT t.sku, t.quantity, ? FROM unnest(?::text[], ?::int[]) AS t(sku, quantity) " +
+            "ON CONFLICT (sku) DO NOTHING RETURNING sku, quantity) " +
+            "INSERT INTO inventory_movements (sku, delta, reason, created_at, compacted_at) " +
+            "SELECT sku, quantity, 'CREATED', ?, ? FROM created RETURNING sku, delta";
+    private static final String AVAILABILITY_SQL =
+            "SELECT sku, quantity FROM inventory WHERE sku = ANY(?)";
+    private static final String AVAILABILITY_WITH_PENDING_SQL =
+            "SELECT i.sku, i.quantity + COALESCE(p.pending, 0) AS quantity FROM inventory i " +
+            "LEFT JOIN (SELECT sku, SUM(delta) AS pending FROM inventory_movements " +
+            "WHERE compacted_at IS NULL AND sku = ANY(?) GROUP BY sku) p ON p.sku = i.sku " +
+            "WHERE i.sku = ANY(?)";
+    // Order-independent sum of per-row hashes, so every committed change moves it
+    private static final String WATERMARK_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(hashtextextended(concat_ws(':', id, updated_at), 0)), 0) " +
+            "FROM inventory";
+    private static final String SET_QUANTITY_SQL =
+            "UPDATE inventory SET quantity = ?, updated_at = ? WHERE id = ?";
+
     private final InventoryRepository inventoryRepository;
     private final InventoryMapper inventoryMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final HotSkuCounters hotSkuCounters;
+    private final InventoryLedger inventoryLedger;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final SkuAvailabilityStore availabilityStore;
+    private final StockChangeStream stockChangeStream;
+
+    @Value("${app.inventory.availability.max-size:200}")
+    private int availabilityMaxSize;
+
+    @Value("${app.inventory.availability-store.strong-reads:true}")
+    private boolean storeServesStrongReads;
+
+    @Value("${app.inventory.ledger.movements-max-limit:500}")
+    private int movementsMaxLimit;
 
     @Override
     public InventoryDTO createInventoryForProduct(String sku, Integer quantity) {
@@ -40,11 +108,48 @@ public class InventoryServiceImpl implements InventoryService {
         inventory.setQuantity(quantity);
         
         Inventory savedInventory = inventoryRepository.save(inventory);
+        inventoryLedger.appendApplied(List.of(
+                new InventoryLedger.Movement(sku, quantity, InventoryMovement.Reason.CREATED, null)));
         log.info("Successfully created inventory with ID: {} for sku ID: {}", savedInventory.getId(), savedInventory.getSku());
         
         return inventoryMapper.toDTO(savedInventory);
     }
 
+    @Override
+    public int createInventoriesIfAbsent(Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return 0;
+        }
+
+        String[] skus = new String[quantitiesBySku.size()];
+        Integer[] quantities = new Integer[quantitiesBySku.size()];
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : quantitiesBySku.entrySet()) {
+            skus[index] = entry.getKey();
+            quantities[index] = entry.getValue();
+            index++;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Integer> created = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT_SQL);
+            statement.setTimestamp(1, now);
+            statement.setArray(2, connection.createArrayOf("text", skus));
+            statement.setArray(3, connection.createArrayOf("int4", quantities));
+            statement.setTimestamp(4, now);
+            statement.setTimestamp(5, now);
+            return statement;
+        }, rs -> {
+            created.put(rs.getString("sku"), rs.getInt("delta"));
+        });
+        availabilityStore.addAfterCommit(created);
+        stockChangeStream.markChangedAfterCommit(created.keySet());
+        log.info("Created {} of {} inventories, {} SKUs already had one",
+                created.size(), skus.length, skus.length - created.size());
+        return created.size();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public InventoryDTO getInventoryBySku(String sku) {
@@ -53,21 +158,123 @@ public class InventoryServiceImpl implements InventoryService {
         Inventory inventory = inventoryRepository.findBySku(sku)
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for sku: " + sku));
         
-        return inventoryMapper.toDTO(inventory);
+        InventoryDTO inventoryDTO = inventoryMapper.toDTO(inventory);
+        long pending = inventoryLedger.isStrong() ? inventoryLedger.pendingDelta(sku) : 0;
+        return withLiveQuantity(inventoryDTO, pending);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public InventoryAvailabilityDTO getAvailability(List<String> skus) {
+        Set<String> requested = new LinkedHashSet<>(skus);
+        if (requested.size() > availabilityMaxSize) {
+            throw new IllegalArgumentException("At most " + availabilityMaxSize + " SKUs can be looked up at once");
+        }
+
+        // Hot SKUs come from their counters, the rest from the availability store, and only what
+        // neither knows from one query. The store holds row + pending movements and takes this
+        // instance's writes on commit, but other instances' writes only on its next refresh, so
+        // strong reads use it unless strong-reads is off
+        boolean strong = inventoryLedger.isStrong();
+        boolean storeReady = availabilityStore.isReady() && (!strong || storeServesStrongReads);
+        // SKUs the store misses are read the way it holds them, so one response never mixes the two
+        boolean withPending = strong || storeReady;
+        Map<String, Integer> found = new HashMap<>();
+        List<String> coldSkus = new ArrayList<>(requested.size());
+        for (String sku : requested) {
+            OptionalLong available = hotSkuCounters.available(sku);
+            if (available.isPresent()) {
+                found.put(sku, (int) available.getAsLong());
+                continue;
+            }
+            int stored = storeReady ? availabilityStore.get(sku) : SkuAvailabilityStore.MISSING;
+            if (stored != SkuAvailabilityStore.MISSING) {
+                found.put(sku, stored);
+            } else {
+                coldSkus.add(sku);
+            }
+        }
+        if (!coldSkus.isEmpty()) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        withPending ? AVAILABILITY_WITH_PENDING_SQL : AVAILABILITY_SQL);
+                Array skuArray = connection.createArrayOf("text", coldSkus.toArray());
+                statement.setArray(1, skuArray);
+                if (withPending) {
+                    statement.setArray(2, skuArray);
+                }
+                return statement;
+            }, rs -> {
+                found.put(rs.getString("sku"), rs.getInt("quantity"));
+            });
+        }
+
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String sku : requested) {
+            Integer quantity = found.get(sku);
+            if (quantity != null) {
+                quantities.put(sku, quantity);
+            } else {
+                missing.add(sku);
+            }
+        }
+        log.info("Availability lookup for {} SKUs, {} missing", requested.size(), missing.size());
+        return InventoryAvailabilityDTO.builder()
+                .quantities(quantities)
+                .missing(missing)
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter subscribeToStockChanges(List<String> skus, String lastEventId) {
+        return stockChangeStream.subscribe(skus, lastEventId);
+    }
+
+    @Override
+    public AvailabilityStoreStatsDTO getAvailabilityStoreStats() {
+        return availabilityStore.getStats();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InventoryMovementDTO> getMovements(String sku, int limit) {
+        if (!inventoryRepository.existsBySku(sku)) {
+            throw new InventoryNotFoundException("Inventory not found for sku: " + sku);
+        }
+        int pageSize = Math.max(1, Math.min(limit, movementsMaxLimit));
+        return inventoryMovementRepository.findBySkuOrderByIdDesc(sku, PageRequest.of(0, pageSize)).stream()
+                .map(inventoryMapper::toMovementDTO)
+                .toList();
     }
 
     @Override
     public InventoryDTO updateInventoryQuantity(String sku, Integer quantity) {
         log.info("Updating inventory quantity for SKU: {} to {}", sku, quantity);
         
-        Inventory inventory = inventoryRepository.findBySku(sku)
+        // The row lock holds off the compactor and a hot switch until this commits, so the hot flag
+        // and the uncompacted deltas read below cannot change before the quantity is written
+        Inventory inventory = inventoryRepository.findBySkuForUpdate(sku)
                 .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for sku: " + sku));
         
-        inventory.setQuantity(quantity);
-        Inventory savedInventory = inventoryRepository.save(inventory);
+        // The row of a hot SKU is not the source of truth until it leaves hot mode
+        if (inventory.isHot()) {
+            throw new InvalidStatusException("Inventory for sku " + sku + " is in hot mode and cannot be overwritten");
+        }
+        
+        // The new quantity is what the SKU should have in total, so the row absorbs the uncompacted deltas.
+        // Only quantity is written, so nothing else on the row is overwritten from this copy
+        long pending = inventoryLedger.pendingDelta(sku);
+        int previous = (int) (inventory.getQuantity() + pending);
+        jdbcTemplate.update(SET_QUANTITY_SQL, (int) (quantity - pending), Timestamp.valueOf(LocalDateTime.now()), inventory.getId());
+        inventoryLedger.appendApplied(List.of(
+                new InventoryLedger.Movement(sku, quantity - previous, InventoryMovement.Reason.ADJUSTED, null)));
         
         log.info("Successfully updated inventory quantity for SKU: {}", sku);
-        return inventoryMapper.toDTO(savedInventory);
+        InventoryDTO inventoryDTO = inventoryMapper.toDTO(inventory);
+        inventoryDTO.setQuantity(quantity);
+        return inventoryDTO;
     }
 
     @Override
@@ -82,8 +289,44 @@ public class InventoryServiceImpl implements InventoryService {
         log.info("Fetching all inventories");
         
         List<Inventory> inventories = inventoryRepository.findAll();
+        Map<String, Long> pending = inventoryLedger.isStrong() ? inventoryLedger.pendingDeltas() : Map.of();
         return inventories.stream()
                 .map(inventoryMapper::toDTO)
+                .map(inventory -> withLiveQuantity(inventory, pending.getOrDefault(inventory.getSku(), 0L)))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WatermarkDTO getInventoriesWatermark() {
+        WatermarkDTO watermark = jdbcTemplate.queryForObject(WATERMARK_SQL, (rs, rowNum) ->
+                new WatermarkDTO(rs.getLong(1), new BigInteger(rs.getString(2)).toString(36)));
+        StringBuilder fingerprint = new StringBuilder(watermark.getFingerprint());
+        if (inventoryLedger.isStrong()) {
+            // Uncompacted movements change what strong reads return without touching the rows
+            fingerprint.append('.').append(inventoryLedger.pendingFingerprint());
+        }
+        // Hot SKUs report their counters in either mode, and those move without any write to the table
+        Set<String> hotSkus = new TreeSet<>(hotSkuCounters.hotSkus());
+        if (!hotSkus.isEmpty()) {
+            long hotHash = 1;
+            for (String sku : hotSkus) {
+                hotHash = 31 * hotHash + Objects.hash(sku, hotSkuCounters.available(sku).orElse(-1));
+            }
+            fingerprint.append('.').append(Long.toString(hotHash, 36));
+        }
+        watermark.setFingerprint(fingerprint.toString());
+        return watermark;
+    }
+
+    // Hot SKUs report their in-memory stock; others add the uncompacted deltas when reads are strong
+    private InventoryDTO withLiveQuantity(InventoryDTO inventory, long pending) {
+        OptionalLong available = hotSkuCounters.available(inventory.getSku());
+        if (available.isPresent()) {
+            inventory.setQuantity((int) available.getAsLong());
+        } else if (pending != 0) {
+            inventory.setQuantity((int) (inventory.getQuantity() + pending));
+        }
+        return inventory;
+    }
 }
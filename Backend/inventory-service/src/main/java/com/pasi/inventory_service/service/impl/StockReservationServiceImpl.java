@@ -0,0 +1,346 @@
+package com.pasi.inventory_service.service.impl;
+
+import com.pasi.inventory_service.dto.ReservationItemDTO;
+import com.pasi.inventory_service.dto.ReserveStockRequest;
+import com.pasi.inventory_service.dto.StockReservationDTO;
+import com.pasi.inventory_service.entity.InventoryMovement;
+import com.pasi.inventory_service.entity.StockReservation;
+import com.pasi.inventory_service.exception.InsufficientStockException;
+import com.pasi.inventory_service.exception.InvalidStatusException;
+import com.pasi.inventory_service.exception.InventoryNotFoundException;
+import com.pasi.inventory_service.exception.ReservationNotFoundException;
+import com.pasi.inventory_service.repository.InventoryRepository;
+import com.pasi.inventory_service.repository.StockReservationRepository;
+import com.pasi.inventory_service.service.HotSkuCounters;
+import com.pasi.inventory_service.service.InventoryLedger;
+import com.pasi.inventory_service.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Stock reservations done with conditional SQL instead of read-modify-write. A reserve takes each
+ * quantity off with one guarded UPDATE, so the row lock is only held for that statement and stock
+ * can never go negative. SKUs are always updated in sorted order, so multi-SKU reservations that
+ * overlap cannot deadlock each other. SKUs in hot mode are taken from HotSkuCounters instead and only
+ * recorded in the ledger; the conditional decrement never touches their rows. Stock that comes back
+ * is an insert into the ledger, so releases and expiries never wait on a row lock.
+ *
+ * <p>A reserve runs in a transaction of its own, so when a concurrent reserve with the same id wins
+ * the insert, its decrements are rolled back before the winner's reservation is read and returned.
+ */
+@Service
+@Slf4j
+@Transactional
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE inventory SET quantity = quantity - ?, updated_at = ? WHERE sku = ? AND quantity >= ? AND hot = false";
+    private static final String INSERT_RESERVATION_SQL =
+            "INSERT INTO stock_reservations (reservation_id, sku, quantity, status, expires_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Only a RESERVED reservation can move, and the statement itself decides which caller wins
+    private static final String RELEASE_SQL =
+            "UPDATE stock_reservations SET status = ?, updated_at = ? " +
+            "WHERE reservation_id = ? AND status = ? RETURNING reservation_id, sku, quantity";
+    private static final String COMMIT_SQL =
+            "UPDATE stock_reservations SET status = ?, updated_at = ? " +
+            "WHERE reservation_id = ? AND status = ? AND expires_at > ? RETURNING sku, quantity";
+    private static final String EXPIRE_SQL =
+            "UPDATE stock_reservations SET status = ?, updated_at = ? WHERE id IN (" +
+            "SELECT id FROM stock_reservations WHERE status = ? AND expires_at <= ? " +
+            "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING reservation_id, sku, quantity";
+
+    private static final RowMapper<ReservationItemDTO> ITEM_ROW_MAPPER =
+            (rs, rowNum) -> new ReservationItemDTO(rs.getString("sku"), rs.getInt("quantity"));
+    private static final RowMapper<ReservationLine> LINE_ROW_MAPPER =
+            (rs, rowNum) -> new ReservationLine(rs.getString("reservation_id"), rs.getString("sku"), rs.getInt("quantity"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final HotSkuCounters hotSkuCounters;
+    private final InventoryLedger inventoryLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+
+    public StockReservationServiceImpl(JdbcTemplate jdbcTemplate,
+                                       InventoryRepository inventoryRepository,
+                                       StockReservationRepository stockReservationRepository,
+                                       HotSkuCounters hotSkuCounters,
+                                       InventoryLedger inventoryLedger,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.inventory.reservations.ttl:900}") long defaultTtlSeconds,
+                                       @Value("${app.inventory.reservations.max-ttl:3600}") long maxTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.hotSkuCounters = hotSkuCounters;
+        this.inventoryLedger = inventoryLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = Duration.ofSeconds(defaultTtlSeconds);
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockReservationDTO reserve(ReserveStockRequest request) {
+        String reservationId = StringUtils.hasText(request.getReservationId())
+                ? request.getReservationId()
+                : UUID.randomUUID().toString();
+
+        List<StockReservation> existing = stockReservationRepository.findByReservationIdOrderBySku(reservationId);
+        if (!existing.isEmpty()) {
+            log.info("Reservation {} already exists, returning it", reservationId);
+            return toDTO(reservationId, existing);
+        }
+
+        try {
+            return transactionTemplate.execute(status -> reserveNew(reservationId, request));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent reserve with the same id inserted first; this one's decrements were rolled back
+            List<StockReservation> winner = stockReservationRepository.findByReservationIdOrderBySku(reservationId);
+            if (winner.isEmpty()) {
+                throw e;
+            }
+            log.info("Reservation {} was created concurrently, returning it", reservationId);
+            return toDTO(reservationId, winner);
+        }
+    }
+
+    private StockReservationDTO reserveNew(String reservationId, ReserveStockRequest request) {
+        SortedMap<String, Integer> quantitiesBySku = mergeItems(request.getItems());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(resolveTtl(request.getTtlSeconds()));
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+
+        SortedMap<String, Integer> hotQuantities = new TreeMap<>();
+        SortedMap<String, Integer> coldQuantities = new TreeMap<>();
+        quantitiesBySku.forEach((sku, quantity) ->
+                (hotSkuCounters.isHot(sku) ? hotQuantities : coldQuantities).put(sku, quantity));
+
+        List<String> unavailable = new ArrayList<>(reserveHot(hotQuantities, reservationId));
+        if (unavailable.isEmpty() && !coldQuantities.isEmpty()) {
+            List<Object[]> decrements = new ArrayList<>(coldQuantities.size());
+            coldQuantities.forEach((sku, quantity) -> decrements.add(new Object[]{quantity, nowTimestamp, sku, quantity}));
+            int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, decrements);
+
+            int index = 0;
+            for (String sku : coldQuantities.keySet()) {
+                if (updated[index++] == 0) {
+                    unavailable.add(sku);
+                }
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            // Rolls back the decrements that did succeed
+            throw unavailableStock(unavailable);
+        }
+        inventoryLedger.appendApplied(movements(coldQuantities, -1, InventoryMovement.Reason.RESERVED, reservationId));
+
+        List<Object[]> rows = new ArrayList<>(quantitiesBySku.size());
+        Timestamp expiresAtTimestamp = Timestamp.valueOf(expiresAt);
+        quantitiesBySku.forEach((sku, quantity) -> rows.add(new Object[]{
+                reservationId, sku, quantity, StockReservation.Status.RESERVED.name(),
+                expiresAtTimestamp, nowTimestamp, nowTimestamp}));
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION_SQL, rows);
+
+        log.info("Reserved {} SKUs under reservation {} until {}", quantitiesBySku.size(), reservationId, expiresAt);
+        return StockReservationDTO.builder()
+                .reservationId(reservationId)
+                .status(StockReservation.Status.RESERVED)
+                .expiresAt(expiresAt)
+                .items(quantitiesBySku.entrySet().stream()
+                        .map(entry -> new ReservationItemDTO(entry.getKey(), entry.getValue()))
+                        .toList())
+                .build();
+    }
+
+    @Override
+    public StockReservationDTO release(String reservationId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReservationLine> released = jdbcTemplate.query(RELEASE_SQL, LINE_ROW_MAPPER,
+                StockReservation.Status.RELEASED.name(), Timestamp.valueOf(now),
+                reservationId, StockReservation.Status.RESERVED.name());
+
+        if (released.isEmpty()) {
+            StockReservationDTO reservation = getReservation(reservationId);
+            if (reservation.getStatus() == StockReservation.Status.COMMITTED) {
+                throw new InvalidStatusException("Reservation " + reservationId + " is already committed");
+            }
+            return reservation;
+        }
+
+        restock(released, InventoryMovement.Reason.RELEASED);
+        log.info("Released reservation {} with {} SKUs", reservationId, released.size());
+        return getReservation(reservationId);
+    }
+
+    @Override
+    public StockReservationDTO commit(String reservationId) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+        List<ReservationItemDTO> committed = jdbcTemplate.query(COMMIT_SQL, ITEM_ROW_MAPPER,
+                StockReservation.Status.COMMITTED.name(), nowTimestamp,
+                reservationId, StockReservation.Status.RESERVED.name(), nowTimestamp);
+
+        if (committed.isEmpty()) {
+            StockReservationDTO reservation = getReservation(reservationId);
+            switch (reservation.getStatus()) {
+                case COMMITTED -> {
+                    return reservation;
+                }
+                // Past its expiry but not swept yet; the sweeper will give the stock back
+                case RESERVED -> throw new InvalidStatusException("Reservation " + reservationId + " has expired");
+                default -> throw new InvalidStatusException(
+                        "Reservation " + reservationId + " is already " + reservation.getStatus().name().toLowerCase());
+            }
+        }
+
+        log.info("Committed reservation {} with {} SKUs", reservationId, committed.size());
+        return getReservation(reservationId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockReservationDTO getReservation(String reservationId) {
+        List<StockReservation> lines = stockReservationRepository.findByReservationIdOrderBySku(reservationId);
+        if (lines.isEmpty()) {
+            throw new ReservationNotFoundException("Reservation not found: " + reservationId);
+        }
+        return toDTO(reservationId, lines);
+    }
+
+    @Override
+    public int expireReservations(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+        List<ReservationLine> expired = jdbcTemplate.query(EXPIRE_SQL, LINE_ROW_MAPPER,
+                StockReservation.Status.EXPIRED.name(), nowTimestamp,
+                StockReservation.Status.RESERVED.name(), nowTimestamp, batchSize);
+        if (!expired.isEmpty()) {
+            restock(expired, InventoryMovement.Reason.EXPIRED);
+            log.info("Expired {} reservation lines", expired.size());
+        }
+        return expired.size();
+    }
+
+    /**
+     * Takes hot SKU stock from the in-memory counters and records it in the ledger in this transaction.
+     * The counters get the stock back if the transaction does not commit, and count it as in flight
+     * until then.
+     */
+    private List<String> reserveHot(SortedMap<String, Integer> hotQuantities, String reservationId) {
+        if (hotQuantities.isEmpty()) {
+            return List.of();
+        }
+        HotSkuCounters.Hold hold = hotSkuCounters.reserveAll(hotQuantities);
+        if (!hold.unavailable().isEmpty()) {
+            return hold.unavailable();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                hold.settle(status == STATUS_COMMITTED);
+            }
+        });
+        inventoryLedger.append(movements(hotQuantities, -1, InventoryMovement.Reason.RESERVED, reservationId));
+        return List.of();
+    }
+
+    // Returning stock needs no check, so it is only an insert into the ledger, hot SKU or not
+    private void restock(List<ReservationLine> lines, InventoryMovement.Reason reason) {
+        SortedMap<String, Integer> hotQuantities = new TreeMap<>();
+        List<InventoryLedger.Movement> movements = new ArrayList<>(lines.size());
+        for (ReservationLine line : lines) {
+            movements.add(new InventoryLedger.Movement(line.sku(), line.quantity(), reason, line.reservationId()));
+            if (hotSkuCounters.isHot(line.sku())) {
+                hotQuantities.merge(line.sku(), line.quantity(), Integer::sum);
+            }
+        }
+        inventoryLedger.append(movements);
+
+        if (!hotQuantities.isEmpty()) {
+            // Only sellable again once the release is durable
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hotSkuCounters.releaseAll(hotQuantities);
+                }
+            });
+        }
+    }
+
+    private static List<InventoryLedger.Movement> movements(SortedMap<String, Integer> quantitiesBySku, int sign,
+                                                            InventoryMovement.Reason reason, String reference) {
+        List<InventoryLedger.Movement> movements = new ArrayList<>(quantitiesBySku.size());
+        quantitiesBySku.forEach((sku, quantity) ->
+                movements.add(new InventoryLedger.Movement(sku, sign * quantity, reason, reference)));
+        return movements;
+    }
+
+    // Sorted by SKU, which is also the order rows are locked in
+    private static SortedMap<String, Integer> mergeItems(List<ReservationItemDTO> items) {
+        SortedMap<String, Integer> quantitiesBySku = new TreeMap<>();
+        for (ReservationItemDTO item : items) {
+            quantitiesBySku.merge(item.getSku(), item.getQuantity(), Integer::sum);
+        }
+        return quantitiesBySku;
+    }
+
+    private Duration resolveTtl(Integer ttlSeconds) {
+        if (ttlSeconds == null) {
+            return defaultTtl;
+        }
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        return ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl;
+    }
+
+    // Only runs on the failure path, to tell unknown SKUs apart from sold-out ones
+    private RuntimeException unavailableStock(List<String> unavailable) {
+        Set<String> known = new HashSet<>(inventoryRepository.findExistingSkus(unavailable));
+        List<String> missing = unavailable.stream().filter(sku -> !known.contains(sku)).toList();
+        if (!missing.isEmpty()) {
+            return new InventoryNotFoundException("Inventory not found for SKUs: " + String.join(", ", missing));
+        }
+        return new InsufficientStockException(unavailable);
+    }
+
+    private static StockReservationDTO toDTO(String reservationId, List<StockReservation> lines) {
+        StockReservation first = lines.get(0);
+        return StockReservationDTO.builder()
+                .reservationId(reservationId)
+                .status(first.getStatus())
+                .expiresAt(first.getExpiresAt())
+                .items(lines.stream()
+                        .map(line -> new ReservationItemDTO(line.getSku(), line.getQuantity()))
+                        .toList())
+                .build();
+    }
+
+    private record ReservationLine(String reservationId, String sku, int quantity) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.pasi.inventory_service.service;
+
+import com.pasi.inventory_service.dto.HotSkuStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotSkuCountersTest {
+
+    private static final String SKU = "SKU-HOT";
+    private static final int THREADS = 8;
+
+    private final HotSkuCounters counters = new HotSkuCounters(16);
+
+    @Test
+    void concurrentTakesSellExactlyTheStock() throws Exception {
+        int stock = 20_000;
+        counters.load(SKU, stock, farDeadline());
+
+        List<Long> sold = runConcurrently(() -> {
+            long taken = 0;
+            while (take(Map.of(SKU, 1)).isEmpty()) {
+                taken++;
+            }
+            return taken;
+        });
+
+        assertThat(sold.stream().mapToLong(Long::longValue).sum()).isEqualTo(stock);
+        assertThat(counters.available(SKU)).hasValue(0);
+    }
+
+    @Test
+    void unevenTakesNeverOversell() throws Exception {
+        int stock = 10_007;
+        counters.load(SKU, stock, farDeadline());
+
+        List<Long> sold = runConcurrently(() -> {
+            long taken = 0;
+            int failures = 0;
+            // Keeps going past the first rejection, so the small takes drain what the large ones leave
+            while (failures < 100) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 6);
+                if (take(Map.of(SKU, quantity)).isEmpty()) {
+                    taken += quantity;
+                } else {
+                    failures++;
+                }
+            }
+            return taken;
+        });
+
+        long totalSold = sold.stream().mapToLong(Long::longValue).sum();
+        assertThat(totalSold).isLessThanOrEqualTo(stock);
+        assertThat(totalSold + counters.available(SKU).orElseThrow()).isEqualTo(stock);
+    }
+
+    @Test
+    void releasesDuringRebalancesAreNotLost() throws Exception {
+        // Little stock over many stripes, so most takes need a rebalance
+        int stock = 40;
+        counters.load(SKU, stock, farDeadline());
+
+        List<Long> rejected = runConcurrently(() -> {
+            long rejections = 0;
+            for (int i = 0; i < 20_000; i++) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 8);
+                if (take(Map.of(SKU, quantity)).isEmpty()) {
+                    counters.release(SKU, quantity);
+                } else {
+                    rejections++;
+                }
+            }
+            return rejections;
+        });
+
+        HotSkuStatsDTO stats = counters.getStats(Map.of()).get(0);
+        assertThat(stats.getRebalances()).isPositive();
+        assertThat(counters.available(SKU)).hasValue(stock);
+        assertThat(rejected).hasSize(THREADS);
+    }
+
+    @Test
+    void multiSkuReservationTakesAllOrNothing() {
+        counters.load("SKU-A", 5, farDeadline());
+        counters.load("SKU-B", 1, farDeadline());
+
+        assertThat(take(Map.of("SKU-A", 3, "SKU-B", 2))).containsExactly("SKU-B");
+        assertThat(counters.available("SKU-A")).hasValue(5);
+        assertThat(counters.available("SKU-B")).hasValue(1);
+    }
+
+    @Test
+    void lapsedLeaseStopsServing() {
+        counters.load(SKU, 10, System.nanoTime() - 1);
+
+        assertThat(counters.isHot(SKU)).isFalse();
+        assertThat(counters.available(SKU)).isEmpty();
+        assertThat(take(Map.of(SKU, 1))).containsExactly(SKU);
+        assertThat(counters.renew(SKU, farDeadline())).isFalse();
+
+        counters.unloadLapsed();
+        assertThat(counters.hotSkus()).isEmpty();
+    }
+
+    @Test
+    void loadKeepsALiveCounter() {
+        assertThat(counters.load(SKU, 10, farDeadline())).isTrue();
+        take(Map.of(SKU, 4));
+
+        assertThat(counters.load(SKU, 10, farDeadline())).isFalse();
+        assertThat(counters.available(SKU)).hasValue(6);
+    }
+
+    @Test
+    void drainWaitsForTakesInFlight() throws Exception {
+        counters.load(SKU, 10, farDeadline());
+        HotSkuCounters.Hold hold = counters.reserveAll(Map.of(SKU, 3));
+
+        assertThat(counters.drain(SKU, 50)).isFalse();
+        // Draining stops new takes, and the SKU no longer counts as hot
+        assertThat(counters.reserveAll(Map.of(SKU, 1)).unavailable()).containsExactly(SKU);
+        assertThat(counters.isHot(SKU)).isFalse();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> drained = executor.submit(() -> counters.drain(SKU, 60_000));
+            hold.settle(true);
+            assertThat(drained.get(60, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reopenAfterADrainServesWhatWasNotCommitted() {
+        counters.load(SKU, 10, farDeadline());
+        HotSkuCounters.Hold hold = counters.reserveAll(Map.of(SKU, 4));
+        counters.drain(SKU, 0);
+
+        hold.settle(false);
+        hold.settle(false);
+        counters.reopen(SKU);
+
+        assertThat(counters.drain(SKU, 0)).isTrue();
+        counters.reopen(SKU);
+        assertThat(counters.available(SKU)).hasValue(10);
+    }
+
+    // Takes as a reservation that commits at once would
+    private List<String> take(Map<String, Integer> quantities) {
+        HotSkuCounters.Hold hold = counters.reserveAll(quantities);
+        hold.settle(true);
+        return hold.unavailable();
+    }
+
+    private static long farDeadline() {
+        return System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+    }
+
+    // Starts every task at once, so the threads actually contend
+    private static List<Long> runConcurrently(Callable<Long> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Long> results = new ArrayList<>(THREADS);
+            for (Future<Long> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
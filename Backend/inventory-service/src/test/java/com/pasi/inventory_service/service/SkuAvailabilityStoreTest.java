@@ -0,0 +1,139 @@
+package com.pasi.inventory_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkuAvailabilityStoreTest {
+
+    private static final LocalDateTime SYNCED_AT = LocalDateTime.of(2026, 3, 1, 12, 30, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void putAddAndMissingOffHeap() throws IOException {
+        SkuAvailabilityStore store = open("", 100, 24);
+
+        store.put("SKU-1", 10);
+        store.add("SKU-1", -3);
+        store.add("SKU-2", 5);
+        store.put("SKU-1", 4);
+
+        assertThat(store.get("SKU-1")).isEqualTo(4);
+        assertThat(store.get("SKU-2")).isEqualTo(5);
+        assertThat(store.get("SKU-3")).isEqualTo(SkuAvailabilityStore.MISSING);
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void equalHashesAndLongProbeRunsStayApart() throws IOException {
+        int skus = 50_000;
+        SkuAvailabilityStore store = open("", skus, 24);
+
+        // "Aa" and "BB" share a String hash, so they land on the same slot
+        store.put("Aa", 1);
+        store.put("BB", 2);
+        for (int i = 2; i < skus; i++) {
+            store.put("SKU-" + i, i);
+        }
+
+        assertThat(store.get("Aa")).isEqualTo(1);
+        assertThat(store.get("BB")).isEqualTo(2);
+        for (int i = 2; i < skus; i++) {
+            assertThat(store.get("SKU-" + i)).isEqualTo(i);
+        }
+        assertThat(store.get("AaBB")).isEqualTo(SkuAvailabilityStore.MISSING);
+        assertThat(store.size()).isEqualTo(skus);
+    }
+
+    @Test
+    void cleanCloseIsReopenedWithItsEntries() throws IOException {
+        String path = dir.resolve("store.dat").toString();
+        SkuAvailabilityStore store = open(path, 1000, 24);
+        store.put("SKU-1", 7);
+        store.put("SKU-2", 0);
+        store.markReady(SYNCED_AT);
+        store.close();
+
+        SkuAvailabilityStore reopened = open(path, 1000, 24);
+
+        assertThat(reopened.getWarmSince()).isEqualTo(SYNCED_AT);
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get("SKU-1")).isEqualTo(7);
+        assertThat(reopened.get("SKU-2")).isZero();
+        reopened.put("SKU-3", 3);
+        assertThat(reopened.get("SKU-3")).isEqualTo(3);
+    }
+
+    @Test
+    void fileNeverMarkedReadyIsRebuilt() throws IOException {
+        String path = dir.resolve("store.dat").toString();
+        SkuAvailabilityStore store = open(path, 1000, 24);
+        store.put("SKU-1", 7);
+        store.close();
+
+        SkuAvailabilityStore reopened = open(path, 1000, 24);
+
+        assertThat(reopened.getWarmSince()).isNull();
+        assertThat(reopened.size()).isZero();
+        assertThat(reopened.get("SKU-1")).isEqualTo(SkuAvailabilityStore.MISSING);
+    }
+
+    @Test
+    void fileWithAnotherLayoutIsRebuilt() throws IOException {
+        String path = dir.resolve("store.dat").toString();
+        SkuAvailabilityStore store = open(path, 1000, 24);
+        store.put("SKU-1", 7);
+        store.markReady(SYNCED_AT);
+        store.close();
+
+        SkuAvailabilityStore reopened = open(path, 2000, 24);
+
+        assertThat(reopened.getWarmSince()).isNull();
+        assertThat(reopened.get("SKU-1")).isEqualTo(SkuAvailabilityStore.MISSING);
+    }
+
+    @Test
+    void fullStoreKeepsServingWhatItHas() throws IOException {
+        SkuAvailabilityStore store = open("", 4, 24);
+        for (int i = 0; i < 4; i++) {
+            store.put("SKU-" + i, i);
+        }
+
+        store.put("SKU-4", 4);
+        store.add("SKU-5", 5);
+        store.add("SKU-0", 10);
+
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(store.get("SKU-4")).isEqualTo(SkuAvailabilityStore.MISSING);
+        assertThat(store.get("SKU-5")).isEqualTo(SkuAvailabilityStore.MISSING);
+        assertThat(store.get("SKU-0")).isEqualTo(10);
+        assertThat(store.get("SKU-3")).isEqualTo(3);
+    }
+
+    @Test
+    void skuCharsBeyondCapacityAreNotStored() throws IOException {
+        // Room for 4 SKUs of 2 chars, each plus its length
+        SkuAvailabilityStore store = open("", 4, 2);
+
+        store.put("A-MUCH-LONGER-SKU", 1);
+        store.put("S1", 2);
+
+        assertThat(store.get("A-MUCH-LONGER-SKU")).isEqualTo(SkuAvailabilityStore.MISSING);
+        assertThat(store.get("S1")).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    private static SkuAvailabilityStore open(String path, int maxSkus, int averageSkuLength) throws IOException {
+        SkuAvailabilityStore store = new SkuAvailabilityStore(true, path, maxSkus, averageSkuLength);
+        store.open();
+        return store;
+    }
+}
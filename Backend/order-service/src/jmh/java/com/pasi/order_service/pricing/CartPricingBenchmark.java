@@ -0,0 +1,172 @@
+package com.pasi.order_service.pricing;
+
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.entity.CartItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totals kept by CartPricing deltas against the BigDecimal recount the cart entities did before
+ * it. Run with ./gradlew jmh -PjmhArgs='CartPricingBenchmark -prof gc' to see allocations as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartPricingBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int lines;
+
+    private BigDecimal[] prices;
+    private RecountCart recountCart;
+    private Cart cart;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new BigDecimal[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), CartPricing.SCALE);
+        }
+        recountCart = new RecountCart();
+        cart = Cart.builder().totalAmount(BigDecimal.ZERO).build();
+        for (int i = 0; i < lines; i++) {
+            recountCart.addItem(recountItem(i));
+            cart.addItem(item(i));
+        }
+    }
+
+    // Builds a cart line by line, as the add-item path does
+    @Benchmark
+    public BigDecimal buildRecount() {
+        RecountCart built = new RecountCart();
+        for (int i = 0; i < lines; i++) {
+            built.addItem(recountItem(i));
+        }
+        return built.totalAmount;
+    }
+
+    @Benchmark
+    public BigDecimal buildPricing() {
+        Cart built = Cart.builder().totalAmount(BigDecimal.ZERO).build();
+        for (int i = 0; i < lines; i++) {
+            built.addItem(item(i));
+        }
+        return built.getTotalAmount();
+    }
+
+    // Tops up one line of a held cart, then reads the total and the item count
+    @Benchmark
+    public void topUpRecount(Blackhole blackhole) {
+        RecountItem item = recountCart.items.get(step++ % lines);
+        item.updateQuantity(item.quantity % 9 + 1);
+        recountCart.calculateTotal();
+        blackhole.consume(recountCart.totalAmount);
+        blackhole.consume(recountCart.getTotalItems());
+    }
+
+    @Benchmark
+    public void topUpPricing(Blackhole blackhole) {
+        CartItem item = cart.getItems().get(step++ % lines);
+        cart.updateItemQuantity(item, item.getQuantity() % 9 + 1);
+        blackhole.consume(cart.getTotalAmount());
+        blackhole.consume(cart.getTotalItems());
+    }
+
+    // A flush of unchanged items, which runs @PreUpdate on every line
+    @Benchmark
+    public void flushRecount(Blackhole blackhole) {
+        for (RecountItem item : recountCart.items) {
+            item.calculateSubTotal();
+        }
+        blackhole.consume(recountCart.items.get(0).subTotal);
+    }
+
+    @Benchmark
+    public void flushPricing(Blackhole blackhole) {
+        for (CartItem item : cart.getItems()) {
+            item.calculateSubTotal();
+        }
+        blackhole.consume(cart.getItems().get(0).getSubTotal());
+    }
+
+    private RecountItem recountItem(int index) {
+        RecountItem item = new RecountItem();
+        item.unitPrice = prices[index];
+        item.quantity = 1 + index % 7;
+        item.calculateSubTotal();
+        return item;
+    }
+
+    private CartItem item(int index) {
+        CartItem item = CartItem.builder()
+                .skuCode("SKU-" + index)
+                .productName("Product " + index)
+                .unitPrice(prices[index])
+                .quantity(1 + index % 7)
+                .build();
+        item.calculateSubTotal();
+        return item;
+    }
+
+    // The item arithmetic before CartPricing: a BigDecimal multiply on every flush
+    private static final class RecountItem {
+        private BigDecimal unitPrice;
+        private Integer quantity;
+        private BigDecimal subTotal;
+
+        private void calculateSubTotal() {
+            subTotal = unitPrice != null && quantity != null
+                    ? unitPrice.multiply(BigDecimal.valueOf(quantity))
+                    : BigDecimal.ZERO;
+        }
+
+        private void updateQuantity(Integer newQuantity) {
+            quantity = newQuantity;
+            calculateSubTotal();
+        }
+    }
+
+    // The cart arithmetic before CartPricing: every change recounts all lines
+    private static final class RecountCart {
+        private final List<RecountItem> items = new ArrayList<>();
+        private BigDecimal totalAmount;
+
+        private void addItem(RecountItem item) {
+            items.add(item);
+            calculateTotal();
+        }
+
+        private void calculateTotal() {
+            totalAmount = items.stream()
+                    .map(item -> item.subTotal)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        private int getTotalItems() {
+            return items.stream().mapToInt(item -> item.quantity).sum();
+        }
+    }
+}
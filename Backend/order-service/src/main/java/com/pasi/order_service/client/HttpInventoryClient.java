@@ -0,0 +1,106 @@
+package com.pasi.order_service.client;
+
+import com.pasi.order_service.dto.InventoryApiResponse;
+import com.pasi.order_service.dto.StockReservationRequest;
+import com.pasi.order_service.dto.StockReservationResponse;
+import com.pasi.order_service.exception.InsufficientStockException;
+import com.pasi.order_service.exception.InventoryUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "app.inventory.client", havingValue = "http", matchIfMissing = true)
+@Slf4j
+public class HttpInventoryClient implements InventoryClient {
+
+    private static final ParameterizedTypeReference<InventoryApiResponse<StockReservationResponse>> RESERVATION_RESPONSE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RestTemplate restTemplate;
+
+    public HttpInventoryClient(RestTemplateBuilder restTemplateBuilder,
+                               @Value("${app.inventory.base-url:http://localhost:8082}") String baseUrl,
+                               @Value("${app.inventory.connect-timeout:1000}") long connectTimeoutMs,
+                               @Value("${app.inventory.read-timeout:3000}") long readTimeoutMs) {
+        this.restTemplate = restTemplateBuilder
+                .rootUri(baseUrl + "/api/v1/inventory")
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+    }
+
+    @Override
+    public StockReservationResponse reserve(StockReservationRequest request) {
+        try {
+            InventoryApiResponse<StockReservationResponse> response = restTemplate.exchange(
+                    "/reservations", HttpMethod.POST, new HttpEntity<>(request), RESERVATION_RESPONSE).getBody();
+            if (response == null || response.getData() == null) {
+                throw new InventoryUnavailableException("Inventory returned no reservation for " + request.getReservationId());
+            }
+            return response.getData();
+        } catch (HttpClientErrorException e) {
+            // 409 is stock that ran out, 404 a SKU inventory does not know; both mean the cart cannot be filled
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT) || e.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                throw new InsufficientStockException(errorMessage(e));
+            }
+            throw new InventoryUnavailableException("Inventory rejected reservation " + request.getReservationId()
+                    + ": " + errorMessage(e), e);
+        } catch (RestClientException e) {
+            throw new InventoryUnavailableException("Inventory service is unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean commit(String reservationId) {
+        try {
+            restTemplate.postForEntity("/reservations/{reservationId}/commit", null, Void.class, reservationId);
+            return true;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT) || e.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                log.warn("Reservation {} can no longer be committed: {}", reservationId, errorMessage(e));
+                return false;
+            }
+            throw new InventoryUnavailableException("Inventory rejected commit of reservation " + reservationId, e);
+        } catch (RestClientException e) {
+            throw new InventoryUnavailableException("Inventory service is unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void release(String reservationId) {
+        try {
+            restTemplate.postForEntity("/reservations/{reservationId}/release", null, Void.class, reservationId);
+        } catch (HttpClientErrorException e) {
+            // Not found or already committed, either way there is nothing to give back
+            log.warn("Reservation {} was not released: {}", reservationId, errorMessage(e));
+        } catch (RestClientException e) {
+            throw new InventoryUnavailableException("Inventory service is unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    private String errorMessage(HttpClientErrorException e) {
+        try {
+            Map<?, ?> body = e.getResponseBodyAs(Map.class);
+            if (body != null && body.get("message") != null) {
+                return body.get("message").toString();
+            }
+        } catch (RuntimeException ignored) {
+            // Not the usual JSON envelope, fall back to the status text
+        }
+        return e.getStatusText();
+    }
+}
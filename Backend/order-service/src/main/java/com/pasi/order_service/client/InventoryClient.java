@@ -0,0 +1,30 @@
+package com.pasi.order_service.client;
+
+import com.pasi.order_service.dto.StockReservationRequest;
+import com.pasi.order_service.dto.StockReservationResponse;
+
+/**
+ * Stock reservation calls to inventory-service. Every call covers a whole cart, so checkout costs
+ * one round trip however many lines it has. Set app.inventory.client=local to use the in-memory
+ * stand-in when inventory-service is not running, e.g. for load tests of checkout itself.
+ */
+public interface InventoryClient {
+
+    /**
+     * Reserves every item or none. Sending a reservation id again returns that reservation as it is now.
+     * @throws com.pasi.order_service.exception.InsufficientStockException when any item cannot be reserved
+     * @throws com.pasi.order_service.exception.InventoryUnavailableException when inventory cannot be reached
+     */
+    StockReservationResponse reserve(StockReservationRequest request);
+
+    /**
+     * Makes a reservation permanent
+     * @return false when the reservation expired or was released and can no longer be committed
+     */
+    boolean commit(String reservationId);
+
+    /**
+     * Gives a reservation's stock back; releasing one that is already released does nothing
+     */
+    void release(String reservationId);
+}
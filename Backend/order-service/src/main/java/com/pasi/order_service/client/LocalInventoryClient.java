@@ -0,0 +1,114 @@
+package com.pasi.order_service.client;
+
+import com.pasi.order_service.dto.StockReservationItem;
+import com.pasi.order_service.dto.StockReservationRequest;
+import com.pasi.order_service.dto.StockReservationResponse;
+import com.pasi.order_service.exception.InsufficientStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stand-in for inventory-service with the same all-or-nothing and idempotency rules. Every
+ * SKU starts with the configured stock, and an optional delay mimics the network round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.client", havingValue = "local")
+@Slf4j
+public class LocalInventoryClient implements InventoryClient {
+
+    private static final String RELEASED = "RELEASED";
+
+    private final Map<String, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private final Map<String, StockReservationResponse> reservations = new ConcurrentHashMap<>();
+    private final int defaultStock;
+    private final long latencyMs;
+
+    public LocalInventoryClient(@Value("${app.inventory.local.default-stock:1000000}") int defaultStock,
+                                @Value("${app.inventory.local.latency:0}") long latencyMs) {
+        this.defaultStock = defaultStock;
+        this.latencyMs = latencyMs;
+        log.warn("Using the local inventory stand-in, stock is not shared with inventory-service");
+    }
+
+    @Override
+    public StockReservationResponse reserve(StockReservationRequest request) {
+        simulateLatency();
+        return reservations.computeIfAbsent(request.getReservationId(), reservationId -> {
+            SortedMap<String, Integer> quantities = new TreeMap<>();
+            request.getItems().forEach(item -> quantities.merge(item.getSku(), item.getQuantity(), Integer::sum));
+
+            List<StockReservationItem> taken = new ArrayList<>(quantities.size());
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                if (!take(entry.getKey(), entry.getValue())) {
+                    taken.forEach(item -> counter(item.getSku()).addAndGet(item.getQuantity()));
+                    throw new InsufficientStockException("Insufficient stock for SKUs: " + entry.getKey());
+                }
+                taken.add(new StockReservationItem(entry.getKey(), entry.getValue()));
+            }
+            int ttlSeconds = request.getTtlSeconds() == null ? 900 : request.getTtlSeconds();
+            return new StockReservationResponse(reservationId, StockReservationResponse.RESERVED,
+                    LocalDateTime.now().plusSeconds(ttlSeconds), taken);
+        });
+    }
+
+    @Override
+    public boolean commit(String reservationId) {
+        simulateLatency();
+        StockReservationResponse reservation = reservations.computeIfPresent(reservationId, (id, current) ->
+                StockReservationResponse.RESERVED.equals(current.getStatus())
+                        ? new StockReservationResponse(id, StockReservationResponse.COMMITTED, current.getExpiresAt(), current.getItems())
+                        : current);
+        return reservation != null && StockReservationResponse.COMMITTED.equals(reservation.getStatus());
+    }
+
+    @Override
+    public void release(String reservationId) {
+        simulateLatency();
+        reservations.computeIfPresent(reservationId, (id, current) -> {
+            if (!StockReservationResponse.RESERVED.equals(current.getStatus())) {
+                return current;
+            }
+            current.getItems().forEach(item -> counter(item.getSku()).addAndGet(item.getQuantity()));
+            return new StockReservationResponse(id, RELEASED, current.getExpiresAt(), current.getItems());
+        });
+    }
+
+    private boolean take(String sku, int quantity) {
+        AtomicInteger available = counter(sku);
+        while (true) {
+            int current = available.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private AtomicInteger counter(String sku) {
+        return stock.computeIfAbsent(sku, key -> new AtomicInteger(defaultStock));
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
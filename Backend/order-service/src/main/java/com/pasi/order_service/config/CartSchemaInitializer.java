@@ -0,0 +1,38 @@
+package com.pasi.order_service.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves cart_items_seq past the ids that were handed out while cart_items used an IDENTITY column,
+ * so the pooled sequence cannot produce an id that already exists. Runs once Hibernate has created
+ * the sequence and before the web server takes requests; on a fresh database it changes nothing.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class CartSchemaInitializer {
+
+    // A pooled block ends at the sequence value, so max(id) + allocation size keeps the whole next block clear
+    private static final String ADVANCE_SEQUENCE_SQL =
+            "SELECT setval('cart_items_seq', GREATEST(" +
+            "(SELECT COALESCE(MAX(id), 0) FROM cart_items) + 50, " +
+            "(SELECT last_value FROM cart_items_seq)))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void advanceCartItemSequence() {
+        try {
+            Long value = jdbcTemplate.queryForObject(ADVANCE_SEQUENCE_SQL, Long.class);
+            log.info("cart_items_seq is at {}", value);
+        } catch (Exception e) {
+            log.error("Failed to advance cart_items_seq past existing cart item ids - Error: {}", e.getMessage(), e);
+        }
+    }
+}
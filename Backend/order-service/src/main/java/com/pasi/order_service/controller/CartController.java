@@ -2,8 +2,10 @@ package com.pasi.order_service.controller;
 
 import com.pasi.order_service.exception.CartAlreadyExistsException;
 import com.pasi.order_service.exception.CartNotFoundException;
+import com.pasi.order_service.exception.InvalidCartException;
 import com.pasi.order_service.exception.ItemNotFoundException;
 import com.pasi.order_service.dto.AddItemToCartRequest;
+import com.pasi.order_service.dto.AddItemsToCartRequest;
 import com.pasi.order_service.dto.CartResponse;
 import com.pasi.order_service.dto.CreateCartRequest;
 import com.pasi.order_service.service.CartService;
@@ -62,12 +64,46 @@ public class CartController extends OrderAbstractController {
         } catch (CartNotFoundException e) {
             log.error("Cart not found: {}", e.getMessage());
             return sendNotFoundResponse(e.getMessage());
+        } catch (InvalidCartException e) {
+            log.error("Cart {} cannot be changed: {}", cartId, e.getMessage());
+            return sendConflictResponse(e.getMessage());
         } catch (Exception e) {
             log.error("Error adding item to cart {}: {}", cartId, e.getMessage());
             return sendInternalServerErrorResponse("Failed to add item to cart due to an unexpected error");
         }
     }
 
+    /**
+     * Add or top up many items in one call
+     * POST /api/v1/order/{cartId}/items
+     */
+    @PostMapping("/{cartId}/items")
+    public ResponseEntity<Map<String, Object>> addItemsToCart(
+            @PathVariable Long cartId,
+            @Valid @RequestBody AddItemsToCartRequest request) {
+        try {
+            if (!isValidCartId(cartId)) {
+                return createCartValidationErrorResponse("Cart ID", "must be a positive number");
+            }
+            
+            log.info("Adding {} items to cart: {}", request.getItems().size(), cartId);
+            CartResponse cartResponse = cartService.addItemsToCart(cartId, request);
+            return sendSuccessResponse(cartResponse, "Items added to cart successfully");
+        } catch (CartNotFoundException e) {
+            log.error("Cart not found: {}", e.getMessage());
+            return sendNotFoundResponse(e.getMessage());
+        } catch (InvalidCartException e) {
+            log.error("Cart {} cannot be changed: {}", cartId, e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid items for cart {}: {}", cartId, e.getMessage());
+            return sendBadRequestResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error adding items to cart {}: {}", cartId, e.getMessage());
+            return sendInternalServerErrorResponse("Failed to add items to cart due to an unexpected error");
+        }
+    }
+
     /**
      * Get current customer's cart items
      * GET /api/v1/order/{cartId}
@@ -114,6 +150,9 @@ public class CartController extends OrderAbstractController {
         } catch (CartNotFoundException e) {
             log.error("Cart not found: {}", e.getMessage());
             return sendNotFoundResponse(e.getMessage());
+        } catch (InvalidCartException e) {
+            log.error("Cart {} cannot be changed: {}", cartId, e.getMessage());
+            return sendConflictResponse(e.getMessage());
         } catch (ItemNotFoundException e) {
             log.error("Item not found: {}", e.getMessage());
             return sendNotFoundResponse(e.getMessage());
@@ -0,0 +1,76 @@
+package com.pasi.order_service.controller;
+
+import com.pasi.order_service.dto.OrderResponse;
+import com.pasi.order_service.dto.PlaceOrderRequest;
+import com.pasi.order_service.exception.CartNotFoundException;
+import com.pasi.order_service.exception.InsufficientStockException;
+import com.pasi.order_service.exception.InvalidCartException;
+import com.pasi.order_service.exception.InventoryUnavailableException;
+import com.pasi.order_service.exception.OrderNotFoundException;
+import com.pasi.order_service.service.OrderService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/orders")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class OrderController extends OrderAbstractController {
+
+    private final OrderService orderService;
+
+    /**
+     * Place an order from a cart, reserving stock for all of its items
+     * POST /api/v1/orders
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> placeOrder(@Valid @RequestBody PlaceOrderRequest request) {
+        try {
+            log.info("Placing order for cart: {}", request.getCartId());
+            OrderResponse orderResponse = orderService.placeOrder(request.getCartId());
+            return sendCreatedResponse(orderResponse, "Order placed successfully for cart: " + request.getCartId());
+        } catch (CartNotFoundException e) {
+            log.error("Cart not found: {}", e.getMessage());
+            return sendNotFoundResponse(e.getMessage());
+        } catch (InsufficientStockException | InvalidCartException e) {
+            log.error("Cannot place order for cart {}: {}", request.getCartId(), e.getMessage());
+            return sendConflictResponse(e.getMessage());
+        } catch (InventoryUnavailableException e) {
+            log.error("Inventory unavailable placing order for cart {}: {}", request.getCartId(), e.getMessage());
+            return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Stock could not be reserved right now, please try again");
+        } catch (Exception e) {
+            log.error("Error placing order for cart {}: {}", request.getCartId(), e.getMessage());
+            return sendInternalServerErrorResponse("Failed to place order due to an unexpected error");
+        }
+    }
+
+    /**
+     * Get an order
+     * GET /api/v1/orders/{orderId}
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrder(@PathVariable Long orderId) {
+        try {
+            if (orderId == null || orderId <= 0) {
+                return createCartValidationErrorResponse("Order ID", "must be a positive number");
+            }
+            
+            log.info("Retrieving order: {}", orderId);
+            OrderResponse orderResponse = orderService.getOrderById(orderId);
+            return sendSuccessResponse(orderResponse, "Order retrieved successfully");
+        } catch (OrderNotFoundException e) {
+            log.error("Order not found: {}", e.getMessage());
+            return sendNotFoundResponse(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error retrieving order {}: {}", orderId, e.getMessage());
+            return sendInternalServerErrorResponse("Failed to retrieve order due to an unexpected error");
+        }
+    }
+}
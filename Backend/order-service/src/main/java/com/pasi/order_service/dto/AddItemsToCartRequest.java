@@ -0,0 +1,20 @@
+package com.pasi.order_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AddItemsToCartRequest {
+    // Quantities are added to the cart's existing line for the SKU, like the single-item endpoint
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid AddItemToCartRequest> items;
+}
@@ -0,0 +1,17 @@
+package com.pasi.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The status / message / data envelope inventory-service wraps its responses in
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryApiResponse<T> {
+    private Integer status;
+    private String message;
+    private T data;
+}
@@ -0,0 +1,21 @@
+package com.pasi.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItemResponse {
+    private Long itemId;
+    private String skuCode;
+    private String productName;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private BigDecimal subTotal;
+}
@@ -0,0 +1,28 @@
+package com.pasi.order_service.dto;
+
+import com.pasi.order_service.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderResponse {
+    private Long orderId;
+    private Long cartId;
+    private String customerId;
+    private Order.Status status;
+    private String reservationId;
+    private List<OrderItemResponse> items;
+    private BigDecimal totalAmount;
+    private Integer totalItems;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
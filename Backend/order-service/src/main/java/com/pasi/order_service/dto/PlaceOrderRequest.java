@@ -0,0 +1,18 @@
+package com.pasi.order_service.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlaceOrderRequest {
+    @NotNull(message = "Cart ID is required")
+    @Positive(message = "Cart ID must be positive")
+    private Long cartId;
+}
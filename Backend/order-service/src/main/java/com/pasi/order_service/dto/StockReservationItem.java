@@ -0,0 +1,15 @@
+package com.pasi.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationItem {
+    private String sku;
+    private Integer quantity;
+}
@@ -0,0 +1,22 @@
+package com.pasi.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of inventory-service's POST /api/v1/inventory/reservations
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationRequest {
+    // Inventory returns the existing reservation when the same id is sent again
+    private String reservationId;
+    private List<StockReservationItem> items;
+    private Integer ttlSeconds;
+}
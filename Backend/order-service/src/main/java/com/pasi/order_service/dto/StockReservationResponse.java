@@ -0,0 +1,24 @@
+package com.pasi.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationResponse {
+    public static final String RESERVED = "RESERVED";
+    public static final String COMMITTED = "COMMITTED";
+
+    private String reservationId;
+    // RESERVED, COMMITTED, RELEASED or EXPIRED
+    private String status;
+    private LocalDateTime expiresAt;
+    private List<StockReservationItem> items;
+}
@@ -1,20 +1,27 @@
 package com.pasi.order_service.entity;
 
 import jakarta.persistence.*;
+import com.pasi.order_service.pricing.CartPricing;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+// updated_at is how the expiry sweeper finds idle carts, oldest first
+@Table(name = "carts", indexes = @Index(name = "idx_carts_updated_at", columnList = "updated_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,34 +50,78 @@ public class Cart {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    // Helper methods for managing cart items
+    // Built from the items on first use, then kept current by the helpers below
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient CartPricing pricing;
+
+    // Helper methods for managing cart items; they keep the total current with one line delta each
     public void addItem(CartItem item) {
+        pricing().addLine(item.getUnitPriceMinor(), item.getQuantity());
         items.add(item);
         item.setCart(this);
-        calculateTotal();
+        this.totalAmount = pricing.getTotalAmount();
+    }
+
+    public void addItems(Collection<CartItem> newItems) {
+        CartPricing cartPricing = pricing();
+        newItems.forEach(item -> {
+            cartPricing.addLine(item.getUnitPriceMinor(), item.getQuantity());
+            items.add(item);
+            item.setCart(this);
+        });
+        this.totalAmount = cartPricing.getTotalAmount();
     }
 
     public void removeItem(CartItem item) {
-        items.remove(item);
+        CartPricing cartPricing = pricing();
+        if (items.remove(item)) {
+            cartPricing.removeLine(item.getUnitPriceMinor(), item.getQuantity());
+        }
         item.setCart(null);
-        calculateTotal();
+        this.totalAmount = cartPricing.getTotalAmount();
+    }
+
+    public void updateItemQuantity(CartItem item, int quantity) {
+        updateItem(item, item.getUnitPrice(), quantity);
+    }
+
+    // Use this rather than changing the item directly, which would leave the total stale
+    public void updateItem(CartItem item, BigDecimal unitPrice, int quantity) {
+        CartPricing cartPricing = pricing();
+        long oldUnitPrice = item.getUnitPriceMinor();
+        int oldQuantity = item.getQuantity();
+        item.setUnitPrice(unitPrice);
+        item.updateQuantity(quantity);
+        cartPricing.changeLine(oldUnitPrice, oldQuantity, item.getUnitPriceMinor(), quantity);
+        this.totalAmount = cartPricing.getTotalAmount();
     }
 
     public void clearItems() {
         items.clear();
+        pricing().clear();
         this.totalAmount = BigDecimal.ZERO;
     }
 
+    // Recounts every item; only needed after items were changed without the helpers above
     public void calculateTotal() {
-        this.totalAmount = items.stream()
-                .map(CartItem::getSubTotal)
-                .filter(subTotal -> subTotal != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        pricing = null;
+        this.totalAmount = pricing().getTotalAmount();
     }
 
     public int getTotalItems() {
-        return items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return pricing().getTotalItems();
+    }
+
+    private CartPricing pricing() {
+        if (pricing == null) {
+            CartPricing cartPricing = new CartPricing();
+            for (CartItem item : items) {
+                cartPricing.addLine(item.getUnitPriceMinor(), item.getQuantity());
+            }
+            pricing = cartPricing;
+        }
+        return pricing;
     }
 }
\ No newline at end of file
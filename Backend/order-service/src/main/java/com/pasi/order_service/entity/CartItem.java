@@ -1,10 +1,15 @@
 package com.pasi.order_service.entity;
 
 import jakarta.persistence.*;
+import com.pasi.order_service.pricing.CartPricing;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -19,8 +24,10 @@ import java.time.LocalDateTime;
 @Builder
 public class CartItem {
 
+    // A pooled sequence rather than IDENTITY, so new items of one cart mutation go out as one batched insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -50,13 +57,30 @@ public class CartItem {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Minor-unit copies, so repeated flushes and cart deltas do not redo the BigDecimal arithmetic
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient BigDecimal pricedUnitPrice;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient long unitPriceMinor;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient Long subTotalMinor;
+
+    // Only allocates a new subtotal when the amount actually changed
     @PrePersist
     @PreUpdate
     public void calculateSubTotal() {
-        if (unitPrice != null && quantity != null) {
-            this.subTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
-        } else {
-            this.subTotal = BigDecimal.ZERO;
+        long amount = quantity != null ? CartPricing.lineAmount(getUnitPriceMinor(), quantity) : 0;
+        if (subTotal == null || subTotalMinor == null || subTotalMinor != amount) {
+            this.subTotal = CartPricing.toAmount(amount);
+            this.subTotalMinor = amount;
         }
     }
 
@@ -69,6 +93,17 @@ public class CartItem {
         if (subTotal == null) {
             calculateSubTotal();
         }
-        return subTotal != null ? subTotal : BigDecimal.ZERO;
+        return subTotal;
+    }
+
+    public long getUnitPriceMinor() {
+        if (unitPrice == null) {
+            return 0;
+        }
+        if (unitPrice != pricedUnitPrice) {
+            unitPriceMinor = CartPricing.toMinorUnits(unitPrice);
+            pricedUnitPrice = unitPrice;
+        }
+        return unitPriceMinor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.pasi.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A placed order, snapshotted from a cart at checkout. The unique cart_id is what makes checkout
+ * idempotent: a cart can only ever become one order.
+ */
+@Entity
+@Table(name = "orders",
+        uniqueConstraints = @UniqueConstraint(name = "uk_orders_cart_id", columnNames = "cart_id"),
+        indexes = @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Order {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cart_id", nullable = false)
+    private Long cartId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    // Inventory reservation holding the stock of every line
+    @Column(name = "reservation_id", nullable = false, length = 64)
+    private String reservationId;
+
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+
+    @Column(name = "total_amount", precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public void addItem(OrderItem item) {
+        items.add(item);
+        item.setOrder(this);
+    }
+
+    public int getTotalItems() {
+        return items.stream()
+                .mapToInt(OrderItem::getQuantity)
+                .sum();
+    }
+
+    public enum Status {
+        // Stock is reserved, the reservation is not confirmed with inventory yet
+        PLACED,
+        // The reservation is committed, the stock is permanently taken
+        CONFIRMED,
+        // The reservation expired or was released before it could be committed
+        RESERVATION_LOST
+    }
+}
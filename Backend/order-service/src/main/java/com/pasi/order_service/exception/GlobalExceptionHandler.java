@@ -57,6 +57,42 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(OrderNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleOrderNotFoundException(OrderNotFoundException ex) {
+        log.error("Order not found: {}", ex.getMessage());
+        Map<String, Object> errorResponse = Map.of(
+                STATUS_KEY, HttpStatus.NOT_FOUND.value(),
+                MESSAGE_KEY, ex.getMessage(),
+                TIMESTAMP_KEY, LocalDateTime.now().toString(),
+                PATH_KEY, "/api/v1/orders"
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({InsufficientStockException.class, InvalidCartException.class})
+    public ResponseEntity<Map<String, Object>> handleCheckoutConflictException(RuntimeException ex) {
+        log.error("Checkout conflict: {}", ex.getMessage());
+        Map<String, Object> errorResponse = Map.of(
+                STATUS_KEY, HttpStatus.CONFLICT.value(),
+                MESSAGE_KEY, ex.getMessage(),
+                TIMESTAMP_KEY, LocalDateTime.now().toString(),
+                PATH_KEY, "/api/v1/orders"
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InventoryUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleInventoryUnavailableException(InventoryUnavailableException ex) {
+        log.error("Inventory unavailable: {}", ex.getMessage());
+        Map<String, Object> errorResponse = Map.of(
+                STATUS_KEY, HttpStatus.SERVICE_UNAVAILABLE.value(),
+                MESSAGE_KEY, "Stock could not be reserved right now, please try again",
+                TIMESTAMP_KEY, LocalDateTime.now().toString(),
+                PATH_KEY, "/api/v1/orders"
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         log.error("Validation error: {}", ex.getMessage());
@@ -0,0 +1,7 @@
+package com.pasi.order_service.exception;
+
+public class InvalidCartException extends RuntimeException {
+    public InvalidCartException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pasi.order_service.exception;
+
+public class OrderNotFoundException extends RuntimeException {
+    public OrderNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,146 @@
+package com.pasi.order_service.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Running totals of one cart in minor units (cents), updated by line deltas so adding, changing or
+ * removing a line costs the same however many lines the cart has. Amounts become BigDecimal only
+ * where they leave, through {@link #toAmount}, and come in through {@link #toMinorUnits}.
+ *
+ * <p>A line discount is an amount off that line, capped at the line. The cart discount, a fixed
+ * amount plus a rate, applies to the subtotal after line discounts, and tax applies to what is
+ * left. Rates are in basis points and rounded half up to the cent. Not thread safe.
+ */
+public final class CartPricing {
+
+    public static final int SCALE = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private long grossAmount;
+    private long lineDiscountAmount;
+    private int totalItems;
+    private int lineCount;
+    private long cartDiscountFixed;
+    private int cartDiscountRate;
+    private int taxRate;
+
+    public static long toMinorUnits(BigDecimal amount) {
+        // Prices are stored at scale 2, where setScale returns the same instance
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long lineAmount(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    public void addLine(long unitPrice, int quantity) {
+        addLine(unitPrice, quantity, 0);
+    }
+
+    public void addLine(long unitPrice, int quantity, long discount) {
+        long amount = lineAmount(unitPrice, quantity);
+        grossAmount = Math.addExact(grossAmount, amount);
+        lineDiscountAmount = Math.addExact(lineDiscountAmount, cappedDiscount(discount, amount));
+        totalItems = Math.addExact(totalItems, quantity);
+        lineCount++;
+    }
+
+    public void removeLine(long unitPrice, int quantity) {
+        removeLine(unitPrice, quantity, 0);
+    }
+
+    public void removeLine(long unitPrice, int quantity, long discount) {
+        long amount = lineAmount(unitPrice, quantity);
+        grossAmount = Math.subtractExact(grossAmount, amount);
+        lineDiscountAmount = Math.subtractExact(lineDiscountAmount, cappedDiscount(discount, amount));
+        totalItems = Math.subtractExact(totalItems, quantity);
+        lineCount--;
+    }
+
+    public void changeLine(long oldUnitPrice, int oldQuantity, long newUnitPrice, int newQuantity) {
+        removeLine(oldUnitPrice, oldQuantity);
+        addLine(newUnitPrice, newQuantity);
+    }
+
+    public void setCartDiscount(long fixedAmount, int rateBasisPoints) {
+        if (fixedAmount < 0 || rateBasisPoints < 0 || rateBasisPoints > BASIS_POINTS) {
+            throw new IllegalArgumentException("Cart discount must be a non-negative amount and a rate of at most 10000 basis points");
+        }
+        this.cartDiscountFixed = fixedAmount;
+        this.cartDiscountRate = rateBasisPoints;
+    }
+
+    public void setTaxRate(int basisPoints) {
+        if (basisPoints < 0) {
+            throw new IllegalArgumentException("Tax rate must not be negative");
+        }
+        this.taxRate = basisPoints;
+    }
+
+    public void clear() {
+        grossAmount = 0;
+        lineDiscountAmount = 0;
+        totalItems = 0;
+        lineCount = 0;
+    }
+
+    // Before any discount
+    public long getGrossAmount() {
+        return grossAmount;
+    }
+
+    public long getLineDiscountAmount() {
+        return lineDiscountAmount;
+    }
+
+    // After line discounts, before the cart discount and tax
+    public long getSubtotal() {
+        return grossAmount - lineDiscountAmount;
+    }
+
+    public long getCartDiscountAmount() {
+        long subtotal = getSubtotal();
+        return Math.min(subtotal, Math.addExact(cartDiscountFixed, applyRate(subtotal, cartDiscountRate)));
+    }
+
+    public long getTaxAmount() {
+        return applyRate(getSubtotal() - getCartDiscountAmount(), taxRate);
+    }
+
+    public long getTotal() {
+        long taxable = getSubtotal() - getCartDiscountAmount();
+        return Math.addExact(taxable, applyRate(taxable, taxRate));
+    }
+
+    public BigDecimal getTotalAmount() {
+        return toAmount(getTotal());
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    private static long cappedDiscount(long discount, long lineAmount) {
+        if (discount < 0) {
+            throw new IllegalArgumentException("Line discount must not be negative");
+        }
+        return Math.min(discount, lineAmount);
+    }
+
+    // Amounts here are never negative, so adding half before dividing rounds half up
+    private static long applyRate(long amount, int basisPoints) {
+        if (basisPoints == 0) {
+            return 0;
+        }
+        return (Math.multiplyExact(amount, basisPoints) + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+}
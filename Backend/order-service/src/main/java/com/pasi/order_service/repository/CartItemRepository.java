@@ -2,6 +2,7 @@ package com.pasi.order_service.repository;
 
 import com.pasi.order_service.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,5 +22,8 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     
     void deleteByCartIdAndSkuCode(Long cartId, String skuCode);
     
-    void deleteByCartId(Long cartId);
+    // One statement, unlike the derived delete which loads and removes the items one by one
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteAllByCartId(@Param("cartId") Long cartId);
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.pasi.order_service.repository;
 
 import com.pasi.order_service.entity.Cart;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +25,21 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByCustomerIdWithItems(@Param("customerId") String customerId);
     
     boolean existsByCustomerId(String customerId);
+    
+    // Row lock only; a fetch join cannot be locked on the outer side, so items are loaded separately
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.id = :cartId")
+    Optional<Cart> findByIdForUpdate(@Param("cartId") Long cartId);
+    
+    // Locks in id order, so concurrent write-back batches cannot deadlock on shared carts
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.id IN :cartIds ORDER BY c.id")
+    List<Cart> findAllByIdForUpdate(@Param("cartIds") Collection<Long> cartIds);
+    
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.id IN :cartIds")
+    List<Cart> findAllByIdWithItems(@Param("cartIds") Collection<Long> cartIds);
+    
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id = :cartId")
+    int deleteCartById(@Param("cartId") Long cartId);
 }
\ No newline at end of file
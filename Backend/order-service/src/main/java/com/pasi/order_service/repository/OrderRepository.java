@@ -0,0 +1,35 @@
+package com.pasi.order_service.repository;
+
+import com.pasi.order_service.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :orderId")
+    Optional<Order> findByIdWithItems(@Param("orderId") Long orderId);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.cartId = :cartId")
+    Optional<Order> findByCartIdWithItems(@Param("cartId") Long cartId);
+
+    List<Order> findByStatusAndCreatedAtBeforeOrderByCreatedAt(Order.Status status, LocalDateTime createdBefore, Pageable pageable);
+
+    // Conditional, so a confirmation racing the retry job is applied once
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = :now WHERE o.id = :orderId AND o.status = :expectedStatus")
+    int updateStatus(@Param("orderId") Long orderId,
+                     @Param("expectedStatus") Order.Status expectedStatus,
+                     @Param("newStatus") Order.Status newStatus,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,118 @@
+package com.pasi.order_service.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes carts nobody has changed for longer than the TTL. Each batch is one statement that picks
+ * the longest idle carts and deletes their items and then the carts, so no row is loaded and none
+ * is deleted one at a time. Carts locked by a checkout are skipped, and several instances can sweep
+ * at once. A rate cap spreads a large backlog out so it does not compete with cart traffic. Runs on
+ * its own thread, since the throttle would otherwise hold up the other scheduled jobs.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.expiry.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CartExpirySweeper {
+
+    // Deleting both in one statement is fine: the foreign key is checked when the statement ends
+    private static final String EXPIRE_BATCH_SQL =
+            "WITH expired AS (" +
+            "SELECT id FROM carts WHERE updated_at < ? ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED), " +
+            "deleted_items AS (DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM expired) RETURNING 1), " +
+            "deleted_carts AS (DELETE FROM carts WHERE id IN (SELECT id FROM expired) RETURNING 1) " +
+            "SELECT (SELECT COUNT(*) FROM deleted_carts), (SELECT COUNT(*) FROM deleted_items)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final long intervalMs;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+    private final ScheduledExecutorService sweepExecutor;
+
+    public CartExpirySweeper(JdbcTemplate jdbcTemplate,
+                             @Value("${app.cart.expiry.ttl-days:30}") int ttlDays,
+                             @Value("${app.cart.expiry.interval:600000}") long intervalMs,
+                             @Value("${app.cart.expiry.batch-size:500}") int batchSize,
+                             @Value("${app.cart.expiry.max-rows-per-second:2000}") int maxRowsPerSecond) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sweepExecutor.scheduleWithFixedDelay(this::sweep, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweepExecutor.shutdownNow();
+    }
+
+    /**
+     * Deletes expired carts batch by batch until none are left, pausing between batches as needed
+     * to stay under the rate cap
+     */
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        long startNanos = System.nanoTime();
+        long carts = 0;
+        long items = 0;
+        try {
+            while (true) {
+                long[] deleted = jdbcTemplate.queryForObject(EXPIRE_BATCH_SQL,
+                        (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                        Timestamp.valueOf(cutoff), batchSize);
+                carts += deleted[0];
+                items += deleted[1];
+                if (deleted[0] < batchSize) {
+                    break;
+                }
+                throttle(carts + items, startNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Failed to expire carts idle since {}, will retry - Error: {}", cutoff, e.getMessage(), e);
+        }
+
+        if (carts > 0) {
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            log.info("Expired {} carts and {} items idle since {} in {} ms ({} rows/s)",
+                    carts, items, cutoff, elapsedMs, (carts + items) * 1000 / elapsedMs);
+        }
+    }
+
+    // Sleeps until the rows deleted so far fit under max-rows-per-second; 0 turns the cap off
+    private void throttle(long rows, long startNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long earliestNanos = startNanos + rows * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long waitNanos = earliestNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
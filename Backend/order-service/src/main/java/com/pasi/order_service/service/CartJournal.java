@@ -0,0 +1,280 @@
+package com.pasi.order_service.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of in-memory cart mutations, so changes not yet written back survive a
+ * crash. Records hold the resulting state of each changed line rather than a delta, which makes
+ * replaying a record that did reach the database harmless. The journal is split into segments: each
+ * write-back cycle seals the current one, and sealed segments are deleted once a cycle has written
+ * every cart back. A record is length-prefixed and checksummed, so a torn write at the tail ends
+ * replay cleanly.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "memory")
+@Slf4j
+public class CartJournal {
+
+    private static final String SEGMENT_PREFIX = "cart-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final boolean fsyncEveryWrite;
+    private final Object lock = new Object();
+    private final List<Path> sealedSegments = new ArrayList<>();
+
+    // Guarded by lock
+    private FileChannel channel;
+    private Path currentSegment;
+    private long currentSegmentNumber;
+    private long currentSegmentBytes;
+    private boolean unsynced;
+
+    public CartJournal(@Value("${app.cart.journal.directory:./data/cart-journal}") String directory,
+                       @Value("${app.cart.journal.fsync-every-write:false}") boolean fsyncEveryWrite) {
+        this.directory = Paths.get(directory);
+        this.fsyncEveryWrite = fsyncEveryWrite;
+    }
+
+    /**
+     * Replays every segment left by the previous run, oldest first, then opens a fresh segment.
+     * The replayed segments stay until a write-back cycle has persisted what they describe.
+     */
+    public void recover(Consumer<Mutation> replay) {
+        synchronized (lock) {
+            try {
+                Files.createDirectories(directory);
+                List<Path> segments = listSegments();
+                int replayed = 0;
+                for (Path segment : segments) {
+                    replayed += replaySegment(segment, replay);
+                    sealedSegments.add(segment);
+                    currentSegmentNumber = Math.max(currentSegmentNumber, segmentNumber(segment));
+                }
+                openNextSegment();
+                if (replayed > 0) {
+                    log.info("Replayed {} cart mutations from {} journal segments", replayed, segments.size());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to recover cart journal in " + directory, e);
+            }
+        }
+    }
+
+    public void append(Mutation mutation) {
+        ByteBuffer frame = encode(mutation);
+        synchronized (lock) {
+            try {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+                currentSegmentBytes += frame.limit();
+                if (fsyncEveryWrite) {
+                    channel.force(false);
+                } else {
+                    unsynced = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to cart journal " + currentSegment, e);
+            }
+        }
+    }
+
+    /**
+     * Seals the current segment if it has records and starts a new one
+     * @return every sealed segment not deleted yet, including ones kept by earlier failed cycles
+     */
+    public List<Path> roll() {
+        synchronized (lock) {
+            if (currentSegmentBytes > 0) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                    sealedSegments.add(currentSegment);
+                    openNextSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to roll cart journal " + currentSegment, e);
+                }
+            }
+            return List.copyOf(sealedSegments);
+        }
+    }
+
+    public void deleteSegments(List<Path> segments) {
+        synchronized (lock) {
+            for (Path segment : segments) {
+                try {
+                    Files.deleteIfExists(segment);
+                    sealedSegments.remove(segment);
+                } catch (IOException e) {
+                    log.warn("Failed to delete cart journal segment {} - Error: {}", segment, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Group commit: mutations reach the OS on every append and the disk at this interval
+    @Scheduled(fixedDelayString = "${app.cart.journal.fsync-interval:200}")
+    public void sync() {
+        synchronized (lock) {
+            if (!unsynced || channel == null) {
+                return;
+            }
+            try {
+                channel.force(false);
+                unsynced = false;
+            } catch (IOException e) {
+                log.error("Failed to sync cart journal {} - Error: {}", currentSegment, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                log.error("Failed to close cart journal {} - Error: {}", currentSegment, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        currentSegmentNumber++;
+        currentSegment = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, currentSegmentNumber, SEGMENT_SUFFIX));
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        currentSegmentBytes = 0;
+        unsynced = false;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(CartJournal::segmentNumber))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private int replaySegment(Path segment, Consumer<Mutation> replay) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int replayed = 0;
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                log.warn("Cart journal {} ends in a partial record, ignoring its last {} bytes", segment, buffer.remaining());
+                return replayed;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (checksum(payload) != checksum) {
+                log.warn("Cart journal {} has a corrupt record, ignoring it and everything after it", segment);
+                return replayed;
+            }
+            replay.accept(decode(payload));
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private static ByteBuffer encode(Mutation mutation) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + mutation.changes().size() * 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(mutation.cartId());
+            out.writeInt(mutation.changes().size());
+            for (LineChange change : mutation.changes()) {
+                out.writeUTF(change.skuCode());
+                out.writeBoolean(change.isRemoval());
+                if (!change.isRemoval()) {
+                    out.writeUTF(change.productName());
+                    out.writeUTF(change.unitPrice().toPlainString());
+                    out.writeInt(change.quantity());
+                }
+            }
+            byte[] payload = bytes.toByteArray();
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+            frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+            return frame;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Mutation decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long cartId = in.readLong();
+        int count = in.readInt();
+        List<LineChange> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String skuCode = in.readUTF();
+            if (in.readBoolean()) {
+                changes.add(LineChange.removal(skuCode));
+            } else {
+                changes.add(new LineChange(skuCode, in.readUTF(), new BigDecimal(in.readUTF()), in.readInt()));
+            }
+        }
+        return new Mutation(cartId, changes);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public record Mutation(long cartId, List<LineChange> changes) {
+    }
+
+    /**
+     * The state of one cart line after a mutation; a removal has no product name, price or quantity
+     */
+    public record LineChange(String skuCode, String productName, BigDecimal unitPrice, int quantity) {
+
+        public static LineChange removal(String skuCode) {
+            return new LineChange(skuCode, null, null, 0);
+        }
+
+        public boolean isRemoval() {
+            return unitPrice == null;
+        }
+    }
+}
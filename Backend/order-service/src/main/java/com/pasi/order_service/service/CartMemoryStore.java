@@ -0,0 +1,590 @@
+package com.pasi.order_service.service;
+
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.entity.CartItem;
+import com.pasi.order_service.exception.CartNotFoundException;
+import com.pasi.order_service.exception.InvalidCartException;
+import com.pasi.order_service.pricing.CartPricing;
+import com.pasi.order_service.repository.CartItemRepository;
+import com.pasi.order_service.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Holds active carts in memory, sharded by customer id, and writes them back to the database in
+ * batches. Each mutation is applied under its shard's lock and journaled before it is acknowledged.
+ * A scheduled cycle then writes every dirty cart in a few transactions, so many changes to one cart
+ * reach the database as a single diff. Carts are loaded from the database on first use and dropped
+ * once they have been idle for the TTL and have nothing left to write.
+ *
+ * <p>The database stays the shared record for checkout and for other instances, so carts must be
+ * routed to the instance that holds them, for example by a sticky load balancer. Checkout writes
+ * its cart back and freezes it before it reads the cart from the database.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "memory")
+@Slf4j
+public class CartMemoryStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartJournal journal;
+    private final TransactionTemplate transactionTemplate;
+    private final Shard[] shards;
+    private final Map<Long, String> customerIdByCartId = new ConcurrentHashMap<>();
+    private final Set<Long> checkingOut = ConcurrentHashMap.newKeySet();
+    private final long idleTtlMs;
+    private final int writeBackBatchSize;
+    private final Object writeBackLock = new Object();
+
+    public CartMemoryStore(CartRepository cartRepository,
+                           CartItemRepository cartItemRepository,
+                           CartJournal journal,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.cart.memory.shards:64}") int shardCount,
+                           @Value("${app.cart.memory.idle-ttl:1800000}") long idleTtlMs,
+                           @Value("${app.cart.memory.write-back-batch-size:200}") int writeBackBatchSize) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.journal = journal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.idleTtlMs = idleTtlMs;
+        this.writeBackBatchSize = writeBackBatchSize;
+    }
+
+    // Replays what the previous run journaled but did not write back, and writes it back before serving
+    @PostConstruct
+    public void recover() {
+        journal.recover(this::replay);
+        writeBack();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeBack();
+    }
+
+    public boolean containsCustomer(String customerId) {
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            return shard.carts.containsKey(customerId);
+        }
+    }
+
+    // Starts holding a cart that was just created in the database
+    public void add(Cart cart) {
+        cache(cart);
+    }
+
+    public <T> T view(Long cartId, Function<CartState, T> reader) {
+        while (true) {
+            CartState state = resolve(cartId);
+            Shard shard = shardFor(state.customerId);
+            synchronized (shard) {
+                if (shard.carts.get(state.customerId) != state) {
+                    continue; // Evicted or replaced since it was resolved
+                }
+                state.lastAccessMs = System.currentTimeMillis();
+                return reader.apply(state);
+            }
+        }
+    }
+
+    public <T> T viewByCustomer(String customerId, Function<CartState, T> reader) {
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            CartState state = shard.carts.get(customerId);
+            if (state != null) {
+                state.lastAccessMs = System.currentTimeMillis();
+                return reader.apply(state);
+            }
+        }
+        Cart cart = cartRepository.findByCustomerIdWithItems(customerId)
+                .orElseThrow(() -> new CartNotFoundException("Cart not found for customer: " + customerId));
+        return view(cache(cart).id, reader);
+    }
+
+    /**
+     * Applies a mutation under the cart's shard lock. The lines it changed are journaled before the
+     * lock is released, so the journal holds a cart's changes in the order they were applied. If the
+     * mutation or the journal write throws, the cart is put back as it was, so nothing is held in
+     * memory that was not journaled.
+     */
+    public <T> T update(Long cartId, Function<CartState, T> mutation) {
+        while (true) {
+            CartState state = resolve(cartId);
+            Shard shard = shardFor(state.customerId);
+            synchronized (shard) {
+                if (shard.carts.get(state.customerId) != state) {
+                    continue;
+                }
+                if (checkingOut.contains(cartId)) {
+                    throw new InvalidCartException("Cart " + cartId + " is being checked out");
+                }
+                state.lastAccessMs = System.currentTimeMillis();
+                // Carts hold a handful of lines, so copying them is cheaper than undoing each change
+                Map<String, Line> linesBefore = new LinkedHashMap<>(state.lines);
+                LocalDateTime updatedAtBefore = state.updatedAt;
+                try {
+                    T result = mutation.apply(state);
+                    commitChanges(state);
+                    return result;
+                } catch (RuntimeException e) {
+                    state.restore(linesBefore, updatedAtBefore);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Deletes the cart from the database, then stops holding it
+    public void remove(Long cartId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            cartItemRepository.deleteAllByCartId(cartId);
+            if (cartRepository.deleteCartById(cartId) == 0) {
+                throw new CartNotFoundException("Cart not found with ID: " + cartId);
+            }
+        });
+        drop(cartId);
+    }
+
+    /**
+     * Writes the cart back and rejects further changes to it until {@link #endCheckout} is called,
+     * so the database copy checkout reads is the cart the customer last saw.
+     */
+    public void beginCheckout(Long cartId) {
+        checkingOut.add(cartId);
+        if (customerIdByCartId.containsKey(cartId)) {
+            persist(List.of(cartId));
+        }
+    }
+
+    // A placed cart is gone from the database, anything else is unfrozen
+    public void endCheckout(Long cartId, boolean placed) {
+        if (placed) {
+            drop(cartId);
+        }
+        checkingOut.remove(cartId);
+    }
+
+    /**
+     * Writes every dirty cart back in batches. The journal is rolled first, so every change in the
+     * sealed segments is covered by this cycle, and the segments are deleted only if all batches
+     * commit. Otherwise they are kept and retried with the next cycle's.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.memory.write-back-interval:1000}")
+    public void writeBack() {
+        synchronized (writeBackLock) {
+            List<Path> sealedSegments = journal.roll();
+            List<Long> dirtyCartIds = dirtyCartIds();
+            boolean complete = true;
+            for (int from = 0; from < dirtyCartIds.size(); from += writeBackBatchSize) {
+                List<Long> batch = dirtyCartIds.subList(from, Math.min(from + writeBackBatchSize, dirtyCartIds.size()));
+                try {
+                    persist(batch);
+                } catch (RuntimeException e) {
+                    complete = false;
+                    log.error("Failed to write back {} carts, they stay dirty - Error: {}", batch.size(), e.getMessage(), e);
+                }
+            }
+            if (complete && !sealedSegments.isEmpty()) {
+                journal.deleteSegments(sealedSegments);
+            }
+            if (!dirtyCartIds.isEmpty()) {
+                log.debug("Wrote back {} carts", dirtyCartIds.size());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.memory.eviction-interval:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleTtlMs;
+        int evicted = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<CartState> states = shard.carts.values().iterator();
+                while (states.hasNext()) {
+                    CartState state = states.next();
+                    // Dirty carts are evicted by a later sweep, once written back
+                    if (state.lastAccessMs < idleBefore && !state.isDirty() && !checkingOut.contains(state.id)) {
+                        states.remove();
+                        customerIdByCartId.remove(state.id, state.customerId);
+                        evicted++;
+                    }
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} idle carts, {} still held", evicted, customerIdByCartId.size());
+        }
+    }
+
+    /**
+     * Writes the given carts back in one transaction. The rows are locked before the in-memory state
+     * is copied, so a write-back that commits later always carries a newer copy than one that
+     * committed before it.
+     */
+    private void persist(List<Long> cartIds) {
+        Set<Long> existingIds = new HashSet<>();
+        List<Written> written = transactionTemplate.execute(status -> {
+            List<Cart> locked = cartRepository.findAllByIdForUpdate(cartIds);
+            if (locked.isEmpty()) {
+                return List.of();
+            }
+            locked.forEach(cart -> existingIds.add(cart.getId()));
+
+            List<Written> copies = new ArrayList<>(locked.size());
+            List<Cart> carts = cartRepository.findAllByIdWithItems(existingIds);
+            for (Cart cart : carts) {
+                Snapshot snapshot = snapshot(cart.getId());
+                if (snapshot != null) {
+                    applyLines(cart, snapshot.lines);
+                    copies.add(new Written(cart, snapshot.version));
+                }
+            }
+            // Flushed now so new lines have their ids when they are copied back
+            cartRepository.flush();
+            return copies;
+        });
+
+        for (Written copy : written) {
+            Map<String, Long> itemIds = new HashMap<>();
+            copy.cart.getItems().forEach(item -> itemIds.put(item.getSkuCode(), item.getId()));
+            markPersisted(copy.cart.getId(), copy.version, itemIds);
+        }
+        // Checked out or removed elsewhere, there is nothing left to write them to
+        for (Long cartId : cartIds) {
+            if (!existingIds.contains(cartId)) {
+                drop(cartId);
+            }
+        }
+    }
+
+    private void applyLines(Cart cart, List<Line> lines) {
+        Map<String, CartItem> itemsBySku = new HashMap<>();
+        cart.getItems().forEach(item -> itemsBySku.put(item.getSkuCode(), item));
+
+        List<CartItem> newItems = new ArrayList<>();
+        for (Line line : lines) {
+            CartItem item = itemsBySku.remove(line.skuCode());
+            if (item == null) {
+                CartItem newItem = CartItem.builder()
+                        .skuCode(line.skuCode())
+                        .productName(line.productName())
+                        .unitPrice(line.unitPrice())
+                        .quantity(line.quantity())
+                        .build();
+                newItem.calculateSubTotal();
+                newItems.add(newItem);
+            } else if (item.getQuantity() != line.quantity()
+                    || item.getUnitPrice().compareTo(line.unitPrice()) != 0
+                    || !item.getProductName().equals(line.productName())) {
+                item.setProductName(line.productName());
+                cart.updateItem(item, line.unitPrice(), line.quantity());
+            }
+        }
+        // Lines removed in memory; orphan removal deletes their rows
+        itemsBySku.values().forEach(cart::removeItem);
+        cart.addItems(newItems);
+    }
+
+    private void replay(CartJournal.Mutation mutation) {
+        CartState state;
+        try {
+            state = resolve(mutation.cartId());
+        } catch (CartNotFoundException e) {
+            return; // Checked out or removed after this was journaled
+        }
+        Shard shard = shardFor(state.customerId);
+        synchronized (shard) {
+            mutation.changes().forEach(state::apply);
+            state.version++;
+        }
+    }
+
+    private void commitChanges(CartState state) {
+        if (state.pendingChanges.isEmpty()) {
+            return;
+        }
+        journal.append(new CartJournal.Mutation(state.id, List.copyOf(state.pendingChanges)));
+        state.pendingChanges.clear();
+        state.version++;
+    }
+
+    private CartState resolve(Long cartId) {
+        String customerId = customerIdByCartId.get(cartId);
+        if (customerId != null) {
+            Shard shard = shardFor(customerId);
+            synchronized (shard) {
+                CartState state = shard.carts.get(customerId);
+                if (state != null && state.id.equals(cartId)) {
+                    return state;
+                }
+            }
+        }
+        Cart cart = cartRepository.findByIdWithItems(cartId)
+                .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
+        return cache(cart);
+    }
+
+    // Keeps the copy already held, which may have changes the database has not seen yet
+    private CartState cache(Cart cart) {
+        Shard shard = shardFor(cart.getCustomerId());
+        synchronized (shard) {
+            CartState held = shard.carts.get(cart.getCustomerId());
+            if (held != null && held.id.equals(cart.getId())) {
+                return held;
+            }
+            CartState state = CartState.of(cart);
+            shard.carts.put(state.customerId, state);
+            customerIdByCartId.put(state.id, state.customerId);
+            if (held != null) {
+                customerIdByCartId.remove(held.id, held.customerId);
+            }
+            return state;
+        }
+    }
+
+    private void drop(Long cartId) {
+        String customerId = customerIdByCartId.get(cartId);
+        if (customerId == null) {
+            return;
+        }
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            CartState state = shard.carts.get(customerId);
+            if (state != null && state.id.equals(cartId)) {
+                shard.carts.remove(customerId);
+            }
+            customerIdByCartId.remove(cartId, customerId);
+        }
+    }
+
+    private List<Long> dirtyCartIds() {
+        List<Long> cartIds = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.carts.values().forEach(state -> {
+                    if (state.isDirty()) {
+                        cartIds.add(state.id);
+                    }
+                });
+            }
+        }
+        return cartIds;
+    }
+
+    private Snapshot snapshot(Long cartId) {
+        String customerId = customerIdByCartId.get(cartId);
+        if (customerId == null) {
+            return null;
+        }
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            CartState state = shard.carts.get(customerId);
+            if (state == null || !state.id.equals(cartId)) {
+                return null;
+            }
+            return new Snapshot(List.copyOf(state.lines.values()), state.version);
+        }
+    }
+
+    private void markPersisted(Long cartId, long version, Map<String, Long> itemIds) {
+        String customerId = customerIdByCartId.get(cartId);
+        if (customerId == null) {
+            return;
+        }
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            CartState state = shard.carts.get(customerId);
+            if (state == null || !state.id.equals(cartId)) {
+                return;
+            }
+            state.persistedVersion = Math.max(state.persistedVersion, version);
+            state.lines.replaceAll((sku, line) -> line.itemId() == null && itemIds.containsKey(sku)
+                    ? line.withItemId(itemIds.get(sku))
+                    : line);
+        }
+    }
+
+    private Shard shardFor(String customerId) {
+        return shards[Math.floorMod(customerId.hashCode(), shards.length)];
+    }
+
+    private static final class Shard {
+        private final Map<String, CartState> carts = new HashMap<>();
+    }
+
+    private record Snapshot(List<Line> lines, long version) {
+    }
+
+    private record Written(Cart cart, long version) {
+    }
+
+    /**
+     * One line of a held cart. The item id is null until the line has been written back, and
+     * unitPriceMinor is the unit price in minor units.
+     */
+    public record Line(Long itemId, String skuCode, String productName, BigDecimal unitPrice, int quantity,
+                       LocalDateTime createdAt, LocalDateTime updatedAt, long unitPriceMinor) {
+
+        public BigDecimal subTotal() {
+            return CartPricing.toAmount(CartPricing.lineAmount(unitPriceMinor, quantity));
+        }
+
+        private Line withItemId(Long newItemId) {
+            return new Line(newItemId, skuCode, productName, unitPrice, quantity, createdAt, updatedAt, unitPriceMinor);
+        }
+    }
+
+    /**
+     * A held cart. Only read or change it inside {@link #view} or {@link #update}.
+     */
+    public static final class CartState {
+
+        private final Long id;
+        private final String customerId;
+        private final LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private final Map<String, Line> lines = new LinkedHashMap<>();
+        private final List<CartJournal.LineChange> pendingChanges = new ArrayList<>();
+        private final CartPricing pricing = new CartPricing();
+        private long version;
+        private long persistedVersion;
+        private long lastAccessMs = System.currentTimeMillis();
+
+        private CartState(Long id, String customerId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+            this.id = id;
+            this.customerId = customerId;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+        }
+
+        private static CartState of(Cart cart) {
+            CartState state = new CartState(cart.getId(), cart.getCustomerId(), cart.getCreatedAt(), cart.getUpdatedAt());
+            for (CartItem item : cart.getItems()) {
+                state.lines.put(item.getSkuCode(), new Line(item.getId(), item.getSkuCode(), item.getProductName(),
+                        item.getUnitPrice(), item.getQuantity(), item.getCreatedAt(), item.getUpdatedAt(),
+                        item.getUnitPriceMinor()));
+                state.pricing.addLine(item.getUnitPriceMinor(), item.getQuantity());
+            }
+            return state;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public Collection<Line> getLines() {
+            return Collections.unmodifiableCollection(lines.values());
+        }
+
+        public Line getLine(String skuCode) {
+            return lines.get(skuCode);
+        }
+
+        public BigDecimal getTotalAmount() {
+            return pricing.getTotalAmount();
+        }
+
+        public int getTotalItems() {
+            return pricing.getTotalItems();
+        }
+
+        public void putLine(String skuCode, String productName, BigDecimal unitPrice, int quantity) {
+            CartJournal.LineChange change = new CartJournal.LineChange(skuCode, productName, unitPrice, quantity);
+            apply(change);
+            pendingChanges.add(change);
+        }
+
+        public void removeLine(String skuCode) {
+            CartJournal.LineChange change = CartJournal.LineChange.removal(skuCode);
+            apply(change);
+            pendingChanges.add(change);
+        }
+
+        // Puts back the lines and totals a failed mutation started from
+        private void restore(Map<String, Line> previousLines, LocalDateTime previousUpdatedAt) {
+            lines.clear();
+            lines.putAll(previousLines);
+            pricing.clear();
+            previousLines.values().forEach(line -> pricing.addLine(line.unitPriceMinor(), line.quantity()));
+            pendingChanges.clear();
+            updatedAt = previousUpdatedAt;
+        }
+
+        private boolean isDirty() {
+            return version != persistedVersion;
+        }
+
+        private void apply(CartJournal.LineChange change) {
+            if (change.isRemoval()) {
+                Line removed = lines.remove(change.skuCode());
+                if (removed != null) {
+                    pricing.removeLine(removed.unitPriceMinor(), removed.quantity());
+                }
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Line current = lines.get(change.skuCode());
+            // A top-up passes the line's own price back in, so its minor units are already known
+            long unitPriceMinor = current != null && current.unitPrice() == change.unitPrice()
+                    ? current.unitPriceMinor()
+                    : CartPricing.toMinorUnits(change.unitPrice());
+            if (current != null) {
+                pricing.changeLine(current.unitPriceMinor(), current.quantity(), unitPriceMinor, change.quantity());
+            } else {
+                pricing.addLine(unitPriceMinor, change.quantity());
+            }
+            lines.put(change.skuCode(), new Line(
+                    current != null ? current.itemId() : null,
+                    change.skuCode(),
+                    change.productName(),
+                    change.unitPrice(),
+                    change.quantity(),
+                    current != null ? current.createdAt() : now,
+                    now,
+                    unitPriceMinor));
+            updatedAt = now;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.pasi.order_service.service;
 
 import com.pasi.order_service.dto.CartResponse;
 import com.pasi.order_service.dto.AddItemToCartRequest;
+import com.pasi.order_service.dto.AddItemsToCartRequest;
 import com.pasi.order_service.dto.CreateCartRequest;
 
 public interface CartService {
@@ -10,6 +11,11 @@ public interface CartService {
     
     CartResponse addItemToCart(Long cartId, AddItemToCartRequest request);
     
+    /**
+     * Add many items at once; quantities for SKUs already in the cart are added to their line
+     */
+    CartResponse addItemsToCart(Long cartId, AddItemsToCartRequest request);
+    
     CartResponse getCartById(Long cartId);
     
     void removeItemFromCart(Long cartId, String skuCode);
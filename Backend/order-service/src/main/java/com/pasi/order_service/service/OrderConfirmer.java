@@ -0,0 +1,95 @@
+package com.pasi.order_service.service;
+
+import com.pasi.order_service.client.InventoryClient;
+import com.pasi.order_service.entity.Order;
+import com.pasi.order_service.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Commits the inventory reservation of newly placed orders. This happens after checkout has
+ * answered, so the customer waits for one reservation round trip rather than two. Orders whose
+ * confirmation failed, or never ran because the instance stopped, are retried on a schedule well
+ * within the reservation's TTL.
+ */
+@Component
+@Slf4j
+public class OrderConfirmer {
+
+    private final InventoryClient inventoryClient;
+    private final OrderRepository orderRepository;
+    private final long graceMs;
+    private final int batchSize;
+    private final ExecutorService confirmExecutor;
+
+    public OrderConfirmer(InventoryClient inventoryClient,
+                          OrderRepository orderRepository,
+                          @Value("${app.orders.confirm.threads:4}") int threads,
+                          @Value("${app.orders.confirm.grace:10000}") long graceMs,
+                          @Value("${app.orders.confirm.batch-size:100}") int batchSize) {
+        this.inventoryClient = inventoryClient;
+        this.orderRepository = orderRepository;
+        this.graceMs = graceMs;
+        this.batchSize = batchSize;
+        this.confirmExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-confirm");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void confirmAsync(Order order) {
+        Long orderId = order.getId();
+        String reservationId = order.getReservationId();
+        try {
+            confirmExecutor.execute(() -> confirm(orderId, reservationId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Confirmation of order {} deferred to the retry job: {}", orderId, e.getMessage());
+        }
+    }
+
+    // Only orders older than the grace period, so the retry does not race a confirmation still in flight
+    @Scheduled(fixedDelayString = "${app.orders.confirm.retry-interval:30000}")
+    public void retryUnconfirmed() {
+        try {
+            List<Order> unconfirmed = orderRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAt(
+                    Order.Status.PLACED, LocalDateTime.now().minusNanos(graceMs * 1_000_000), PageRequest.of(0, batchSize));
+            for (Order order : unconfirmed) {
+                confirm(order.getId(), order.getReservationId());
+            }
+            if (!unconfirmed.isEmpty()) {
+                log.info("Retried confirmation of {} placed orders", unconfirmed.size());
+            }
+        } catch (Exception e) {
+            log.error("Failed to retry order confirmations - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        confirmExecutor.shutdown();
+    }
+
+    private void confirm(Long orderId, String reservationId) {
+        try {
+            boolean committed = inventoryClient.commit(reservationId);
+            Order.Status newStatus = committed ? Order.Status.CONFIRMED : Order.Status.RESERVATION_LOST;
+            orderRepository.updateStatus(orderId, Order.Status.PLACED, newStatus, LocalDateTime.now());
+            if (!committed) {
+                log.error("Order {} lost its stock reservation {} before it was committed", orderId, reservationId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to confirm order {}, will retry - Error: {}", orderId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.pasi.order_service.service;
+
+import com.pasi.order_service.dto.OrderResponse;
+
+public interface OrderService {
+    
+    /**
+     * Turns a cart into an order, reserving stock for every line. Placing the same cart again
+     * returns the order it already became.
+     */
+    OrderResponse placeOrder(Long cartId);
+    
+    OrderResponse getOrderById(Long orderId);
+}
@@ -4,6 +4,7 @@ import com.pasi.order_service.exception.CartAlreadyExistsException;
 import com.pasi.order_service.repository.CartItemRepository;
 import com.pasi.order_service.repository.CartRepository;
 import com.pasi.order_service.dto.AddItemToCartRequest;
+import com.pasi.order_service.dto.AddItemsToCartRequest;
 import com.pasi.order_service.dto.CartItemResponse;
 import com.pasi.order_service.dto.CartResponse;
 import com.pasi.order_service.dto.CreateCartRequest;
@@ -14,15 +15,22 @@ import com.pasi.order_service.exception.ItemNotFoundException;
 import com.pasi.order_service.service.CartService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+// Default cart storage; app.cart.store=memory selects WriteBackCartServiceImpl instead
 @Service
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "database", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
@@ -31,6 +39,9 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
 
+    @Value("${app.cart.max-batch-size:100}")
+    private int maxBatchSize;
+
     @Override
     public CartResponse createCart(CreateCartRequest request) {
         log.info("Creating cart for customer: {}", request.getCustomerId());
@@ -54,38 +65,16 @@ public class CartServiceImpl implements CartService {
     @Override
     public CartResponse addItemToCart(Long cartId, AddItemToCartRequest request) {
         log.info("Adding item {} to cart {}", request.getSkuCode(), cartId);
+        return applyItemChanges(cartId, List.of(request));
+    }
 
-        Cart cart = cartRepository.findByIdWithItems(cartId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
-
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndSkuCode(cartId, request.getSkuCode());
-
-        if (existingItem.isPresent()) {
-            // Update quantity if item already exists
-            CartItem item = existingItem.get();
-            item.updateQuantity(item.getQuantity() + request.getQuantity());
-            cartItemRepository.save(item);
-            log.info("Updated quantity for existing item {} in cart {}", request.getSkuCode(), cartId);
-        } else {
-            // Add new item to cart
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .skuCode(request.getSkuCode())
-                    .productName(request.getProductName())
-                    .unitPrice(request.getUnitPrice())
-                    .quantity(request.getQuantity())
-                    .build();
-
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-            log.info("Added new item {} to cart {}", request.getSkuCode(), cartId);
+    @Override
+    public CartResponse addItemsToCart(Long cartId, AddItemsToCartRequest request) {
+        if (request.getItems().size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " items can be added at once");
         }
-
-        cart.calculateTotal();
-        Cart savedCart = cartRepository.save(cart);
-
-        return mapToCartResponse(savedCart);
+        log.info("Adding {} items to cart {}", request.getItems().size(), cartId);
+        return applyItemChanges(cartId, request.getItems());
     }
 
     @Override
@@ -106,14 +95,13 @@ public class CartServiceImpl implements CartService {
         Cart cart = cartRepository.findByIdWithItems(cartId)
                 .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
 
-        CartItem item = cartItemRepository.findByCartIdAndSkuCode(cartId, skuCode)
+        CartItem item = cart.getItems().stream()
+                .filter(cartItem -> cartItem.getSkuCode().equals(skuCode))
+                .findFirst()
                 .orElseThrow(() -> new ItemNotFoundException("Item not found in cart - SKU: " + skuCode));
 
+        // Orphan removal deletes the row and the cart's new total goes out in the same flush
         cart.removeItem(item);
-        cartItemRepository.delete(item);
-        
-        cart.calculateTotal();
-        cartRepository.save(cart);
 
         log.info("Item {} removed from cart {}", skuCode, cartId);
     }
@@ -122,10 +110,11 @@ public class CartServiceImpl implements CartService {
     public void removeCart(Long cartId) {
         log.info("Removing cart with ID: {}", cartId);
 
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
-
-        cartRepository.delete(cart);
+        // Two statements rather than loading the cart and its items and deleting them one by one
+        cartItemRepository.deleteAllByCartId(cartId);
+        if (cartRepository.deleteCartById(cartId) == 0) {
+            throw new CartNotFoundException("Cart not found with ID: " + cartId);
+        }
         log.info("Cart {} removed successfully", cartId);
     }
 
@@ -140,6 +129,50 @@ public class CartServiceImpl implements CartService {
         return mapToCartResponse(cart);
     }
 
+    /**
+     * Applies line changes to the cart's already loaded items, keyed by SKU, and leaves the writes to
+     * the flush at commit: one batched insert for new lines, one batched update for changed lines and
+     * one update of the cart, however many items change.
+     */
+    private CartResponse applyItemChanges(Long cartId, List<AddItemToCartRequest> changes) {
+        Cart cart = cartRepository.findByIdWithItems(cartId)
+                .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
+
+        Map<String, CartItem> itemsBySku = new HashMap<>();
+        cart.getItems().forEach(item -> itemsBySku.put(item.getSkuCode(), item));
+
+        // New lines are merged here and only reach the cart's totals once, through addItems
+        Map<String, CartItem> newItemsBySku = new LinkedHashMap<>();
+        for (AddItemToCartRequest change : changes) {
+            CartItem item = itemsBySku.get(change.getSkuCode());
+            if (item != null) {
+                cart.updateItemQuantity(item, item.getQuantity() + change.getQuantity());
+                continue;
+            }
+            CartItem newItem = newItemsBySku.get(change.getSkuCode());
+            if (newItem != null) {
+                newItem.updateQuantity(newItem.getQuantity() + change.getQuantity());
+                continue;
+            }
+            newItem = CartItem.builder()
+                    .skuCode(change.getSkuCode())
+                    .productName(change.getProductName())
+                    .unitPrice(change.getUnitPrice())
+                    .quantity(change.getQuantity())
+                    .build();
+            newItem.calculateSubTotal();
+            newItemsBySku.put(change.getSkuCode(), newItem);
+        }
+        List<CartItem> newItems = new ArrayList<>(newItemsBySku.values());
+
+        cart.addItems(newItems);
+        log.info("Applied {} item changes to cart {}, {} new lines", changes.size(), cartId, newItems.size());
+
+        // Flushed here so the response carries the ids and timestamps of new lines
+        cartRepository.flush();
+        return mapToCartResponse(cart);
+    }
+
     private CartResponse mapToCartResponse(Cart cart) {
         List<CartItemResponse> itemResponses = cart.getItems().stream()
                 .map(this::mapToCartItemResponse)
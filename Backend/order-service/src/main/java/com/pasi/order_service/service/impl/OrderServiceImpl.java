@@ -0,0 +1,290 @@
+package com.pasi.order_service.service.impl;
+
+import com.pasi.order_service.client.InventoryClient;
+import com.pasi.order_service.dto.OrderItemResponse;
+import com.pasi.order_service.dto.OrderResponse;
+import com.pasi.order_service.dto.StockReservationItem;
+import com.pasi.order_service.dto.StockReservationRequest;
+import com.pasi.order_service.dto.StockReservationResponse;
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.entity.CartItem;
+import com.pasi.order_service.entity.Order;
+import com.pasi.order_service.entity.OrderItem;
+import com.pasi.order_service.exception.CartNotFoundException;
+import com.pasi.order_service.exception.InvalidCartException;
+import com.pasi.order_service.exception.OrderNotFoundException;
+import com.pasi.order_service.pricing.CartPricing;
+import com.pasi.order_service.repository.CartItemRepository;
+import com.pasi.order_service.repository.CartRepository;
+import com.pasi.order_service.repository.OrderRepository;
+import com.pasi.order_service.service.CartMemoryStore;
+import com.pasi.order_service.service.OrderConfirmer;
+import com.pasi.order_service.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Checkout is one reservation round trip followed by one database transaction. Stock for the whole
+ * cart is reserved first, outside any transaction so no connection is held while inventory answers.
+ * The transaction then locks the cart, checks it still holds what was reserved, writes the order
+ * and deletes the cart. The reservation id is derived from the cart and its lines, so a retried or
+ * concurrent checkout of the same cart reuses the same reservation instead of taking stock twice.
+ * With the in-memory cart store the cart is written back and frozen before any of this, and
+ * dropped from memory once placed.
+ */
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    private final OrderRepository orderRepository;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final InventoryClient inventoryClient;
+    private final OrderConfirmer orderConfirmer;
+    private final TransactionTemplate transactionTemplate;
+    private final int reservationTtlSeconds;
+    // Null unless app.cart.store=memory
+    private final CartMemoryStore cartMemoryStore;
+
+    public OrderServiceImpl(OrderRepository orderRepository,
+                            CartRepository cartRepository,
+                            CartItemRepository cartItemRepository,
+                            InventoryClient inventoryClient,
+                            OrderConfirmer orderConfirmer,
+                            PlatformTransactionManager transactionManager,
+                            ObjectProvider<CartMemoryStore> cartMemoryStore,
+                            @Value("${app.orders.reservation-ttl:900}") int reservationTtlSeconds) {
+        this.orderRepository = orderRepository;
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.inventoryClient = inventoryClient;
+        this.orderConfirmer = orderConfirmer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtlSeconds = reservationTtlSeconds;
+        this.cartMemoryStore = cartMemoryStore.getIfAvailable();
+    }
+
+    @Override
+    public OrderResponse placeOrder(Long cartId) {
+        log.info("Placing order for cart: {}", cartId);
+        if (cartMemoryStore == null) {
+            return checkout(cartId);
+        }
+
+        boolean placed = false;
+        try {
+            cartMemoryStore.beginCheckout(cartId);
+            OrderResponse order = checkout(cartId);
+            placed = true;
+            return order;
+        } finally {
+            cartMemoryStore.endCheckout(cartId, placed);
+        }
+    }
+
+    private OrderResponse checkout(Long cartId) {
+
+        Optional<Order> existingOrder = orderRepository.findByCartIdWithItems(cartId);
+        if (existingOrder.isPresent()) {
+            log.info("Cart {} was already placed as order {}", cartId, existingOrder.get().getId());
+            return mapToOrderResponse(existingOrder.get());
+        }
+
+        Cart cart = cartRepository.findByIdWithItems(cartId)
+                .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
+        if (cart.getItems().isEmpty()) {
+            throw new InvalidCartException("Cart " + cartId + " is empty");
+        }
+
+        SortedMap<String, Integer> quantities = quantitiesBySku(cart.getItems());
+        String reservationId = reserve(reservationId(cartId, quantities), quantities);
+
+        Order order;
+        try {
+            order = transactionTemplate.execute(status -> createOrder(cartId, reservationId, quantities));
+        } catch (DataIntegrityViolationException e) {
+            // The unique cart_id caught a concurrent checkout that committed first
+            order = orderRepository.findByCartIdWithItems(cartId).orElseThrow(() -> e);
+        } catch (RuntimeException e) {
+            // The commit may have gone through before the error reached this checkout
+            order = releaseUnlessOrdered(cartId, reservationId).orElseThrow(() -> e);
+        }
+
+        if (!reservationId.equals(order.getReservationId())) {
+            // Another checkout of this cart won with a reservation of its own
+            releaseUnlessOrdered(cartId, reservationId);
+        } else {
+            orderConfirmer.confirmAsync(order);
+            log.info("Order {} placed for cart {} with {} items", order.getId(), cartId, order.getItems().size());
+        }
+        return mapToOrderResponse(order);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderById(Long orderId) {
+        log.info("Retrieving order with ID: {}", orderId);
+
+        Order order = orderRepository.findByIdWithItems(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + orderId));
+
+        return mapToOrderResponse(order);
+    }
+
+    // Runs inside the checkout transaction
+    private Order createOrder(Long cartId, String reservationId, SortedMap<String, Integer> reservedQuantities) {
+        Optional<Cart> lockedCart = cartRepository.findByIdForUpdate(cartId);
+        if (lockedCart.isEmpty()) {
+            // Deleted by a concurrent checkout of the same cart while this one waited for the lock
+            return orderRepository.findByCartIdWithItems(cartId)
+                    .orElseThrow(() -> new CartNotFoundException("Cart not found with ID: " + cartId));
+        }
+
+        Cart cart = lockedCart.get();
+        List<CartItem> items = cartItemRepository.findByCartId(cartId);
+        if (!quantitiesBySku(items).equals(reservedQuantities)) {
+            throw new InvalidCartException("Cart " + cartId + " changed during checkout, please try again");
+        }
+
+        Order order = Order.builder()
+                .cartId(cartId)
+                .customerId(cart.getCustomerId())
+                .status(Order.Status.PLACED)
+                .reservationId(reservationId)
+                .build();
+        CartPricing pricing = new CartPricing();
+        for (CartItem item : items) {
+            long unitPrice = item.getUnitPriceMinor();
+            pricing.addLine(unitPrice, item.getQuantity());
+            order.addItem(OrderItem.builder()
+                    .skuCode(item.getSkuCode())
+                    .productName(item.getProductName())
+                    .unitPrice(item.getUnitPrice())
+                    .quantity(item.getQuantity())
+                    .subTotal(CartPricing.toAmount(CartPricing.lineAmount(unitPrice, item.getQuantity())))
+                    .build());
+        }
+        order.setTotalAmount(pricing.getTotalAmount());
+
+        Order savedOrder = orderRepository.save(order);
+        cartItemRepository.deleteAllByCartId(cartId);
+        cartRepository.deleteCartById(cartId);
+        return savedOrder;
+    }
+
+    private String reserve(String reservationId, SortedMap<String, Integer> quantities) {
+        StockReservationResponse reservation = inventoryClient.reserve(reservationRequest(reservationId, quantities));
+        if (StockReservationResponse.RESERVED.equals(reservation.getStatus())) {
+            return reservation.getReservationId();
+        }
+
+        // An earlier attempt at this same cart whose reservation has since expired or been released
+        String retryId = reservationId + "-" + Long.toString(System.currentTimeMillis(), 36);
+        log.info("Reservation {} is {}, reserving again as {}", reservationId, reservation.getStatus(), retryId);
+        reservation = inventoryClient.reserve(reservationRequest(retryId, quantities));
+        if (!StockReservationResponse.RESERVED.equals(reservation.getStatus())) {
+            throw new InvalidCartException("Stock for the cart could not be reserved, please try again");
+        }
+        return reservation.getReservationId();
+    }
+
+    private StockReservationRequest reservationRequest(String reservationId, SortedMap<String, Integer> quantities) {
+        List<StockReservationItem> items = new ArrayList<>(quantities.size());
+        quantities.forEach((sku, quantity) -> items.add(new StockReservationItem(sku, quantity)));
+        return StockReservationRequest.builder()
+                .reservationId(reservationId)
+                .items(items)
+                .ttlSeconds(reservationTtlSeconds)
+                .build();
+    }
+
+    /**
+     * Releases the reservation unless the cart's order holds it, and returns that order if it does.
+     * When the order cannot be looked up the reservation is left to its TTL, since releasing stock an
+     * order already owns would let it be sold twice.
+     */
+    private Optional<Order> releaseUnlessOrdered(Long cartId, String reservationId) {
+        Optional<Order> holder;
+        try {
+            holder = orderRepository.findByCartIdWithItems(cartId)
+                    .filter(order -> reservationId.equals(order.getReservationId()));
+        } catch (RuntimeException e) {
+            log.warn("Could not check the order of cart {}, leaving reservation {} to expire - Error: {}",
+                    cartId, reservationId, e.getMessage());
+            return Optional.empty();
+        }
+        if (holder.isEmpty()) {
+            releaseQuietly(reservationId);
+        }
+        return holder;
+    }
+
+    // The inventory TTL gives the stock back anyway if this does not get through
+    private void releaseQuietly(String reservationId) {
+        try {
+            inventoryClient.release(reservationId);
+        } catch (Exception e) {
+            log.warn("Failed to release reservation {}, it will expire - Error: {}", reservationId, e.getMessage());
+        }
+    }
+
+    // Same cart and same lines give the same id, at most 64 characters
+    private static String reservationId(Long cartId, SortedMap<String, Integer> quantities) {
+        StringBuilder lines = new StringBuilder();
+        quantities.forEach((sku, quantity) -> lines.append(sku).append('=').append(quantity).append('\n'));
+        String fingerprint = UUID.nameUUIDFromBytes(lines.toString().getBytes(StandardCharsets.UTF_8))
+                .toString().replace("-", "").substring(0, 16);
+        return "cart-" + cartId + "-" + fingerprint;
+    }
+
+    private static SortedMap<String, Integer> quantitiesBySku(List<CartItem> items) {
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        items.forEach(item -> quantities.merge(item.getSkuCode(), item.getQuantity(), Integer::sum));
+        return quantities;
+    }
+
+    private OrderResponse mapToOrderResponse(Order order) {
+        List<OrderItemResponse> itemResponses = order.getItems().stream()
+                .map(this::mapToOrderItemResponse)
+                .collect(Collectors.toList());
+
+        return OrderResponse.builder()
+                .orderId(order.getId())
+                .cartId(order.getCartId())
+                .customerId(order.getCustomerId())
+                .status(order.getStatus())
+                .reservationId(order.getReservationId())
+                .items(itemResponses)
+                .totalAmount(order.getTotalAmount())
+                .totalItems(order.getTotalItems())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    private OrderItemResponse mapToOrderItemResponse(OrderItem item) {
+        return OrderItemResponse.builder()
+                .itemId(item.getId())
+                .skuCode(item.getSkuCode())
+                .productName(item.getProductName())
+                .unitPrice(item.getUnitPrice())
+                .quantity(item.getQuantity())
+                .subTotal(item.getSubTotal())
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.pasi.order_service.service.impl;
+
+import com.pasi.order_service.dto.AddItemToCartRequest;
+import com.pasi.order_service.dto.AddItemsToCartRequest;
+import com.pasi.order_service.dto.CartItemResponse;
+import com.pasi.order_service.dto.CartResponse;
+import com.pasi.order_service.dto.CreateCartRequest;
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.exception.CartAlreadyExistsException;
+import com.pasi.order_service.exception.ItemNotFoundException;
+import com.pasi.order_service.repository.CartRepository;
+import com.pasi.order_service.service.CartMemoryStore;
+import com.pasi.order_service.service.CartService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cart operations against {@link CartMemoryStore}, selected with app.cart.store=memory. Creating and
+ * removing a cart still go to the database straight away; item changes are applied in memory and
+ * written back later.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBackCartServiceImpl implements CartService {
+
+    private final CartRepository cartRepository;
+    private final CartMemoryStore cartStore;
+
+    @Value("${app.cart.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Override
+    public CartResponse createCart(CreateCartRequest request) {
+        log.info("Creating cart for customer: {}", request.getCustomerId());
+
+        if (cartStore.containsCustomer(request.getCustomerId())
+                || cartRepository.existsByCustomerId(request.getCustomerId())) {
+            throw new CartAlreadyExistsException("Cart already exists for customer: " + request.getCustomerId());
+        }
+
+        Cart cart = Cart.builder()
+                .customerId(request.getCustomerId())
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+
+        Cart savedCart = cartRepository.save(cart);
+        cartStore.add(savedCart);
+        log.info("Cart created successfully with ID: {}", savedCart.getId());
+
+        return cartStore.view(savedCart.getId(), this::mapToCartResponse);
+    }
+
+    @Override
+    public CartResponse addItemToCart(Long cartId, AddItemToCartRequest request) {
+        log.info("Adding item {} to cart {}", request.getSkuCode(), cartId);
+        return applyItemChanges(cartId, List.of(request));
+    }
+
+    @Override
+    public CartResponse addItemsToCart(Long cartId, AddItemsToCartRequest request) {
+        if (request.getItems().size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " items can be added at once");
+        }
+        log.info("Adding {} items to cart {}", request.getItems().size(), cartId);
+        return applyItemChanges(cartId, request.getItems());
+    }
+
+    @Override
+    public CartResponse getCartById(Long cartId) {
+        log.info("Retrieving cart with ID: {}", cartId);
+        return cartStore.view(cartId, this::mapToCartResponse);
+    }
+
+    @Override
+    public void removeItemFromCart(Long cartId, String skuCode) {
+        log.info("Removing item {} from cart {}", skuCode, cartId);
+
+        cartStore.update(cartId, cart -> {
+            if (cart.getLine(skuCode) == null) {
+                throw new ItemNotFoundException("Item not found in cart - SKU: " + skuCode);
+            }
+            cart.removeLine(skuCode);
+            return null;
+        });
+
+        log.info("Item {} removed from cart {}", skuCode, cartId);
+    }
+
+    @Override
+    public void removeCart(Long cartId) {
+        log.info("Removing cart with ID: {}", cartId);
+        cartStore.remove(cartId);
+        log.info("Cart {} removed successfully", cartId);
+    }
+
+    @Override
+    public CartResponse getCartByCustomerId(String customerId) {
+        log.info("Retrieving cart for customer: {}", customerId);
+        return cartStore.viewByCustomer(customerId, this::mapToCartResponse);
+    }
+
+    // Same semantics as the database mode: an existing line is topped up, keeping its name and price
+    private CartResponse applyItemChanges(Long cartId, List<AddItemToCartRequest> changes) {
+        return cartStore.update(cartId, cart -> {
+            for (AddItemToCartRequest change : changes) {
+                CartMemoryStore.Line line = cart.getLine(change.getSkuCode());
+                if (line != null) {
+                    cart.putLine(line.skuCode(), line.productName(), line.unitPrice(), line.quantity() + change.getQuantity());
+                } else {
+                    cart.putLine(change.getSkuCode(), change.getProductName(), change.getUnitPrice(), change.getQuantity());
+                }
+            }
+            return mapToCartResponse(cart);
+        });
+    }
+
+    private CartResponse mapToCartResponse(CartMemoryStore.CartState cart) {
+        List<CartItemResponse> itemResponses = cart.getLines().stream()
+                .map(this::mapToCartItemResponse)
+                .collect(Collectors.toList());
+
+        return CartResponse.builder()
+                .cartId(cart.getId())
+                .customerId(cart.getCustomerId())
+                .items(itemResponses)
+                .totalAmount(cart.getTotalAmount())
+                .totalItems(cart.getTotalItems())
+                .createdAt(cart.getCreatedAt())
+                .updatedAt(cart.getUpdatedAt())
+                .build();
+    }
+
+    private CartItemResponse mapToCartItemResponse(CartMemoryStore.Line line) {
+        return CartItemResponse.builder()
+                .itemId(line.itemId())
+                .skuCode(line.skuCode())
+                .productName(line.productName())
+                .unitPrice(line.unitPrice())
+                .quantity(line.quantity())
+                .subTotal(line.subTotal())
+                .createdAt(line.createdAt())
+                .updatedAt(line.updatedAt())
+                .build();
+    }
+}
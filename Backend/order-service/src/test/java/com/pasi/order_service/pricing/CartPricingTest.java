@@ -0,0 +1,121 @@
+package com.pasi.order_service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CartPricingTest {
+
+    @Test
+    void deltasKeepTheTotalsOfTheLinesHeld() {
+        CartPricing pricing = new CartPricing();
+        pricing.addLine(1999, 3);
+        pricing.addLine(250, 4);
+        pricing.changeLine(1999, 3, 1899, 1);
+        pricing.removeLine(250, 4);
+        pricing.addLine(5, 7);
+
+        assertThat(pricing.getGrossAmount()).isEqualTo(1899 + 35);
+        assertThat(pricing.getTotalItems()).isEqualTo(8);
+        assertThat(pricing.getLineCount()).isEqualTo(2);
+        assertThat(pricing.getTotalAmount()).isEqualByComparingTo("19.34");
+    }
+
+    @Test
+    void clearKeepsTheDiscountAndTaxRates() {
+        CartPricing pricing = new CartPricing();
+        pricing.setTaxRate(1000);
+        pricing.addLine(1000, 1);
+        pricing.clear();
+        pricing.addLine(2000, 1);
+
+        assertThat(pricing.getLineCount()).isEqualTo(1);
+        assertThat(pricing.getTotal()).isEqualTo(2200);
+    }
+
+    @Test
+    void amountsConvertAtScaleTwoRoundingHalfUp() {
+        assertThat(CartPricing.toMinorUnits(new BigDecimal("19.99"))).isEqualTo(1999);
+        assertThat(CartPricing.toMinorUnits(new BigDecimal("0.005"))).isEqualTo(1);
+        assertThat(CartPricing.toMinorUnits(new BigDecimal("0.0049"))).isZero();
+        assertThat(CartPricing.toMinorUnits(new BigDecimal("7"))).isEqualTo(700);
+        assertThat(CartPricing.toAmount(1999)).isEqualTo(new BigDecimal("19.99"));
+        assertThat(CartPricing.toAmount(5)).isEqualTo(new BigDecimal("0.05"));
+    }
+
+    @Test
+    void ratesRoundHalfUpToTheCent() {
+        CartPricing pricing = new CartPricing();
+        pricing.addLine(50, 1);
+
+        // 50 * 1% = 0.5 cent, rounds up
+        pricing.setTaxRate(100);
+        assertThat(pricing.getTaxAmount()).isEqualTo(1);
+        // 50 * 0.99% = 0.495 cent, rounds down
+        pricing.setTaxRate(99);
+        assertThat(pricing.getTaxAmount()).isZero();
+        // 50 * 15% = 7.5 cents, rounds up
+        pricing.setTaxRate(1500);
+        assertThat(pricing.getTaxAmount()).isEqualTo(8);
+        assertThat(pricing.getTotal()).isEqualTo(58);
+    }
+
+    @Test
+    void cartDiscountAppliesAfterLineDiscountsAndTaxAfterBoth() {
+        CartPricing pricing = new CartPricing();
+        pricing.addLine(1000, 2, 300);
+        pricing.addLine(500, 1);
+        pricing.setCartDiscount(100, 1000);
+        pricing.setTaxRate(2000);
+
+        assertThat(pricing.getSubtotal()).isEqualTo(2200);
+        // 100 fixed plus 10% of 2200
+        assertThat(pricing.getCartDiscountAmount()).isEqualTo(320);
+        assertThat(pricing.getTaxAmount()).isEqualTo(376);
+        assertThat(pricing.getTotal()).isEqualTo(1880 + 376);
+    }
+
+    @Test
+    void discountsAreCappedAtWhatTheyApplyTo() {
+        CartPricing pricing = new CartPricing();
+        pricing.addLine(300, 2, 1000);
+        assertThat(pricing.getLineDiscountAmount()).isEqualTo(600);
+        assertThat(pricing.getSubtotal()).isZero();
+
+        pricing.addLine(400, 1);
+        pricing.setCartDiscount(1000, 5000);
+        assertThat(pricing.getCartDiscountAmount()).isEqualTo(400);
+        assertThat(pricing.getTotal()).isZero();
+
+        // Removing the line takes back only the capped discount it added
+        pricing.removeLine(300, 2, 1000);
+        assertThat(pricing.getLineDiscountAmount()).isZero();
+        assertThat(pricing.getSubtotal()).isEqualTo(400);
+    }
+
+    @Test
+    void invalidRatesAndDiscountsAreRejected() {
+        CartPricing pricing = new CartPricing();
+        assertThatThrownBy(() -> pricing.setCartDiscount(-1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pricing.setCartDiscount(0, 10_001)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pricing.setTaxRate(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pricing.addLine(100, 1, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        assertThatThrownBy(() -> CartPricing.lineAmount(Long.MAX_VALUE / 2, 3)).isInstanceOf(ArithmeticException.class);
+
+        CartPricing pricing = new CartPricing();
+        pricing.addLine(Long.MAX_VALUE - 10, 1);
+        assertThatThrownBy(() -> pricing.addLine(11, 1)).isInstanceOf(ArithmeticException.class);
+        assertThat(pricing.getGrossAmount()).isEqualTo(Long.MAX_VALUE - 10);
+
+        pricing.setTaxRate(100);
+        assertThatThrownBy(pricing::getTotal).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> CartPricing.toMinorUnits(new BigDecimal("1e30"))).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.pasi.order_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverReplaysEveryRecordInOrder() {
+        CartJournal journal = openJournal();
+        journal.append(mutation(1L, put("SKU-A", 2)));
+        journal.append(mutation(2L, put("SKU-B", 1), CartJournal.LineChange.removal("SKU-C")));
+        journal.close();
+
+        List<CartJournal.Mutation> replayed = replay();
+
+        assertThat(replayed).containsExactly(
+                mutation(1L, put("SKU-A", 2)),
+                mutation(2L, put("SKU-B", 1), CartJournal.LineChange.removal("SKU-C")));
+    }
+
+    @Test
+    void tornTailEndsReplayAtTheLastWholeRecord() throws IOException {
+        CartJournal journal = openJournal();
+        journal.append(mutation(1L, put("SKU-A", 2)));
+        journal.append(mutation(1L, put("SKU-A", 3)));
+        journal.close();
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThat(replay()).containsExactly(mutation(1L, put("SKU-A", 2)));
+    }
+
+    @Test
+    void checksumMismatchEndsReplayAtTheCorruptRecord() throws IOException {
+        CartJournal journal = openJournal();
+        journal.append(mutation(1L, put("SKU-A", 2)));
+        journal.append(mutation(1L, put("SKU-A", 3)));
+        journal.append(mutation(1L, put("SKU-A", 4)));
+        journal.close();
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        // The last byte of the second record, whose length prefix is left intact
+        bytes[bytes.length / 3 * 2 - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        assertThat(replay()).containsExactly(mutation(1L, put("SKU-A", 2)));
+    }
+
+    @Test
+    void rollSealsOnlySegmentsWithRecordsAndDeleteRemovesThem() throws IOException {
+        CartJournal journal = openJournal();
+        assertThat(journal.roll()).isEmpty();
+
+        journal.append(mutation(1L, put("SKU-A", 2)));
+        List<Path> first = journal.roll();
+        journal.append(mutation(1L, put("SKU-A", 3)));
+        List<Path> both = journal.roll();
+        assertThat(first).hasSize(1);
+        assertThat(both).hasSize(2).startsWith(first.get(0));
+
+        journal.deleteSegments(first);
+        assertThat(first.get(0)).doesNotExist();
+        assertThat(journal.roll()).containsExactly(both.get(1));
+        journal.close();
+
+        assertThat(replay()).containsExactly(mutation(1L, put("SKU-A", 3)));
+        assertThat(segments()).hasSize(3);
+    }
+
+    @Test
+    void replayedSegmentsStayUntilDeleted() {
+        CartJournal journal = openJournal();
+        journal.append(mutation(1L, put("SKU-A", 2)));
+        journal.close();
+
+        CartJournal recovered = new CartJournal(directory.toString(), false);
+        recovered.recover(mutation -> { });
+        List<Path> sealed = recovered.roll();
+        recovered.close();
+
+        assertThat(sealed).hasSize(1);
+        assertThat(replay()).containsExactly(mutation(1L, put("SKU-A", 2)));
+    }
+
+    private CartJournal openJournal() {
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        journal.recover(mutation -> { });
+        return journal;
+    }
+
+    private List<CartJournal.Mutation> replay() {
+        List<CartJournal.Mutation> replayed = new ArrayList<>();
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        journal.recover(replayed::add);
+        journal.close();
+        return replayed;
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> withRecords = segments().stream().filter(path -> path.toFile().length() > 0).toList();
+        assertThat(withRecords).hasSize(1);
+        return withRecords.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static CartJournal.Mutation mutation(long cartId, CartJournal.LineChange... changes) {
+        return new CartJournal.Mutation(cartId, List.of(changes));
+    }
+
+    private static CartJournal.LineChange put(String skuCode, int quantity) {
+        return new CartJournal.LineChange(skuCode, "Product " + skuCode, new BigDecimal("10.00"), quantity);
+    }
+}
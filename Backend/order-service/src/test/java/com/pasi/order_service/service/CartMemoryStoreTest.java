@@ -0,0 +1,173 @@
+package com.pasi.order_service.service;
+
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.entity.CartItem;
+import com.pasi.order_service.exception.InvalidCartException;
+import com.pasi.order_service.repository.CartItemRepository;
+import com.pasi.order_service.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartMemoryStoreTest {
+
+    private static final Long CART_ID = 1L;
+
+    @TempDir
+    Path directory;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        when(cartRepository.findByIdWithItems(CART_ID)).thenAnswer(invocation -> Optional.of(storedCart(2)));
+    }
+
+    @Test
+    void failedMutationLeavesTheCartAsItWas() {
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        CartMemoryStore store = newStore(journal);
+        store.recover();
+
+        assertThatThrownBy(() -> store.update(CART_ID, state -> {
+            state.putLine("SKU-B", "Saw", new BigDecimal("5.00"), 3);
+            state.removeLine("SKU-A");
+            throw new InvalidCartException("Out of stock");
+        })).isInstanceOf(InvalidCartException.class);
+
+        assertHolds(store, 2);
+        store.writeBack();
+        verify(cartRepository, never()).findAllByIdForUpdate(anyCollection());
+        journal.close();
+        assertThat(replay()).isEmpty();
+    }
+
+    @Test
+    void failedJournalWriteLeavesTheCartAsItWas() {
+        CartJournal journal = mock(CartJournal.class);
+        doThrow(new UncheckedIOException(new IOException("Disk full"))).when(journal).append(any());
+        CartMemoryStore store = newStore(journal);
+
+        assertThatThrownBy(() -> store.update(CART_ID, state -> {
+            state.putLine("SKU-A", "Drill", new BigDecimal("10.00"), 7);
+            return null;
+        })).isInstanceOf(UncheckedIOException.class);
+
+        assertHolds(store, 2);
+        store.writeBack();
+        verify(cartRepository, never()).findAllByIdForUpdate(anyCollection());
+    }
+
+    @Test
+    void replayOverACartThatAlreadyHasTheChangesIsHarmless() {
+        // The write-back of these changes committed, but the process died before deleting the segment
+        when(cartRepository.findByIdWithItems(CART_ID)).thenAnswer(invocation -> Optional.of(storedCart(5)));
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        journal.recover(mutation -> { });
+        journal.append(mutation(put("SKU-A", 2)));
+        journal.append(mutation(put("SKU-A", 5), new CartJournal.LineChange("SKU-B", "Saw", new BigDecimal("5.00"), 1)));
+        journal.append(mutation(CartJournal.LineChange.removal("SKU-B")));
+        journal.close();
+        when(cartRepository.findAllByIdForUpdate(anyCollection())).thenThrow(new QueryTimeoutException("Timed out"));
+
+        CartMemoryStore first = newStore(new CartJournal(directory.toString(), false));
+        first.recover();
+        assertHolds(first, 5);
+
+        // The failed write-back kept the segments, so the next start replays them again
+        CartMemoryStore second = newStore(new CartJournal(directory.toString(), false));
+        second.recover();
+        assertHolds(second, 5);
+    }
+
+    @Test
+    void writeBackDeletesTheSegmentsItCovered() throws IOException {
+        Cart stored = storedCart(2);
+        when(cartRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(stored));
+        when(cartRepository.findAllByIdWithItems(anyCollection())).thenReturn(List.of(stored));
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        CartMemoryStore store = newStore(journal);
+        store.recover();
+
+        store.update(CART_ID, state -> {
+            state.putLine("SKU-A", "Drill", new BigDecimal("10.00"), 4);
+            return null;
+        });
+        store.writeBack();
+
+        assertThat(stored.getItems()).singleElement().extracting(CartItem::getQuantity).isEqualTo(4);
+        assertThat(stored.getTotalAmount()).isEqualByComparingTo("40.00");
+        try (Stream<Path> files = Files.list(directory)) {
+            // Only the fresh segment the roll opened is left
+            assertThat(files.toList()).singleElement().satisfies(path -> assertThat(path.toFile().length()).isZero());
+        }
+    }
+
+    private CartMemoryStore newStore(CartJournal journal) {
+        return new CartMemoryStore(cartRepository, cartItemRepository, journal, mock(PlatformTransactionManager.class),
+                4, 60_000, 50);
+    }
+
+    private static void assertHolds(CartMemoryStore store, int quantity) {
+        store.view(CART_ID, state -> {
+            assertThat(state.getLines()).singleElement().satisfies(line -> {
+                assertThat(line.skuCode()).isEqualTo("SKU-A");
+                assertThat(line.quantity()).isEqualTo(quantity);
+            });
+            assertThat(state.getTotalItems()).isEqualTo(quantity);
+            assertThat(state.getTotalAmount()).isEqualByComparingTo(new BigDecimal("10.00").multiply(BigDecimal.valueOf(quantity)));
+            return null;
+        });
+    }
+
+    private List<CartJournal.Mutation> replay() {
+        List<CartJournal.Mutation> replayed = new ArrayList<>();
+        CartJournal journal = new CartJournal(directory.toString(), false);
+        journal.recover(replayed::add);
+        journal.close();
+        return replayed;
+    }
+
+    private static Cart storedCart(int quantity) {
+        Cart cart = Cart.builder().id(CART_ID).customerId("CUST-1").build();
+        cart.addItem(CartItem.builder()
+                .id(10L)
+                .skuCode("SKU-A")
+                .productName("Drill")
+                .unitPrice(new BigDecimal("10.00"))
+                .quantity(quantity)
+                .build());
+        return cart;
+    }
+
+    private static CartJournal.Mutation mutation(CartJournal.LineChange... changes) {
+        return new CartJournal.Mutation(CART_ID, List.of(changes));
+    }
+
+    private static CartJournal.LineChange put(String skuCode, int quantity) {
+        return new CartJournal.LineChange(skuCode, "Drill", new BigDecimal("10.00"), quantity);
+    }
+}
@@ -0,0 +1,81 @@
+package com.pasi.order_service.service.impl;
+
+import com.pasi.order_service.dto.AddItemToCartRequest;
+import com.pasi.order_service.dto.AddItemsToCartRequest;
+import com.pasi.order_service.dto.CartResponse;
+import com.pasi.order_service.entity.Cart;
+import com.pasi.order_service.entity.CartItem;
+import com.pasi.order_service.repository.CartItemRepository;
+import com.pasi.order_service.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartServiceImplTest {
+
+    private static final Long CART_ID = 1L;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final Cart cart = Cart.builder().id(CART_ID).customerId("CUST-1").totalAmount(BigDecimal.ZERO).build();
+    private CartServiceImpl cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartServiceImpl(cartRepository, mock(CartItemRepository.class));
+        ReflectionTestUtils.setField(cartService, "maxBatchSize", 100);
+        when(cartRepository.findByIdWithItems(CART_ID)).thenReturn(Optional.of(cart));
+    }
+
+    @Test
+    void newSkuRepeatedInOneBatchBecomesOneLineCountedOnce() {
+        CartResponse response = cartService.addItemsToCart(CART_ID, batch(item("SKU-A", 2), item("SKU-A", 3)));
+
+        assertThat(response.getItems()).singleElement().satisfies(line -> {
+            assertThat(line.getQuantity()).isEqualTo(5);
+            assertThat(line.getSubTotal()).isEqualByComparingTo("50.00");
+        });
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("50.00");
+        assertThat(response.getTotalItems()).isEqualTo(5);
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void existingSkuRepeatedInOneBatchIsToppedUpEachTime() {
+        cart.addItem(CartItem.builder().skuCode("SKU-A").productName("Drill").unitPrice(new BigDecimal("10.00")).quantity(1).build());
+
+        CartResponse response = cartService.addItemsToCart(CART_ID,
+                batch(item("SKU-A", 2), item("SKU-B", 1), item("SKU-A", 3), item("SKU-B", 4)));
+
+        assertThat(response.getItems()).extracting("skuCode", "quantity")
+                .containsExactly(tuple("SKU-A", 6), tuple("SKU-B", 5));
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("110.00");
+        assertThat(response.getTotalItems()).isEqualTo(11);
+        // A full recount of the lines gives the same total
+        cart.calculateTotal();
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo("110.00");
+    }
+
+    private static AddItemsToCartRequest batch(AddItemToCartRequest... items) {
+        AddItemsToCartRequest request = new AddItemsToCartRequest();
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static AddItemToCartRequest item(String skuCode, int quantity) {
+        return AddItemToCartRequest.builder()
+                .skuCode(skuCode)
+                .productName("Drill")
+                .unitPrice(new BigDecimal("10.00"))
+                .quantity(quantity)
+                .build();
+    }
+}
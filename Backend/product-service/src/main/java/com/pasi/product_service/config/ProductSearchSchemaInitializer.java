@@ -0,0 +1,116 @@
+package com.pasi.product_service.config;
+
+import com.pasi.product_service.service.ProductSearchMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Installs the PostgreSQL full-text search objects that Hibernate's ddl-auto cannot express:
+ * the weighted search_vector column, the triggers that keep it current and its GIN index.
+ * Category names live in another table, so a generated column is not an option.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchSchemaInitializer implements ApplicationRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector",
+
+            // Weighted name > brand > category > sku
+            """
+            CREATE OR REPLACE FUNCTION products_search_vector(p_name text, p_brand text, p_category_id bigint, p_sku text)
+            RETURNS tsvector LANGUAGE sql STABLE AS $$
+                SELECT setweight(to_tsvector('simple', coalesce(p_name, '')), 'A')
+                    || setweight(to_tsvector('simple', coalesce(p_brand, '')), 'B')
+                    || setweight(to_tsvector('simple', coalesce((SELECT c.name FROM categories c WHERE c.id = p_category_id), '')), 'C')
+                    || setweight(to_tsvector('simple', coalesce(p_sku, '')), 'D')
+            $$
+            """,
+
+            """
+            CREATE OR REPLACE FUNCTION products_search_vector_trigger() RETURNS trigger LANGUAGE plpgsql AS $$
+            BEGIN
+                NEW.search_vector := products_search_vector(NEW.name, NEW.brand, NEW.category_id, NEW.sku);
+                RETURN NEW;
+            END
+            $$
+            """,
+
+            "DROP TRIGGER IF EXISTS trg_products_search_vector ON products",
+
+            """
+            CREATE TRIGGER trg_products_search_vector
+            BEFORE INSERT OR UPDATE OF name, brand, category_id, sku ON products
+            FOR EACH ROW EXECUTE FUNCTION products_search_vector_trigger()
+            """,
+
+            // Renaming a category must re-index every product in it
+            """
+            CREATE OR REPLACE FUNCTION categories_search_vector_trigger() RETURNS trigger LANGUAGE plpgsql AS $$
+            BEGIN
+                UPDATE products
+                SET search_vector = products_search_vector(name, brand, category_id, sku)
+                WHERE category_id = NEW.id;
+                RETURN NULL;
+            END
+            $$
+            """,
+
+            "DROP TRIGGER IF EXISTS trg_categories_search_vector ON categories",
+
+            """
+            CREATE TRIGGER trg_categories_search_vector
+            AFTER UPDATE OF name ON categories
+            FOR EACH ROW WHEN (OLD.name IS DISTINCT FROM NEW.name)
+            EXECUTE FUNCTION categories_search_vector_trigger()
+            """,
+
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)",
+
+            // Backfill rows written before the trigger existed
+            """
+            UPDATE products
+            SET search_vector = products_search_vector(name, brand, category_id, sku)
+            WHERE search_vector IS NULL
+            """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.products.search.mode:FULL_TEXT}")
+    private ProductSearchMode searchMode;
+
+    private volatile boolean available;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (searchMode == ProductSearchMode.LIKE) {
+            log.info("Product search mode is {}, skipping full-text schema setup", searchMode);
+            return;
+        }
+
+        try {
+            STATEMENTS.forEach(jdbcTemplate::execute);
+            available = true;
+            log.info("Product full-text search schema is ready");
+        } catch (Exception e) {
+            log.error("Failed to set up product full-text search, falling back to LIKE search - Error: {}",
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether the full-text objects were installed and can be queried
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+}
@@ -1,5 +1,8 @@
 package com.pasi.product_service.config;
 
+import com.pasi.product_service.messaging.EventCodec;
+import com.pasi.product_service.messaging.JsonEventCodec;
+import com.pasi.product_service.messaging.SmileBatchEventCodec;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
@@ -44,6 +47,20 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    /**
+     * Wire format of outgoing events: "json" (one message per event) or "smile" (batched binary)
+     */
+    @Bean
+    public EventCodec eventCodec(@Value("${app.rabbitmq.codec:json}") String codec,
+                                 @Value("${app.rabbitmq.codec.max-batch-size:500}") int maxBatchSize,
+                                 @Value("${app.rabbitmq.codec.compress-threshold:4096}") int compressThreshold) {
+        return switch (codec.toLowerCase()) {
+            case "json" -> new JsonEventCodec(messageConverter());
+            case "smile" -> new SmileBatchEventCodec(maxBatchSize, compressThreshold);
+            default -> throw new IllegalArgumentException("Unknown app.rabbitmq.codec: " + codec + ", expected json or smile");
+        };
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
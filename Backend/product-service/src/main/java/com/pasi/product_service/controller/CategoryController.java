@@ -2,6 +2,7 @@ package com.pasi.product_service.controller;
 
 import com.pasi.product_service.exception.InvalidInputException;
 import com.pasi.product_service.dto.CategoryDTO;
+import com.pasi.product_service.dto.WatermarkDTO;
 import com.pasi.product_service.exception.DuplicateResourceException;
 import com.pasi.product_service.exception.InternalServerException;
 import com.pasi.product_service.exception.ResourceNotFoundException;
@@ -13,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -69,9 +71,15 @@ public class CategoryController extends ProductAbstractController {
      * Admin can view all categories
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllCategories()
+    public ResponseEntity<Map<String, Object>> getAllCategories(WebRequest webRequest)
             throws InternalServerException {
         log.info("Request to get all categories");
+        // The fingerprint hashes every row's id and updatedAt, so it catches inserts, edits and deletes
+        WatermarkDTO watermark = categoryService.getCategoriesWatermark();
+        String etag = "categories-" + watermark.getCount() + "-" + watermark.getFingerprint();
+        if (isNotModified(webRequest, etag, null)) {
+            return null;
+        }
         ResponseEntity<List<CategoryDTO>> categories = categoryService.getAllCategories();
         return sendSuccessResponse(categories.getBody(), "Categories retrieved successfully");
     }
@@ -81,10 +89,17 @@ public class CategoryController extends ProductAbstractController {
      * Get category by ID
      */
     @GetMapping("/{categoryId}")
-    public ResponseEntity<Map<String, Object>> getCategoryById(@PathVariable Long categoryId) 
+    public ResponseEntity<Map<String, Object>> getCategoryById(@PathVariable Long categoryId, WebRequest webRequest)
             throws ResourceNotFoundException, InternalServerException, InvalidInputException, IllegalStateException {
         log.info("Request to get category by ID: {}", categoryId);
         ResponseEntity<CategoryDTO> category = categoryService.getCategoryById(categoryId);
+        CategoryDTO body = category.getBody();
+        if (body != null) {
+            String etag = "category-" + categoryId + "-" + versionTag(body.getUpdatedAt());
+            if (isNotModified(webRequest, etag, body.getUpdatedAt())) {
+                return null;
+            }
+        }
         return sendSuccessResponse(category.getBody(), "Category retrieved successfully");
     }
 }
\ No newline at end of file
@@ -5,8 +5,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 
 @SuppressWarnings("ALL")
@@ -115,6 +117,26 @@ public abstract class ProductAbstractController {
         return (ResponseEntity<T>) new ResponseEntity<>(result, HttpStatus.UNAUTHORIZED);
     }
 
+    // Checks If-None-Match / If-Modified-Since; when true the 304 status and validators are already set
+    protected boolean isNotModified(WebRequest webRequest, String etag, LocalDateTime lastModified) {
+        if (lastModified == null) {
+            return webRequest.checkNotModified(etag);
+        }
+        return webRequest.checkNotModified(etag, toEpochMillis(lastModified));
+    }
+
+    // Compact, order-preserving token for a timestamp, used to build ETags
+    protected static String versionTag(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return "0";
+        }
+        return Long.toString(toEpochMillis(timestamp), 36) + "." + Integer.toString(timestamp.getNano() % 1_000_000, 36);
+    }
+
+    protected static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     // Helper method for input validation
     protected boolean isValidSearchValue(String searchValue) {
         return searchValue != null && 
@@ -1,20 +1,36 @@
 package com.pasi.product_service.controller;
 
+import com.pasi.product_service.dto.OutboxStatsDTO;
+import com.pasi.product_service.dto.ProductBatchDTO;
+import com.pasi.product_service.dto.ProductBatchRequestDTO;
+import com.pasi.product_service.dto.ProductCacheStatsDTO;
 import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductFacetsDTO;
+import com.pasi.product_service.dto.ProductImportReportDTO;
+import com.pasi.product_service.dto.ProductPageDTO;
+import com.pasi.product_service.dto.ProductSearchIndexStatsDTO;
 import com.pasi.product_service.dto.ReviewStatusDTO;
 import com.pasi.product_service.entity.Product;
+import com.pasi.product_service.service.CatalogSnapshotService;
+import com.pasi.product_service.service.ProductImportService;
 import com.pasi.product_service.service.ProductService;
-import com.sysco.product_service.exception.*;
+import com.pasi.product_service.exception.*;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -22,18 +38,48 @@ import java.util.Map;
 @Slf4j
 public class ProductController extends ProductAbstractController {
 
+    private static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final ProductService productService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductImportService productImportService;
 
     /**
-     * GET /api/v1/products
+     * GET /api/v1/products/approved?fields={fields}
      * Customer/Supplier/Data Steward - All parties can view approved list of items
      */
     @GetMapping("approved")
-    public ResponseEntity<Map<String, Object>> getAllApprovedProducts() 
-            throws InternalServerException {
+    public ResponseEntity<?> getAllApprovedProducts(
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) throws InvalidInputException, InternalServerException {
         log.info("Request to get all approved products");
+        if (fields != null) {
+            ResponseEntity<List<Map<String, Object>>> products =
+                    productService.getProductFields(fields, Product.Status.APPROVED, null);
+            return sendSuccessResponse(products.getBody(), CatalogSnapshotService.APPROVED_PRODUCTS_MESSAGE);
+        }
+        Optional<CatalogSnapshotService.EncodedPayload> snapshot = catalogSnapshotService.getApprovedProducts();
+        if (snapshot.isPresent()) {
+            return sendPreEncodedResponse(snapshot.get(), acceptEncoding);
+        }
         ResponseEntity<List<ProductDTO>> products = productService.getAllApprovedProducts();
-        return sendSuccessResponse(products.getBody(), "Approved products retrieved successfully");
+        return sendSuccessResponse(products.getBody(), CatalogSnapshotService.APPROVED_PRODUCTS_MESSAGE);
+    }
+
+    /**
+     * GET /api/v1/products/approved/page?cursor={cursor}&size={size}
+     * Customer/Supplier/Data Steward - Browse approved items one keyset page at a time
+     */
+    @GetMapping("approved/page")
+    public ResponseEntity<Map<String, Object>> getApprovedProductsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size
+    ) throws InvalidInputException, InternalServerException {
+        log.info("Request to get approved products page with size: {}", size);
+        ResponseEntity<ProductPageDTO> page = productService.getApprovedProductsPage(cursor, size);
+        return sendSuccessResponse(page.getBody(), "Approved products page retrieved successfully");
     }
 
     /**
@@ -41,13 +87,35 @@ public class ProductController extends ProductAbstractController {
      * Customer/Supplier - Can view product details by product_id
      */
     @GetMapping("/{productId}")
-    public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long productId
+    public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long productId, WebRequest webRequest
     ) throws ProductNotFoundException, InvalidInputException, InternalServerException {
         log.info("Request to get product by ID: {}", productId);
         ResponseEntity<ProductDTO> product = productService.getProductById(productId);
+        ProductDTO body = product.getBody();
+        if (body != null) {
+            // The hash covers the category name, which can change without touching the product row,
+            // so updatedAt is no Last-Modified and only the ETag is checked
+            String etag = "product-" + productId + "-" + versionTag(body.getUpdatedAt())
+                    + "-" + Integer.toHexString(body.hashCode());
+            if (isNotModified(webRequest, etag, null)) {
+                return null;
+            }
+        }
         return sendSuccessResponse(product.getBody(), "Product retrieved successfully");
     }
 
+    /**
+     * POST /api/v1/products/batch
+     * Customer/BFF - Resolve many products by ids or by skus in one call; unknown keys are listed as missing
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> getProductsBatch(@RequestBody ProductBatchRequestDTO batchRequest
+    ) throws InvalidInputException, InternalServerException {
+        log.info("Request to get product batch");
+        ResponseEntity<ProductBatchDTO> batch = productService.getProductsBatch(batchRequest);
+        return sendSuccessResponse(batch.getBody(), "Products retrieved successfully");
+    }
+
     /**
      * GET /api/v1/products?search={search_value}
      * Customer/Admin - Can search product by product_name, category_name
@@ -74,15 +142,80 @@ public class ProductController extends ProductAbstractController {
     }
 
     /**
-     * GET /api/v1/products/categories/{category_name}
+     * GET /api/v1/products/facets?search={search_value}&category={category}&brand={brand}&price={bucket}
+     * Customer - Category, brand and price bucket counts of approved items for a search and filters
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<Map<String, Object>> getProductFacets(
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "brand", required = false) String brand,
+            @RequestParam(value = "price", required = false) String price
+    ) throws InvalidInputException, InternalServerException {
+        log.info("Request to get product facets for search: {}, category: {}, brand: {}, price: {}",
+                search, category, brand, price);
+        ResponseEntity<ProductFacetsDTO> facets = productService.getProductFacets(search, category, brand, price);
+        return sendSuccessResponse(facets.getBody(), "Product facets retrieved successfully");
+    }
+
+    /**
+     * GET /api/v1/products/search-index/stats
+     * Admin - Size and memory footprint of the in-memory product search index
+     */
+    @GetMapping("/search-index/stats")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        log.info("Request to get product search index stats");
+        ResponseEntity<ProductSearchIndexStatsDTO> stats = productService.getSearchIndexStats();
+        return sendSuccessResponse(stats.getBody(), "Search index stats retrieved successfully");
+    }
+
+    /**
+     * GET /api/v1/products/cache/stats
+     * Admin - Hit, miss and eviction counters of the product-by-id cache
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        log.info("Request to get product cache stats");
+        ResponseEntity<ProductCacheStatsDTO> stats = productService.getProductCacheStats();
+        return sendSuccessResponse(stats.getBody(), "Product cache stats retrieved successfully");
+    }
+
+    /**
+     * GET /api/v1/products/outbox/stats
+     * Admin - Pending ProductCreatedEvents and relay lag of the transactional outbox
+     */
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        log.info("Request to get product outbox stats");
+        ResponseEntity<OutboxStatsDTO> stats = productService.getOutboxStats();
+        return sendSuccessResponse(stats.getBody(), "Outbox stats retrieved successfully");
+    }
+
+    /**
+     * GET /api/v1/products/categories/{category_name}?fields={fields}
      * Customer - Can view products by category_name
      */
     @GetMapping("/categories/{categoryName}")
-    public ResponseEntity<Map<String, Object>> getProductsByCategoryName(@PathVariable String categoryName)
-            throws InvalidInputException, InternalServerException {
+    public ResponseEntity<?> getProductsByCategoryName(
+            @PathVariable String categoryName,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) throws InvalidInputException, InternalServerException {
         log.info("Request to get products by category: {}", categoryName);
+        if (categoryName != null && !categoryName.trim().isEmpty()) {
+            if (fields != null) {
+                ResponseEntity<List<Map<String, Object>>> products =
+                        productService.getProductFields(fields, Product.Status.APPROVED, categoryName.trim());
+                return sendSuccessResponse(products.getBody(), CatalogSnapshotService.CATEGORY_PRODUCTS_MESSAGE);
+            }
+            Optional<CatalogSnapshotService.EncodedPayload> snapshot =
+                    catalogSnapshotService.getProductsByCategoryName(categoryName);
+            if (snapshot.isPresent()) {
+                return sendPreEncodedResponse(snapshot.get(), acceptEncoding);
+            }
+        }
         ResponseEntity<List<ProductDTO>> products = productService.getProductsByCategoryName(categoryName);
-        return sendSuccessResponse(products.getBody(), "Products retrieved by category successfully");
+        return sendSuccessResponse(products.getBody(), CatalogSnapshotService.CATEGORY_PRODUCTS_MESSAGE);
     }
 
     /**
@@ -97,6 +230,25 @@ public class ProductController extends ProductAbstractController {
         return sendCreatedResponse(createdProduct.getBody(), "Product successfully created and submitted for review");
     }
 
+    /**
+     * POST /api/v1/products/import
+     * Supplier - Bulk add products for review from a CSV (with header row) or NDJSON body
+     */
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Map<String, Object>> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws InvalidInputException, InternalServerException {
+        log.info("Request to bulk import products as {}", contentType);
+        ResponseEntity<ProductImportReportDTO> report =
+                MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                        ? productImportService.importNdjson(body)
+                        : productImportService.importCsv(body);
+        ProductImportReportDTO summary = report.getBody();
+        return sendSuccessResponse(summary, "Imported " + summary.getImported() + " of "
+                + summary.getTotalRows() + " products, submitted for review");
+    }
+
     /**
      * PUT /api/v1/products/{product_id}
      * Supplier - Edit product details before approval
@@ -149,24 +301,44 @@ public class ProductController extends ProductAbstractController {
     }
 
     /**
-     * GET /api/v1/products
+     * GET /api/v1/products?fields={fields}
      * Admin/Data Steward - Can view all products regardless of status
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllProducts()
-            throws InternalServerException {
+    public ResponseEntity<Map<String, Object>> getAllProducts(
+            @RequestParam(value = "fields", required = false) String fields
+    ) throws InvalidInputException, InternalServerException {
         log.info("Request to get all products (admin/data steward)");
+        if (fields != null) {
+            ResponseEntity<List<Map<String, Object>>> products = productService.getProductFields(fields, null, null);
+            return sendSuccessResponse(products.getBody(), "All products retrieved successfully");
+        }
         ResponseEntity<List<ProductDTO>> products = productService.getAllProducts();
         return sendSuccessResponse(products.getBody(), "All products retrieved successfully");
     }
 
     /**
-     * GET /api/v1/products/status/{status}
+     * GET /api/v1/products/export
+     * Admin/Data Steward - Stream the full catalog as newline-delimited JSON
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllProducts() {
+        log.info("Request to export all products (admin/data steward)");
+        StreamingResponseBody body = productService::exportAllProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * GET /api/v1/products/status/{status}?fields={fields}
      * Admin/Data Steward - Get products by status
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<Map<String, Object>> getProductsByStatus(@PathVariable String status) 
-            throws InvalidInputException, InternalServerException {
+    public ResponseEntity<Map<String, Object>> getProductsByStatus(
+            @PathVariable String status,
+            @RequestParam(value = "fields", required = false) String fields
+    ) throws InvalidInputException, InternalServerException {
         log.info("Request to get products by status: {}", status);
         
         // Validate status
@@ -176,9 +348,32 @@ public class ProductController extends ProductAbstractController {
         } catch (IllegalArgumentException e) {
             throw new InvalidInputException("Invalid status: " + status + ". Valid statuses are: PENDING, APPROVED, REJECTED");
         }
+
+        if (fields != null) {
+            ResponseEntity<List<Map<String, Object>>> products =
+                    productService.getProductFields(fields, productStatus, null);
+            return sendSuccessResponse(products.getBody(), "Products retrieved by status successfully");
+        }
         
         List<ProductDTO> products = productService.getProductsByStatus(productStatus);
         return sendSuccessResponse(products, "Products retrieved by status successfully");
     }
 
-}
\ No newline at end of file
+    // Writes a snapshot body as-is, choosing the gzip variant when the client accepts it.
+    // With the ETag set, Spring answers matching conditional GETs with 304 and no body. There is no
+    // Last-Modified: rejects, deletes and category renames change the body without a newer timestamp.
+    private ResponseEntity<byte[]> sendPreEncodedResponse(CatalogSnapshotService.EncodedPayload payload,
+                                                          String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(gzip ? payload.getEtag() + "-gzip" : payload.getEtag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(CATALOG_VERSION_HEADER, String.valueOf(payload.getVersion()));
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? payload.getGzip() : payload.getJson());
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+
+    private String value;
+
+    private Long count;
+}
@@ -0,0 +1,31 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStatsDTO {
+
+    // Events written but not yet confirmed by the broker, across all replicas
+    private Long depth;
+
+    // Age of the oldest pending event, 0 when the outbox is empty
+    private Long oldestEventAgeMs;
+
+    // The rest are counters of this replica's relay since startup
+    private Long publishedTotal;
+
+    private Long failedBatches;
+
+    // Commit-to-confirm delay of the oldest event in the last relayed batch
+    private Long lastRelayLagMs;
+
+    private LocalDateTime lastRelayAt;
+}
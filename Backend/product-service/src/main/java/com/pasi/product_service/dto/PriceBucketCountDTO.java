@@ -0,0 +1,26 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketCountDTO {
+
+    // Value to pass back as the price filter, e.g. "25-50" or "500+"
+    private String value;
+
+    // Inclusive lower bound
+    private BigDecimal min;
+
+    // Exclusive upper bound, null for the open-ended last bucket
+    private BigDecimal max;
+
+    private Long count;
+}
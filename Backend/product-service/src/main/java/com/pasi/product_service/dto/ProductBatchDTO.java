@@ -0,0 +1,21 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchDTO {
+
+    // Found products in request order, duplicates collapsed
+    private List<ProductDTO> products;
+
+    // Requested ids or skus with no matching product, in request order
+    private List<Object> missing;
+}
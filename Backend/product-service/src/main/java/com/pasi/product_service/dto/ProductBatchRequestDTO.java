@@ -0,0 +1,22 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keys of a batch lookup; exactly one of ids or skus must be given
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchRequestDTO {
+
+    private List<Long> ids;
+
+    private List<String> skus;
+}
@@ -0,0 +1,25 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCacheStatsDTO {
+
+    private Long size;
+
+    private Long hitCount;
+
+    private Long missCount;
+
+    private Double hitRate;
+
+    private Long loadCount;
+
+    private Long evictionCount;
+}
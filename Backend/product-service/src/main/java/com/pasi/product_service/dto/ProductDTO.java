@@ -4,9 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,12 +22,15 @@ public class ProductDTO {
     private Long id;
     
     @NotBlank(message = "Product name is required")
+    @Size(max = 255, message = "Product name must be at most 255 characters")
     private String name;
     
+    @Size(max = 1000, message = "Description must be at most 1000 characters")
     private String description;
     
     @NotNull(message = "Price is required")
     @Positive(message = "Price must be positive")
+    @DecimalMax(value = "99999999.99", message = "Price must be at most 99999999.99")
     private BigDecimal price;
     
     private Long categoryId; // For internal use only
@@ -34,11 +39,14 @@ public class ProductDTO {
     private String categoryName; // For user input and display
     
     @NotBlank(message = "Brand is required")
+    @Size(max = 255, message = "Brand must be at most 255 characters")
     private String brand;
     
+    @Size(max = 255, message = "Image URL must be at most 255 characters")
     private String imageUrl;
 
     @NotNull(message = "Sku code is required")
+    @Size(max = 255, message = "Sku code must be at most 255 characters")
     private String sku;
     
     @NotNull(message = "Stock quantity is required")
@@ -0,0 +1,24 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+
+    // Approved products matching the search and every filter
+    private Long total;
+
+    private List<FacetCountDTO> categories;
+
+    private List<FacetCountDTO> brands;
+
+    private List<PriceBucketCountDTO> priceBuckets;
+}
@@ -0,0 +1,27 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportReportDTO {
+
+    private Long totalRows;
+
+    private Long imported;
+
+    private Long rejected;
+
+    private Long durationMs;
+
+    private Long rowsPerSecond;
+
+    private List<ProductImportRowResultDTO> rows;
+}
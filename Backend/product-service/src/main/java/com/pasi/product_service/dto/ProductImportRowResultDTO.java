@@ -0,0 +1,30 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRowResultDTO {
+
+    public static final String IMPORTED = "IMPORTED";
+    public static final String INVALID = "INVALID";
+    public static final String DUPLICATE_SKU = "DUPLICATE_SKU";
+    public static final String FAILED = "FAILED";
+
+    // 1-based position among the data rows, not counting a CSV header
+    private Long row;
+
+    private String sku;
+
+    private String status;
+
+    // Set only for IMPORTED rows
+    private Long productId;
+
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDTO {
+
+    private List<ProductDTO> items;
+
+    private Integer size;
+
+    // Opaque cursor to pass back for the next page, null when this is the last page
+    private String nextCursor;
+
+    private boolean hasMore;
+}
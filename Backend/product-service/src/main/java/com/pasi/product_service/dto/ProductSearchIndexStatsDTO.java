@@ -0,0 +1,24 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchIndexStatsDTO {
+
+    private boolean ready;
+
+    private Integer documents;
+
+    private Integer grams;
+
+    private Long postings;
+
+    // Approximate on-heap size of the index, not an exact measurement
+    private Long estimatedBytes;
+}
@@ -0,0 +1,20 @@
+package com.pasi.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row count and fingerprint of a table, cheap enough to compute on every conditional request. The
+ * fingerprint sums a hash of every row's id and updatedAt, so it moves on any insert, edit or delete
+ * even when commits land out of timestamp order, which a newest-updatedAt watermark misses.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WatermarkDTO {
+
+    private Long count;
+
+    private String fingerprint;
+}
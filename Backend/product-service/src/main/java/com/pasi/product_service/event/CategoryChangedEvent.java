@@ -0,0 +1,23 @@
+package com.pasi.product_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * In-process notification that a category was written.
+ * Listeners should use @TransactionalEventListener so they only see committed changes.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final ChangeType changeType;
+
+    private final Long categoryId;
+}
@@ -0,0 +1,33 @@
+package com.pasi.product_service.event;
+
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * In-process notification that a product was written.
+ * Listeners should use @TransactionalEventListener so they only see committed changes.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        REVIEWED
+    }
+
+    private final ChangeType changeType;
+
+    private final Long productId;
+
+    // Latest state of the product, null when it was deleted
+    private final ProductDTO product;
+
+    public boolean isApproved() {
+        return product != null && Product.Status.APPROVED.name().equals(product.getStatus());
+    }
+}
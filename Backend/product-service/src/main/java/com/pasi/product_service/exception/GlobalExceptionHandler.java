@@ -1,6 +1,7 @@
 package com.pasi.product_service.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -144,6 +145,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(IndexNotReadyException.class)
+    public ResponseEntity<Map<String, Object>> handleIndexNotReadyException(IndexNotReadyException ex) {
+        log.warn("Index not ready: {}", ex.getMessage());
+        Map<String, Object> response = Map.of(
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "message", ex.getMessage(),
+                "error", "INDEX_NOT_READY"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+
     @ExceptionHandler(InternalServerException.class)
     public ResponseEntity<Map<String, Object>> handleInternalServerException(InternalServerException ex) {
         log.error("Internal server error: {}", ex.getMessage());
@@ -0,0 +1,7 @@
+package com.pasi.product_service.exception;
+
+public class IndexNotReadyException extends RuntimeException {
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
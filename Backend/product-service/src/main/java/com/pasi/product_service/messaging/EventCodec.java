@@ -0,0 +1,22 @@
+package com.pasi.product_service.messaging;
+
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+
+/**
+ * Turns integration events into AMQP messages. Consumers pick the matching decoder from the
+ * message content-type, so producers can switch codecs without a coordinated release.
+ */
+public interface EventCodec {
+
+    /**
+     * The content-type written on every message this codec produces
+     */
+    String contentType();
+
+    /**
+     * Encodes the events into one or more messages, preserving their order
+     */
+    List<Message> encode(List<?> events);
+}
@@ -0,0 +1,34 @@
+package com.pasi.product_service.messaging;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The original wire format: one JSON message per event, as written by Jackson2JsonMessageConverter
+ */
+public class JsonEventCodec implements EventCodec {
+
+    private final Jackson2JsonMessageConverter converter;
+
+    public JsonEventCodec(Jackson2JsonMessageConverter converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public String contentType() {
+        return MessageProperties.CONTENT_TYPE_JSON;
+    }
+
+    @Override
+    public List<Message> encode(List<?> events) {
+        List<Message> messages = new ArrayList<>(events.size());
+        for (Object event : events) {
+            messages.add(converter.toMessage(event, new MessageProperties()));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pasi.product_service.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Packs up to maxBatchSize events into one message as a Smile (binary JSON) array. Smile keeps the
+ * JSON data model, so the consumer needs no schema, but back-references repeated property names and
+ * short string values. Bodies above compressThreshold bytes are gzipped and marked with content-encoding.
+ */
+public class SmileBatchEventCodec implements EventCodec {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+    public static final String EVENT_COUNT_HEADER = "x-event-count";
+    private static final String GZIP = "gzip";
+
+    private final SmileMapper smileMapper;
+    private final int maxBatchSize;
+    private final int compressThreshold;
+
+    public SmileBatchEventCodec(int maxBatchSize, int compressThreshold) {
+        this.smileMapper = SmileMapper.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .findAndAddModules()
+                .build();
+        this.maxBatchSize = maxBatchSize;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public List<Message> encode(List<?> events) {
+        List<Message> messages = new ArrayList<>(events.size() / maxBatchSize + 1);
+        for (int from = 0; from < events.size(); from += maxBatchSize) {
+            List<?> batch = events.subList(from, Math.min(from + maxBatchSize, events.size()));
+            messages.add(toMessage(batch));
+        }
+        return messages;
+    }
+
+    private Message toMessage(List<?> batch) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(CONTENT_TYPE);
+        properties.setHeader(EVENT_COUNT_HEADER, batch.size());
+        try {
+            byte[] body = smileMapper.writeValueAsBytes(batch);
+            if (body.length > compressThreshold) {
+                body = gzip(body);
+                properties.setContentEncoding(GZIP);
+            }
+            properties.setContentLength(body.length);
+            return new Message(body, properties);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Failed to encode event batch as Smile", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(body.length / 3, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to gzip event batch", e);
+        }
+        return compressed.toByteArray();
+    }
+}
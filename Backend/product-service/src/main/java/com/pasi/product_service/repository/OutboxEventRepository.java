@@ -0,0 +1,21 @@
+package com.pasi.product_service.repository;
+
+import com.pasi.product_service.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest unclaimed events; rows locked by another relay are skipped, so replicas never share a batch
+    @Query(value = "SELECT * FROM product_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("limit") int limit);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxEvent o")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -0,0 +1,65 @@
+package com.pasi.product_service.repository;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Product attributes that can be requested through a fields= sparse fieldset.
+ * Each constant names the JSON property and the entity path it is selected from.
+ */
+public enum ProductField {
+
+    ID("id", "id"),
+    NAME("name", "name"),
+    DESCRIPTION("description", "description"),
+    PRICE("price", "price"),
+    CATEGORY_ID("categoryId", "category.id"),
+    CATEGORY_NAME("categoryName", "category.name"),
+    BRAND("brand", "brand"),
+    IMAGE_URL("imageUrl", "imageUrl"),
+    SKU("sku", "sku"),
+    STOCK_QUANTITY("stockQuantity", "stockQuantity"),
+    STATUS("status", "status"),
+    CREATED_AT("createdAt", "createdAt"),
+    UPDATED_AT("updatedAt", "updatedAt");
+
+    /**
+     * What a product listing card renders
+     */
+    public static final Set<ProductField> SUMMARY = EnumSet.of(ID, NAME, PRICE, BRAND, IMAGE_URL, SKU);
+
+    private static final Map<String, ProductField> BY_PROPERTY = Stream.of(values())
+            .collect(Collectors.toUnmodifiableMap(field -> field.property.toLowerCase(Locale.ROOT), Function.identity()));
+
+    private final String property;
+    private final String path;
+
+    ProductField(String property, String path) {
+        this.property = property;
+        this.path = path;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isCategoryField() {
+        return path.startsWith("category.");
+    }
+
+    /**
+     * Looks up a field by its JSON property name, ignoring case; returns null for unknown names
+     */
+    public static ProductField fromProperty(String property) {
+        return property == null ? null : BY_PROPERTY.get(property.trim().toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,19 +1,33 @@
 package com.pasi.product_service.repository;
 
 import com.pasi.product_service.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     boolean existsBySku(String sku);
 
+    // Set-based counterpart of existsBySku for bulk imports
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
 //     Optional<Product> findBySku(String sku);
 
     List<Product> findByStatus(Product.Status status);
@@ -38,6 +52,26 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> searchProductsByStatus(@Param("searchValue") String searchValue, 
                                        @Param("status") Product.Status status);
 
+    // Ranked full-text search over the trigger-maintained search_vector column (GIN indexed)
+    @Query(value = "SELECT p.id FROM products p, websearch_to_tsquery('simple', :searchValue) q " +
+           "WHERE p.search_vector @@ q " +
+           "ORDER BY ts_rank(p.search_vector, q) DESC, p.id ASC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<Long> searchProductIdsByRank(@Param("searchValue") String searchValue, @Param("limit") int limit);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Resolves skus to ids without loading the products, so sku lookups can go through the id cache
+    @Query("SELECT p.id AS id, p.sku AS sku FROM Product p WHERE p.sku IN :skus")
+    List<ProductSkuView> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+
+    interface ProductSkuView {
+        Long getId();
+
+        String getSku();
+    }
+
 //     // Find products by category name
 //     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c WHERE LOWER(c.name) = LOWER(:categoryName)")
 //     List<Product> findByCategoryName(@Param("categoryName") String categoryName);
@@ -50,6 +84,18 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.status = 'APPROVED'")
     List<Product> findAllApprovedProducts();
 
+    // Keyset page of approved products, ordered by id and starting after the given id
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.status = 'APPROVED' AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findApprovedProductsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Server-side cursor over the whole catalog for streaming exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category ORDER BY p.id ASC")
+    Stream<Product> streamAllWithCategory();
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id")
     Optional<Product> findByIdWithCategory(@Param("id") Long id);
 
@@ -0,0 +1,16 @@
+package com.pasi.product_service.repository;
+
+import com.pasi.product_service.entity.Product;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Selects only the given columns as a tuple projection, without hydrating Product entities.
+     * Rows come back in id order as property-name to value maps; null filters are ignored.
+     */
+    List<Map<String, Object>> findProjected(Set<ProductField> fields, Product.Status status, String categoryName);
+}
@@ -0,0 +1,76 @@
+package com.pasi.product_service.repository;
+
+import com.pasi.product_service.entity.Category;
+import com.pasi.product_service.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findProjected(Set<ProductField> fields, Product.Status status, String categoryName) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+
+        // Join categories only when a category column or filter needs it
+        boolean needsCategory = categoryName != null || fields.stream().anyMatch(ProductField::isCategoryField);
+        Join<Product, Category> category = needsCategory ? product.join("category", JoinType.LEFT) : null;
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (ProductField field : fields) {
+            Path<?> path = field.isCategoryField()
+                    ? category.get(field.getPath().substring("category.".length()))
+                    : product.get(field.getPath());
+            selections.add(path.alias(field.getProperty()));
+        }
+        query.multiselect(selections);
+
+        List<Predicate> predicates = new ArrayList<>(2);
+        if (status != null) {
+            predicates.add(cb.equal(product.get("status"), status));
+        }
+        if (categoryName != null) {
+            predicates.add(cb.equal(cb.lower(category.get("name")), categoryName.toLowerCase()));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.asc(product.get("id")));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultList();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            int index = 0;
+            for (ProductField field : fields) {
+                row.put(field.getProperty(), tuple.get(index++));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
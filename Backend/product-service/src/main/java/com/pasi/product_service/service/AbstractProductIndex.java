@@ -0,0 +1,139 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lifecycle shared by the in-process product indexes: one full build from the database at startup,
+ * then incremental updates from committed product changes. Changes that commit before the build has
+ * swapped its snapshot in are buffered and replayed right after it, under the same write lock, so
+ * none is lost to the window between the snapshot query and the index going live. Replaying a change
+ * the snapshot already has is harmless, since every change sets or removes a whole document.
+ */
+@Slf4j
+public abstract class AbstractProductIndex {
+
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by the write lock; null once the index is live, or when it will never be built
+    private List<Runnable> bufferedChanges = new ArrayList<>();
+    private volatile boolean ready;
+
+    protected abstract String name();
+
+    protected abstract boolean isEnabled();
+
+    /**
+     * Every product the index should hold, read in the build's transaction
+     */
+    protected abstract List<ProductDTO> loadSnapshot();
+
+    /**
+     * Whether the product in a change belongs in the index, otherwise it is removed from it
+     */
+    protected abstract boolean includes(ProductChangedEvent event);
+
+    protected abstract void clearLocked();
+
+    protected abstract void indexLocked(ProductDTO product);
+
+    protected abstract void removeLocked(int docId);
+
+    // Runs once the snapshot and the buffered changes are in, before the index goes live
+    protected void afterBuildLocked() {
+    }
+
+    // Sizes for the build log line
+    protected abstract String describeLocked();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        if (!isEnabled()) {
+            stopBuffering();
+            log.info("In-memory {} disabled", name());
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        List<ProductDTO> snapshot;
+        try {
+            snapshot = loadSnapshot();
+        } catch (RuntimeException e) {
+            stopBuffering();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            snapshot.forEach(this::indexLocked);
+            List<Runnable> changes = bufferedChanges;
+            bufferedChanges = null;
+            changes.forEach(Runnable::run);
+            afterBuildLocked();
+            ready = true;
+
+            log.info("Built {} with {} in {} ms, {} changes replayed", name(), describeLocked(),
+                    (System.nanoTime() - startedAt) / 1_000_000, changes.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        applyChange(() -> {
+            if (includes(event)) {
+                indexLocked(event.getProduct());
+            } else {
+                removeLocked(toDocId(event.getProductId()));
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Applies a change under the write lock once the index is live, and buffers it until then
+     */
+    protected void applyChange(Runnable changeLocked) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                changeLocked.run();
+            } else if (bufferedChanges != null) {
+                bufferedChanges.add(changeLocked);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected static int toDocId(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    private void stopBuffering() {
+        lock.writeLock().lock();
+        try {
+            bufferedChanges = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
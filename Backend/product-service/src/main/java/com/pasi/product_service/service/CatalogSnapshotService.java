@@ -0,0 +1,224 @@
+package com.pasi.product_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.event.CategoryChangedEvent;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, versioned snapshot of the approved catalog with the response envelopes of
+ * GET /approved and GET /categories/{categoryName} already encoded as JSON and gzip bytes.
+ * Product and category writes schedule an off-thread rebuild; readers see either the old or
+ * the new snapshot through a single atomic reference swap.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    public static final String APPROVED_PRODUCTS_MESSAGE = "Approved products retrieved successfully";
+    public static final String CATEGORY_PRODUCTS_MESSAGE = "Products retrieved by category successfully";
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong versions = new AtomicLong();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  ProductMapper productMapper,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.products.catalog-snapshot.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            requestRebuild();
+        } else {
+            log.info("Catalog snapshot disabled, catalog reads go to the database");
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Only approved products are in the snapshot; a review may also move one out of it
+        if (event.isApproved() || event.getChangeType() == ProductChangedEvent.ChangeType.REVIEWED) {
+            requestRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        requestRebuild();
+    }
+
+    /**
+     * Schedules a rebuild unless one is already queued. The flag is cleared before the rebuild reads
+     * the database, so a write that lands mid-rebuild always schedules another one.
+     */
+    public void requestRebuild() {
+        if (enabled && rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    public Optional<EncodedPayload> getApprovedProducts() {
+        CatalogSnapshot snapshot = current.get();
+        return snapshot == null ? Optional.empty() : Optional.of(snapshot.approvedProducts);
+    }
+
+    public Optional<EncodedPayload> getProductsByCategoryName(String categoryName) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.productsByCategory.getOrDefault(
+                normalizeCategoryName(categoryName), snapshot.emptyCategory));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void rebuild() {
+        try {
+            long startedAt = System.nanoTime();
+            List<ProductDTO> approvedProducts = transactionTemplate.execute(status ->
+                    productRepository.findAllApprovedProducts().stream()
+                            .map(productMapper::toCreatedProduct)
+                            .toList());
+
+            long version = versions.incrementAndGet();
+            Map<String, List<ProductDTO>> grouped = approvedProducts.stream()
+                    .filter(product -> product.getCategoryName() != null)
+                    .collect(Collectors.groupingBy(product -> normalizeCategoryName(product.getCategoryName())));
+
+            Map<String, EncodedPayload> productsByCategory = new HashMap<>();
+            for (Map.Entry<String, List<ProductDTO>> entry : grouped.entrySet()) {
+                productsByCategory.put(entry.getKey(), encode(version, entry.getValue(), CATEGORY_PRODUCTS_MESSAGE));
+            }
+
+            CatalogSnapshot snapshot = new CatalogSnapshot(
+                    encode(version, approvedProducts, APPROVED_PRODUCTS_MESSAGE),
+                    Map.copyOf(productsByCategory),
+                    encode(version, List.of(), CATEGORY_PRODUCTS_MESSAGE));
+            current.set(snapshot);
+
+            log.info("Catalog snapshot v{} built with {} products in {} categories ({} bytes, {} gzipped) in {} ms",
+                    version, approvedProducts.size(), productsByCategory.size(),
+                    snapshot.approvedProducts.getJson().length, snapshot.approvedProducts.getGzip().length,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next write schedules another attempt
+            log.error("Failed to rebuild catalog snapshot - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    private EncodedPayload encode(long version, List<ProductDTO> products, String message) throws IOException {
+        // Same envelope as ProductAbstractController.sendSuccessResponse
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("status", HttpStatus.OK.value());
+        envelope.put("message", message);
+        envelope.put("data", products);
+
+        byte[] json = objectMapper.writeValueAsBytes(envelope);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(Math.max(json.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(json);
+        }
+
+        return new EncodedPayload(version, LocalDateTime.now(), contentEtag(json), json, gzipped.toByteArray());
+    }
+
+    // Derived from the bytes rather than the version counter so it survives restarts and matches across replicas
+    private static String contentEtag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalizeCategoryName(String categoryName) {
+        return categoryName == null ? "" : categoryName.toLowerCase(Locale.ROOT);
+    }
+
+    private record CatalogSnapshot(EncodedPayload approvedProducts,
+                                   Map<String, EncodedPayload> productsByCategory,
+                                   EncodedPayload emptyCategory) {
+    }
+
+    /**
+     * One pre-encoded response body; the arrays are shared and must not be modified
+     */
+    @Getter
+    public static final class EncodedPayload {
+        private final long version;
+        private final LocalDateTime builtAt;
+        private final String etag;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private EncodedPayload(long version, LocalDateTime builtAt, String etag, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.etag = etag;
+            this.json = json;
+            this.gzip = gzip;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.pasi.product_service.service;
 
 import com.pasi.product_service.dto.CategoryDTO;
+import com.pasi.product_service.dto.WatermarkDTO;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
@@ -11,6 +12,8 @@ public interface CategoryService {
     
     ResponseEntity<List<CategoryDTO>> getAllCategories();
     
+    WatermarkDTO getCategoriesWatermark();
+    
     ResponseEntity<CategoryDTO> getCategoryById(Long id);
     
     ResponseEntity<CategoryDTO> updateCategory(Long id, CategoryDTO categoryDTO);
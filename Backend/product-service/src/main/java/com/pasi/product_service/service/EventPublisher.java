@@ -1,18 +1,23 @@
 package com.pasi.product_service.service;
 
 import com.pasi.product_service.dto.ProductCreatedEvent;
+import com.pasi.product_service.messaging.EventCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventPublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final EventCodec eventCodec;
 
     @Value("${app.rabbitmq.exchange}")
     private String exchange;
@@ -20,6 +25,9 @@ public class EventPublisher {
     @Value("${app.rabbitmq.product.routing-key}")
     private String productRoutingKey;
 
+    @Value("${app.rabbitmq.confirm-timeout:5000}")
+    private long confirmTimeoutMs;
+
     /**
      * Publishes a ProductCreatedEvent to RabbitMQ
      * This will trigger inventory creation in the inventory-service
@@ -29,7 +37,9 @@ public class EventPublisher {
             log.info("Publishing ProductCreatedEvent for SKU: {} to exchange: {} with routing key: {}", 
                     event.getSku(), exchange, productRoutingKey);
             
-            rabbitTemplate.convertAndSend(exchange, productRoutingKey, event);
+            for (Message message : eventCodec.encode(List.of(event))) {
+                rabbitTemplate.send(exchange, productRoutingKey, message);
+            }
             
             log.info("Successfully published ProductCreatedEvent for SKU: {} with Product ID: {}", 
                     event.getSku(), event.getProductId());
@@ -44,4 +54,31 @@ public class EventPublisher {
             throw new RuntimeException("Failed to publish product created event", e);
         }
     }
+
+    /**
+     * Publishes many ProductCreatedEvents over a single channel and waits for the broker to confirm all of them.
+     * Depending on the codec they travel as one message each or packed into a few batch messages.
+     * Requires spring.rabbitmq.publisher-confirm-type=simple; throws if any message is nacked or not confirmed in time.
+     */
+    public void publishProductCreatedEvents(List<ProductCreatedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            List<Message> messages = eventCodec.encode(events);
+            rabbitTemplate.invoke(operations -> {
+                for (Message message : messages) {
+                    operations.send(exchange, productRoutingKey, message);
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+            log.info("Successfully published {} confirmed ProductCreatedEvents in {} {} messages to exchange: {}",
+                    events.size(), messages.size(), eventCodec.contentType(), exchange);
+
+        } catch (Exception e) {
+            log.error("Failed to publish batch of {} ProductCreatedEvents - Error: {}", events.size(), e.getMessage(), e);
+            throw new RuntimeException("Failed to publish product created events", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.pasi.product_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pasi.product_service.dto.OutboxStatsDTO;
+import com.pasi.product_service.dto.ProductCreatedEvent;
+import com.pasi.product_service.entity.OutboxEvent;
+import com.pasi.product_service.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains the product outbox to RabbitMQ. Each batch is claimed with FOR UPDATE SKIP LOCKED, published
+ * over one channel, and deleted only after the broker confirms every message, all in one transaction.
+ * A crash or a nack rolls the claim back and the batch is retried, so delivery is at-least-once and
+ * several replicas can run the relay side by side.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final AtomicLong publishedTotal = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong lastRelayLagMs = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRelayAt = new AtomicReference<>();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       EventPublisher eventPublisher,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${app.products.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${app.products.outbox.relay.batch-size:200}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.products.outbox.relay.interval:200}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Keep draining while batches come back full
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("Failed to relay product outbox batch, it will be retried - Error: {}", e.getMessage(), e);
+        }
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.claimBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<ProductCreatedEvent> events = new ArrayList<>(batch.size());
+            for (OutboxEvent outboxEvent : batch) {
+                ProductCreatedEvent event = toProductCreatedEvent(outboxEvent);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+
+            // Throws on nack or confirm timeout, which rolls back the claim
+            eventPublisher.publishProductCreatedEvents(events);
+            outboxEventRepository.deleteAllInBatch(batch);
+
+            LocalDateTime now = LocalDateTime.now();
+            lastRelayLagMs.set(Duration.between(batch.get(0).getCreatedAt(), now).toMillis());
+            lastRelayAt.set(now);
+            publishedTotal.addAndGet(events.size());
+            return batch.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private ProductCreatedEvent toProductCreatedEvent(OutboxEvent outboxEvent) {
+        if (!OutboxService.PRODUCT_CREATED.equals(outboxEvent.getEventType())) {
+            log.error("Dropping outbox event {} with unknown type: {}", outboxEvent.getId(), outboxEvent.getEventType());
+            return null;
+        }
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), ProductCreatedEvent.class);
+        } catch (JsonProcessingException e) {
+            // Retrying cannot fix a payload we cannot read, so it must not block the events behind it
+            log.error("Dropping unreadable outbox event {} for aggregate {} - Error: {}",
+                    outboxEvent.getId(), outboxEvent.getAggregateId(), e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    public OutboxStatsDTO getStats() {
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+        return OutboxStatsDTO.builder()
+                .depth(outboxEventRepository.count())
+                .oldestEventAgeMs(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis())
+                .publishedTotal(publishedTotal.get())
+                .failedBatches(failedBatches.get())
+                .lastRelayLagMs(lastRelayLagMs.get())
+                .lastRelayAt(lastRelayAt.get())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.pasi.product_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pasi.product_service.dto.ProductCreatedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes integration events to the product_outbox table inside the caller's transaction, so an event
+ * exists exactly when the change it describes was committed. OutboxRelay publishes them afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    public static final String PRODUCT_CREATED = "ProductCreated";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product_outbox (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueProductCreated(ProductCreatedEvent event) {
+        enqueueProductCreated(List.of(event));
+    }
+
+    /**
+     * Adds all events with one batched INSERT
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueProductCreated(List<ProductCreatedEvent> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (ProductCreatedEvent event : events) {
+            rows.add(new Object[]{event.getProductId(), PRODUCT_CREATED, toJson(event), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        log.debug("Enqueued {} ProductCreatedEvents in the outbox", events.size());
+    }
+
+    private String toJson(ProductCreatedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize ProductCreatedEvent for SKU: " + event.getSku(), e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.pasi.product_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pasi.product_service.dto.ProductCacheStatsDTO;
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.event.CategoryChangedEvent;
+import com.pasi.product_service.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of ProductDTOs keyed by product id.
+ * Caffeine gives size eviction with W-TinyLFU admission, TTL expiry and per-key load collapsing,
+ * so concurrent misses for the same id run a single database load.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private final Cache<Long, ProductDTO> cache;
+
+    public ProductCache(@Value("${app.products.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${app.products.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        log.info("Product cache configured with maximum size: {} and TTL: {}", maximumSize, expireAfterWrite);
+    }
+
+    /**
+     * Returns the cached product or loads it; a null from the loader is not cached
+     */
+    public ProductDTO get(Long productId, Function<Long, ProductDTO> loader) {
+        return cache.get(productId, loader);
+    }
+
+    /**
+     * Returns the cached products for the ids, loading all misses with one call to the bulk loader.
+     * Ids the loader does not return are absent from the result and not cached.
+     */
+    public Map<Long, ProductDTO> getAll(Iterable<Long> productIds,
+                                        Function<Set<? extends Long>, Map<Long, ProductDTO>> bulkLoader) {
+        return cache.getAll(productIds, bulkLoader);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Runs after commit so a concurrent miss cannot re-load the pre-commit row
+        invalidate(event.getProductId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Cached DTOs carry the category name, and a rename touches every product in the category
+        if (event.getChangeType() == CategoryChangedEvent.ChangeType.UPDATED) {
+            cache.invalidateAll();
+        }
+    }
+
+    public ProductCacheStatsDTO getStats() {
+        CacheStats stats = cache.stats();
+        return ProductCacheStatsDTO.builder()
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .loadCount(stats.loadCount())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
@@ -0,0 +1,321 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.FacetCountDTO;
+import com.pasi.product_service.dto.PriceBucketCountDTO;
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductFacetsDTO;
+import com.pasi.product_service.event.CategoryChangedEvent;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Roaring bitmap per facet value (category, brand, price bucket) over approved product ids.
+ * Facet counts are bitmap intersections and cardinalities, so they cost the same whatever the
+ * catalog size in rows and never touch the database. Each facet is counted against the search and
+ * the filters of the other facets, so a selected brand still shows the counts of its siblings.
+ */
+@Component
+public class ProductFacetIndex extends AbstractProductIndex {
+
+    private static final Comparator<FacetCountDTO> BY_COUNT_THEN_VALUE =
+            Comparator.comparing(FacetCountDTO::getCount).reversed().thenComparing(FacetCountDTO::getValue);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductMapper productMapper;
+    private final boolean enabled;
+
+    // Ascending upper bounds; bucket i is [bounds[i - 1], bounds[i]) and the last one is open-ended
+    private final BigDecimal[] priceBounds;
+    private final String[] priceBucketValues;
+
+    private final RoaringBitmap approved = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    // Brands are matched case-insensitively and shown as last written
+    private final Map<String, RoaringBitmap> byBrand = new HashMap<>();
+    private final Map<String, String> brandNames = new HashMap<>();
+    private final RoaringBitmap[] byPriceBucket;
+    private final Map<Integer, FacetEntry> entries = new HashMap<>();
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             CategoryRepository categoryRepository,
+                             ProductMapper productMapper,
+                             @Value("${app.products.facets.enabled:true}") boolean enabled,
+                             @Value("${app.products.facets.price-buckets:25,50,100,250,500}") List<BigDecimal> priceBounds) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productMapper = productMapper;
+        this.enabled = enabled;
+        this.priceBounds = priceBounds.stream().sorted().distinct().toArray(BigDecimal[]::new);
+        this.priceBucketValues = new String[this.priceBounds.length + 1];
+        this.byPriceBucket = new RoaringBitmap[this.priceBounds.length + 1];
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new RoaringBitmap();
+            priceBucketValues[i] = i == this.priceBounds.length
+                    ? plain(bucketMin(i)) + "+"
+                    : plain(bucketMin(i)) + "-" + plain(this.priceBounds[i]);
+        }
+    }
+
+    @Override
+    protected String name() {
+        return "product facet index";
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    protected List<ProductDTO> loadSnapshot() {
+        return productRepository.findAllApprovedProducts().stream()
+                .map(productMapper::toCreatedProduct)
+                .toList();
+    }
+
+    @Override
+    protected boolean includes(ProductChangedEvent event) {
+        return event.isApproved();
+    }
+
+    @Override
+    protected void clearLocked() {
+        approved.clear();
+        byCategory.clear();
+        categoryNames.clear();
+        byBrand.clear();
+        brandNames.clear();
+        for (RoaringBitmap bucket : byPriceBucket) {
+            bucket.clear();
+        }
+        entries.clear();
+    }
+
+    @Override
+    protected void afterBuildLocked() {
+        runOptimizeLocked();
+    }
+
+    @Override
+    protected String describeLocked() {
+        return entries.size() + " products, " + byCategory.size() + " categories, " + byBrand.size()
+                + " brands and " + byPriceBucket.length + " price buckets";
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Bitmaps are keyed by category id, so a rename only changes the label
+        if (!isEnabled() || event.getChangeType() != CategoryChangedEvent.ChangeType.UPDATED) {
+            return;
+        }
+
+        categoryRepository.findById(event.getCategoryId()).ifPresent(category -> applyChange(() -> {
+            if (categoryNames.containsKey(category.getId())) {
+                categoryNames.put(category.getId(), category.getName());
+            }
+        }));
+    }
+
+    /**
+     * Index of the price bucket with the given value (as returned in the facets), or -1 if there is none
+     */
+    public int findPriceBucket(String value) {
+        for (int i = 0; i < priceBucketValues.length; i++) {
+            if (priceBucketValues[i].equals(value.trim())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts approved products per facet value.
+     *
+     * @param searchIds   ids matching a search, or null for no search
+     * @param category    category name filter, or null
+     * @param brand       brand filter, or null
+     * @param priceBucket price bucket index filter, or null
+     */
+    public ProductFacetsDTO count(int[] searchIds, String category, String brand, Integer priceBucket) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = searchIds == null
+                    ? approved
+                    : RoaringBitmap.and(RoaringBitmap.bitmapOf(searchIds), approved);
+            RoaringBitmap categoryFilter = category == null ? null : categoryBitmapLocked(category);
+            RoaringBitmap brandFilter = brand == null ? null : byBrand.getOrDefault(brandKey(brand), new RoaringBitmap());
+            RoaringBitmap priceFilter = priceBucket == null ? null : byPriceBucket[priceBucket];
+
+            RoaringBitmap categoryBase = and(matches, brandFilter, priceFilter);
+            RoaringBitmap brandBase = and(matches, categoryFilter, priceFilter);
+            RoaringBitmap priceBase = and(matches, categoryFilter, brandFilter);
+
+            List<FacetCountDTO> categories = new ArrayList<>();
+            for (Map.Entry<Long, RoaringBitmap> entry : byCategory.entrySet()) {
+                addIfPresent(categories, categoryNames.get(entry.getKey()), RoaringBitmap.andCardinality(categoryBase, entry.getValue()));
+            }
+            categories.sort(BY_COUNT_THEN_VALUE);
+
+            List<FacetCountDTO> brands = new ArrayList<>();
+            for (Map.Entry<String, RoaringBitmap> entry : byBrand.entrySet()) {
+                addIfPresent(brands, brandNames.get(entry.getKey()), RoaringBitmap.andCardinality(brandBase, entry.getValue()));
+            }
+            brands.sort(BY_COUNT_THEN_VALUE);
+
+            List<PriceBucketCountDTO> priceBuckets = new ArrayList<>(byPriceBucket.length);
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                priceBuckets.add(PriceBucketCountDTO.builder()
+                        .value(priceBucketValues[i])
+                        .min(bucketMin(i))
+                        .max(i < priceBounds.length ? priceBounds[i] : null)
+                        .count((long) RoaringBitmap.andCardinality(priceBase, byPriceBucket[i]))
+                        .build());
+            }
+
+            long total = categoryFilter == null
+                    ? categoryBase.getLongCardinality()
+                    : RoaringBitmap.andCardinality(categoryBase, categoryFilter);
+
+            return ProductFacetsDTO.builder()
+                    .total(total)
+                    .categories(categories)
+                    .brands(brands)
+                    .priceBuckets(priceBuckets)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void indexLocked(ProductDTO product) {
+        int docId = toDocId(product.getId());
+        removeLocked(docId);
+
+        Long categoryId = product.getCategoryId();
+        String brandKey = product.getBrand() == null ? null : brandKey(product.getBrand());
+        int bucket = product.getPrice() == null ? -1 : priceBucketOf(product.getPrice());
+
+        approved.add(docId);
+        if (categoryId != null) {
+            byCategory.computeIfAbsent(categoryId, key -> new RoaringBitmap()).add(docId);
+            categoryNames.put(categoryId, product.getCategoryName());
+        }
+        if (brandKey != null) {
+            byBrand.computeIfAbsent(brandKey, key -> new RoaringBitmap()).add(docId);
+            brandNames.put(brandKey, product.getBrand().trim());
+        }
+        if (bucket >= 0) {
+            byPriceBucket[bucket].add(docId);
+        }
+        entries.put(docId, new FacetEntry(categoryId, brandKey, bucket));
+    }
+
+    @Override
+    protected void removeLocked(int docId) {
+        FacetEntry existing = entries.remove(docId);
+        if (existing == null) {
+            return;
+        }
+
+        approved.remove(docId);
+        if (existing.categoryId != null) {
+            removeFrom(byCategory, existing.categoryId, docId, categoryNames);
+        }
+        if (existing.brandKey != null) {
+            removeFrom(byBrand, existing.brandKey, docId, brandNames);
+        }
+        if (existing.priceBucket >= 0) {
+            byPriceBucket[existing.priceBucket].remove(docId);
+        }
+    }
+
+    // Drops a facet value, and its label, once no product has it
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int docId, Map<K, String> labels) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(docId);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+            labels.remove(key);
+        }
+    }
+
+    private void runOptimizeLocked() {
+        approved.runOptimize();
+        byCategory.values().forEach(RoaringBitmap::runOptimize);
+        byBrand.values().forEach(RoaringBitmap::runOptimize);
+        for (RoaringBitmap bucket : byPriceBucket) {
+            bucket.runOptimize();
+        }
+    }
+
+    private RoaringBitmap categoryBitmapLocked(String categoryName) {
+        String name = categoryName.trim();
+        for (Map.Entry<Long, String> entry : categoryNames.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().equalsIgnoreCase(name)) {
+                return byCategory.get(entry.getKey());
+            }
+        }
+        return new RoaringBitmap();
+    }
+
+    private int priceBucketOf(BigDecimal price) {
+        for (int i = 0; i < priceBounds.length; i++) {
+            if (price.compareTo(priceBounds[i]) < 0) {
+                return i;
+            }
+        }
+        return priceBounds.length;
+    }
+
+    private BigDecimal bucketMin(int bucket) {
+        return bucket == 0 ? BigDecimal.ZERO : priceBounds[bucket - 1];
+    }
+
+    private static RoaringBitmap and(RoaringBitmap base, RoaringBitmap first, RoaringBitmap second) {
+        RoaringBitmap result = base;
+        if (first != null) {
+            result = RoaringBitmap.and(result, first);
+        }
+        if (second != null) {
+            result = RoaringBitmap.and(result, second);
+        }
+        return result;
+    }
+
+    private static void addIfPresent(List<FacetCountDTO> counts, String value, long count) {
+        if (value != null && count > 0) {
+            counts.add(FacetCountDTO.builder().value(value).count(count).build());
+        }
+    }
+
+    private static String brandKey(String brand) {
+        return brand.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String plain(BigDecimal value) {
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    private record FacetEntry(Long categoryId, String brandKey, int priceBucket) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.ProductImportReportDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    // Supplier operations
+    ResponseEntity<ProductImportReportDTO> importCsv(InputStream inputStream);
+    ResponseEntity<ProductImportReportDTO> importNdjson(InputStream inputStream);
+}
@@ -0,0 +1,358 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductSearchIndexStatsDTO;
+import com.pasi.product_service.entity.Product;
+import com.pasi.product_service.event.CategoryChangedEvent;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-process n-gram inverted index over every product, whatever its status, so it returns the same
+ * products as the LIKE and FULL_TEXT searches.
+ * Every 2- and 3-character window of name, brand, category name and sku maps to a sorted int
+ * posting list of product ids. A query intersects the posting lists of its grams and then verifies
+ * the candidates with a substring check, so results match the old LIKE '%value%' semantics.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex extends AbstractProductIndex {
+
+    private static final int MIN_GRAM = 2;
+    private static final int MAX_GRAM = 3;
+    // Keeps grams from spanning two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final CategoryRepository categoryRepository;
+
+    @Value("${app.products.search.mode:FULL_TEXT}")
+    private ProductSearchMode searchMode;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Integer, IndexedProduct> documents = new HashMap<>();
+
+    @Override
+    protected String name() {
+        return "product search index";
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return searchMode == ProductSearchMode.IN_MEMORY;
+    }
+
+    @Override
+    protected List<ProductDTO> loadSnapshot() {
+        try (Stream<Product> products = productRepository.streamAllWithCategory()) {
+            return products.map(productMapper::toCreatedProduct).toList();
+        }
+    }
+
+    // Deleted products are the only ones left out
+    @Override
+    protected boolean includes(ProductChangedEvent event) {
+        return event.getProduct() != null;
+    }
+
+    @Override
+    protected void clearLocked() {
+        postings.clear();
+        documents.clear();
+    }
+
+    @Override
+    protected String describeLocked() {
+        return documents.size() + " products and " + postings.size() + " grams";
+    }
+
+    // The category name is part of each document's text, so a rename re-tokenizes the category's products
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!isEnabled() || event.getChangeType() != CategoryChangedEvent.ChangeType.UPDATED) {
+            return;
+        }
+
+        categoryRepository.findById(event.getCategoryId()).ifPresent(category -> applyChange(() -> {
+            List<ProductDTO> renamed = new ArrayList<>();
+            for (IndexedProduct document : documents.values()) {
+                ProductDTO product = document.product;
+                if (category.getId().equals(product.getCategoryId()) && !category.getName().equals(product.getCategoryName())) {
+                    renamed.add(withCategoryName(product, category.getName()));
+                }
+            }
+            renamed.forEach(this::indexLocked);
+        }));
+    }
+
+    /**
+     * Returns products whose name, brand, category or sku contains the value, in product id order
+     */
+    public List<ProductDTO> search(String value, int limit) {
+        String query = normalize(value);
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidatesLocked(query);
+            List<ProductDTO> results = new ArrayList<>(Math.min(candidates.length, limit));
+            for (int i = 0; i < candidates.length && results.size() < limit; i++) {
+                IndexedProduct document = documents.get(candidates[i]);
+                if (document.text.contains(query)) {
+                    results.add(document.product);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of every product that search would match, ascending and without a limit
+     */
+    public int[] searchIds(String value) {
+        String query = normalize(value);
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidatesLocked(query);
+            int kept = 0;
+            for (int candidate : candidates) {
+                if (documents.get(candidate).text.contains(query)) {
+                    candidates[kept++] = candidate;
+                }
+            }
+            return Arrays.copyOf(candidates, kept);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductSearchIndexStatsDTO getStats() {
+        lock.readLock().lock();
+        try {
+            long postingCount = 0;
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                postingCount += list.size;
+                // HashMap node + boxed Long key + PostingList header + int[]
+                bytes += 32 + 24 + 24 + 16 + 4L * list.ids.length;
+            }
+            for (IndexedProduct document : documents.values()) {
+                // HashMap node + boxed Integer key + IndexedProduct + text + long[] grams + DTO
+                bytes += 32 + 16 + 24 + 40 + document.text.length() + 16 + 8L * document.grams.length
+                        + estimateDtoBytes(document.product);
+            }
+
+            return ProductSearchIndexStatsDTO.builder()
+                    .ready(isReady())
+                    .documents(documents.size())
+                    .grams(postings.size())
+                    .postings(postingCount)
+                    .estimatedBytes(bytes)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void indexLocked(ProductDTO product) {
+        int docId = toDocId(product.getId());
+        removeLocked(docId);
+
+        String text = searchableText(product);
+        long[] grams = distinctGrams(text, MIN_GRAM, MAX_GRAM);
+        for (long gram : grams) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(docId);
+        }
+        documents.put(docId, new IndexedProduct(product, text, grams));
+    }
+
+    @Override
+    protected void removeLocked(int docId) {
+        IndexedProduct existing = documents.remove(docId);
+        if (existing == null) {
+            return;
+        }
+        for (long gram : existing.grams) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(docId) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    // Ids containing every gram of the query; still needs the substring check
+    private int[] candidatesLocked(String query) {
+        long[] queryGrams = query.length() < MAX_GRAM
+                ? new long[]{gramKey(query, 0, query.length())}
+                : distinctGrams(query, MAX_GRAM, MAX_GRAM);
+
+        PostingList[] lists = new PostingList[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            lists[i] = postings.get(queryGrams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // Intersect starting from the rarest gram to keep the candidate set small
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(candidates, count, lists[i]);
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    private static int intersect(int[] candidates, int count, PostingList list) {
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < count && j < list.size) {
+            if (candidates[i] == list.ids[j]) {
+                candidates[kept++] = candidates[i];
+                i++;
+                j++;
+            } else if (candidates[i] < list.ids[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    // A copy, since results already handed out may still be reading the indexed one
+    private static ProductDTO withCategoryName(ProductDTO product, String categoryName) {
+        return ProductDTO.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .categoryId(product.getCategoryId())
+                .categoryName(categoryName)
+                .brand(product.getBrand())
+                .imageUrl(product.getImageUrl())
+                .sku(product.getSku())
+                .stockQuantity(product.getStockQuantity())
+                .status(product.getStatus())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+
+    private static String searchableText(ProductDTO product) {
+        return normalize(product.getName()) + FIELD_SEPARATOR
+                + normalize(product.getBrand()) + FIELD_SEPARATOR
+                + normalize(product.getCategoryName()) + FIELD_SEPARATOR
+                + normalize(product.getSku());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] distinctGrams(String text, int minGram, int maxGram) {
+        long[] grams = new long[Math.max(text.length(), 1) * (maxGram - minGram + 1)];
+        int count = 0;
+        for (int n = minGram; n <= maxGram; n++) {
+            for (int start = 0; start + n <= text.length(); start++) {
+                if (!spansFields(text, start, n)) {
+                    grams[count++] = gramKey(text, start, n);
+                }
+            }
+        }
+
+        Arrays.sort(grams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    private static boolean spansFields(String text, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (text.charAt(i) == FIELD_SEPARATOR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Packs the gram length and up to three UTF-16 chars into one long
+    private static long gramKey(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    private static long estimateDtoBytes(ProductDTO product) {
+        long bytes = 80;
+        for (String value : new String[]{product.getName(), product.getDescription(), product.getCategoryName(),
+                product.getBrand(), product.getImageUrl(), product.getSku(), product.getStatus()}) {
+            if (value != null) {
+                bytes += 40 + value.length();
+            }
+        }
+        return bytes;
+    }
+
+    private record IndexedProduct(ProductDTO product, String text, long[] grams) {
+    }
+
+    /**
+     * Sorted, growable int array of product ids
+     */
+    private static final class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.pasi.product_service.service;
+
+/**
+ * Strategy used to answer product search requests
+ */
+public enum ProductSearchMode {
+    // Approved products only, answered from the in-process n-gram index
+    IN_MEMORY,
+    // Ranked PostgreSQL full-text search over the maintained search_vector column
+    FULL_TEXT,
+    // Legacy LOWER(col) LIKE '%value%' scan, kept as a fallback
+    LIKE
+}
@@ -1,11 +1,21 @@
 package com.pasi.product_service.service;
 
+import com.pasi.product_service.dto.OutboxStatsDTO;
+import com.pasi.product_service.dto.ProductBatchDTO;
+import com.pasi.product_service.dto.ProductBatchRequestDTO;
+import com.pasi.product_service.dto.ProductCacheStatsDTO;
 import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductFacetsDTO;
+import com.pasi.product_service.dto.ProductPageDTO;
+import com.pasi.product_service.dto.ProductSearchIndexStatsDTO;
 import com.pasi.product_service.dto.ReviewStatusDTO;
 import com.pasi.product_service.entity.Product;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     
@@ -16,9 +26,16 @@ public interface ProductService {
     
     // Customer/General operations
     ResponseEntity<ProductDTO> getProductById(Long id);
+    ResponseEntity<ProductBatchDTO> getProductsBatch(ProductBatchRequestDTO batchRequest);
     ResponseEntity<List<ProductDTO>> getAllApprovedProducts();
+    ResponseEntity<ProductPageDTO> getApprovedProductsPage(String cursor, Integer size);
     ResponseEntity<List<ProductDTO>> searchProducts(String searchValue);
+    ResponseEntity<ProductSearchIndexStatsDTO> getSearchIndexStats();
+    ResponseEntity<ProductCacheStatsDTO> getProductCacheStats();
+    ResponseEntity<OutboxStatsDTO> getOutboxStats();
     ResponseEntity<List<ProductDTO>> getProductsByCategoryName(String categoryName);
+    ResponseEntity<ProductFacetsDTO> getProductFacets(String search, String category, String brand, String price);
+    ResponseEntity<List<Map<String, Object>>> getProductFields(String fields, Product.Status status, String categoryName);
     
     // Data Steward operations
     ResponseEntity<ProductDTO> reviewProduct(ReviewStatusDTO reviewStatusDTO);
@@ -26,4 +43,5 @@ public interface ProductService {
     // Admin/Data Steward operations
     ResponseEntity<List<ProductDTO>> getAllProducts();
     List<ProductDTO> getProductsByStatus(Product.Status status);
+    long exportAllProducts(OutputStream outputStream) throws IOException;
 }
\ No newline at end of file
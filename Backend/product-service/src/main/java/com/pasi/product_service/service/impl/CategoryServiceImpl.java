@@ -1,7 +1,9 @@
 package com.pasi.product_service.service.impl;
 
 import com.pasi.product_service.dto.CategoryDTO;
+import com.pasi.product_service.dto.WatermarkDTO;
 import com.pasi.product_service.entity.Category;
+import com.pasi.product_service.event.CategoryChangedEvent;
 import com.pasi.product_service.exception.DuplicateResourceException;
 import com.pasi.product_service.exception.InternalServerException;
 import com.pasi.product_service.exception.InvalidInputException;
@@ -11,11 +13,14 @@ import com.pasi.product_service.repository.CategoryRepository;
 import com.pasi.product_service.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigInteger;
 import java.util.List;
 
 @Service
@@ -25,9 +30,15 @@ import java.util.List;
 public class CategoryServiceImpl implements CategoryService {
 
     private static final String CATEGORY_NOT_FOUND_MSG = "Category not found with ID: ";
+    // Order-independent sum of per-row hashes, so every committed change moves it
+    private static final String WATERMARK_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(hashtextextended(concat_ws(':', id, updated_at), 0)), 0) " +
+            "FROM categories";
     
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public ResponseEntity<CategoryDTO> createCategory(CategoryDTO categoryDTO) {
@@ -44,6 +55,9 @@ public class CategoryServiceImpl implements CategoryService {
             Category savedCategory = categoryRepository.save(category);
             CategoryDTO responseDTO = categoryMapper.toCreatedCategory(savedCategory);
             
+            applicationEventPublisher.publishEvent(
+                    new CategoryChangedEvent(CategoryChangedEvent.ChangeType.CREATED, savedCategory.getId()));
+            
             log.info("Category created successfully with ID: {}", savedCategory.getId());
             return new ResponseEntity<>(responseDTO, HttpStatus.CREATED);
             
@@ -76,6 +90,13 @@ public class CategoryServiceImpl implements CategoryService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public WatermarkDTO getCategoriesWatermark() {
+        return jdbcTemplate.queryForObject(WATERMARK_SQL, (rs, rowNum) ->
+                new WatermarkDTO(rs.getLong(1), new BigInteger(rs.getString(2)).toString(36)));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ResponseEntity<CategoryDTO> getCategoryById(Long id) {
@@ -127,6 +148,9 @@ public class CategoryServiceImpl implements CategoryService {
             Category updatedCategory = categoryRepository.save(existingCategory);
             CategoryDTO responseDTO = categoryMapper.toCreatedCategory(updatedCategory);
             
+            applicationEventPublisher.publishEvent(
+                    new CategoryChangedEvent(CategoryChangedEvent.ChangeType.UPDATED, updatedCategory.getId()));
+            
             log.info("Category updated successfully: {}", updatedCategory.getName());
             return new ResponseEntity<>(responseDTO, HttpStatus.OK);
             
@@ -157,6 +181,8 @@ public class CategoryServiceImpl implements CategoryService {
             }
             
             categoryRepository.delete(category);
+            applicationEventPublisher.publishEvent(
+                    new CategoryChangedEvent(CategoryChangedEvent.ChangeType.DELETED, id));
             
             log.info("Category deleted successfully with ID: {}", id);
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
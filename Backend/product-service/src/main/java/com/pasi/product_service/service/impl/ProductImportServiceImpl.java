@@ -0,0 +1,470 @@
+package com.pasi.product_service.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pasi.product_service.dto.ProductCreatedEvent;
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductImportReportDTO;
+import com.pasi.product_service.dto.ProductImportRowResultDTO;
+import com.pasi.product_service.entity.Category;
+import com.pasi.product_service.entity.Product;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.exception.InternalServerException;
+import com.pasi.product_service.exception.InvalidInputException;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import com.pasi.product_service.service.OutboxService;
+import com.pasi.product_service.service.ProductImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams CSV or NDJSON product rows into the products table chunk by chunk.
+ * Per chunk: one set query for existing SKUs, one query that draws the chunk's ids from the
+ * products identity sequence, one batched INSERT (rewritten to multi-row by the driver) in its own
+ * transaction together with the chunk's ProductCreatedEvents in the outbox. A batch the database
+ * rejects is split in halves and retried, so a bad row only fails itself and reports its own error.
+ * Categories are resolved from a map loaded once per import.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('products', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO products (id, name, description, price, category_id, brand, image_url,
+                                  stock_quantity, sku, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final List<String> CSV_REQUIRED_COLUMNS =
+            List.of("name", "price", "categoryname", "brand", "sku", "stockquantity");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final OutboxService outboxService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${app.products.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public ResponseEntity<ProductImportReportDTO> importCsv(InputStream inputStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                throw new InvalidInputException("CSV input is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<String> missingColumns = CSV_REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missingColumns.isEmpty()) {
+                throw new InvalidInputException("CSV header is missing required columns: " + String.join(", ", missingColumns));
+            }
+
+            ImportRun run = new ImportRun();
+            List<String> record;
+            while ((record = readCsvRecord(reader)) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(toProduct(record, columns));
+                } catch (NumberFormatException e) {
+                    run.addInvalid(csvValue(record, columns, "sku"), "Invalid number: " + e.getMessage());
+                }
+            }
+            return ResponseEntity.ok(run.finish());
+
+        } catch (InvalidInputException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error while importing products from CSV: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while importing products");
+        }
+    }
+
+    @Override
+    public ResponseEntity<ProductImportReportDTO> importNdjson(InputStream inputStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            ObjectReader productReader = objectMapper.readerFor(ProductDTO.class);
+            ImportRun run = new ImportRun();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(productReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    run.addInvalid(null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return ResponseEntity.ok(run.finish());
+
+        } catch (Exception e) {
+            log.error("Unexpected error while importing products from NDJSON: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while importing products");
+        }
+    }
+
+    /**
+     * State of one import: the current chunk, SKUs already taken by earlier rows and the report
+     */
+    private final class ImportRun {
+
+        private final long startedAt = System.nanoTime();
+        private final Map<String, Category> categoriesByName = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getName, Function.identity()));
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        private final Set<String> seenSkus = new HashSet<>();
+        private final List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        private final List<ProductImportRowResultDTO> results = new ArrayList<>();
+        private long rows;
+        private long imported;
+
+        void add(ProductDTO product) {
+            chunk.add(new ImportRow(++rows, product));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void addInvalid(String sku, String message) {
+            ImportRow row = new ImportRow(++rows, null);
+            row.reject(ProductImportRowResultDTO.INVALID, sku, message);
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        ProductImportReportDTO finish() {
+            flush();
+            long durationMs = Math.max((System.nanoTime() - startedAt) / 1_000_000, 1);
+            long rowsPerSecond = rows * 1000 / durationMs;
+            log.info("Imported {} of {} products in {} ms ({} rows/s)", imported, rows, durationMs, rowsPerSecond);
+            return ProductImportReportDTO.builder()
+                    .totalRows(rows)
+                    .imported(imported)
+                    .rejected(rows - imported)
+                    .durationMs(durationMs)
+                    .rowsPerSecond(rowsPerSecond)
+                    .rows(results)
+                    .build();
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            List<ImportRow> candidates = new ArrayList<>(chunk.size());
+            for (ImportRow row : chunk) {
+                if (row.result == null && validate(row)) {
+                    candidates.add(row);
+                }
+            }
+
+            // One set query per chunk instead of existsBySku per row
+            if (!candidates.isEmpty()) {
+                Set<String> existingSkus = productRepository.findExistingSkus(
+                        candidates.stream().map(row -> row.product.getSku()).toList());
+                candidates.removeIf(row -> {
+                    if (existingSkus.contains(row.product.getSku())) {
+                        row.reject(ProductImportRowResultDTO.DUPLICATE_SKU, row.product.getSku(),
+                                "Product with SKU '" + row.product.getSku() + "' already exists");
+                        return true;
+                    }
+                    return false;
+                });
+            }
+
+            if (!candidates.isEmpty()) {
+                insert(candidates);
+            }
+
+            chunk.forEach(row -> results.add(row.result));
+            chunk.clear();
+        }
+
+        private boolean validate(ImportRow row) {
+            ProductDTO product = row.product;
+            Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                row.reject(ProductImportRowResultDTO.INVALID, product.getSku(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return false;
+            }
+            Category category = categoriesByName.get(product.getCategoryName().trim());
+            if (category == null) {
+                row.reject(ProductImportRowResultDTO.INVALID, product.getSku(),
+                        "Category not found with name: " + product.getCategoryName());
+                return false;
+            }
+            if (!seenSkus.add(product.getSku())) {
+                row.reject(ProductImportRowResultDTO.DUPLICATE_SKU, product.getSku(),
+                        "SKU '" + product.getSku() + "' appears earlier in this import");
+                return false;
+            }
+            row.category = category;
+            return true;
+        }
+
+        private void insert(List<ImportRow> candidates) {
+            // Draw the whole chunk's ids in one round trip so the INSERT can be batched
+            List<Long> ids;
+            try {
+                ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, candidates.size());
+            } catch (Exception e) {
+                log.error("Failed to allocate ids for product import chunk of {} rows - Error: {}", candidates.size(), e.getMessage(), e);
+                candidates.forEach(row -> fail(row, "Could not allocate a product id, the row was not imported"));
+                return;
+            }
+            for (int i = 0; i < candidates.size(); i++) {
+                candidates.get(i).id = ids.get(i);
+            }
+            insertBatch(candidates, Timestamp.valueOf(LocalDateTime.now()));
+        }
+
+        // Each failed half costs one more transaction, so one bad row in a chunk of n adds about 2 log2(n)
+        private void insertBatch(List<ImportRow> batch, Timestamp now) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, row) -> {
+                        ProductDTO product = row.product;
+                        statement.setLong(1, row.id);
+                        statement.setString(2, product.getName());
+                        statement.setString(3, product.getDescription());
+                        statement.setBigDecimal(4, product.getPrice());
+                        statement.setLong(5, row.category.getId());
+                        statement.setString(6, product.getBrand());
+                        statement.setString(7, product.getImageUrl());
+                        statement.setInt(8, product.getStockQuantity());
+                        statement.setString(9, product.getSku());
+                        statement.setString(10, Product.Status.PENDING.name());
+                        statement.setTimestamp(11, now);
+                        statement.setTimestamp(12, now);
+                    });
+                    // Committed together with the products; OutboxRelay publishes them to RabbitMQ
+                    outboxService.enqueueProductCreated(batch.stream().map(ProductImportServiceImpl::toCreatedEvent).toList());
+                    // Delivered to the in-memory indexes only if this batch commits
+                    batch.forEach(row -> applicationEventPublisher.publishEvent(new ProductChangedEvent(
+                            ProductChangedEvent.ChangeType.CREATED, row.id, toImportedProduct(row, now))));
+                });
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                // Nothing to do with the rows, so splitting the batch would only repeat the failure
+                log.error("Failed to insert product import batch of {} rows - Error: {}", batch.size(), e.getMessage(), e);
+                batch.forEach(row -> fail(row, "Database unavailable, the row was not imported"));
+                return;
+            } catch (Exception e) {
+                if (batch.size() > 1) {
+                    int middle = batch.size() / 2;
+                    insertBatch(batch.subList(0, middle), now);
+                    insertBatch(batch.subList(middle, batch.size()), now);
+                    return;
+                }
+                // Typically a SKU inserted concurrently by another writer, or a value the column cannot hold
+                ImportRow row = batch.get(0);
+                log.warn("Failed to import product row {} with SKU {} - Error: {}", row.row, row.product.getSku(), e.getMessage());
+                if (e instanceof DuplicateKeyException) {
+                    seenSkus.remove(row.product.getSku());
+                    row.reject(ProductImportRowResultDTO.DUPLICATE_SKU, row.product.getSku(),
+                            "Product with SKU '" + row.product.getSku() + "' already exists");
+                } else {
+                    fail(row, "Insert failed: " + failureReason(e));
+                }
+                return;
+            }
+
+            for (ImportRow row : batch) {
+                row.result = ProductImportRowResultDTO.builder()
+                        .row(row.row)
+                        .sku(row.product.getSku())
+                        .status(ProductImportRowResultDTO.IMPORTED)
+                        .productId(row.id)
+                        .build();
+            }
+            imported += batch.size();
+        }
+
+        // Frees the SKU again, so a later row with it can still be imported
+        private void fail(ImportRow row, String message) {
+            seenSkus.remove(row.product.getSku());
+            row.reject(ProductImportRowResultDTO.FAILED, row.product.getSku(), message);
+        }
+    }
+
+    // The driver reports a failed batch entry as a BatchUpdateException with the actual reason chained after it
+    private static String failureReason(Exception e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (cause instanceof SQLException sqlException && sqlException.getNextException() != null) {
+            cause = sqlException.getNextException();
+        }
+        return cause.getMessage();
+    }
+
+    private static final class ImportRow {
+        private final long row;
+        private final ProductDTO product;
+        private Category category;
+        private Long id;
+        private ProductImportRowResultDTO result;
+
+        private ImportRow(long row, ProductDTO product) {
+            this.row = row;
+            this.product = product;
+        }
+
+        private void reject(String status, String sku, String message) {
+            result = ProductImportRowResultDTO.builder()
+                    .row(row)
+                    .sku(sku)
+                    .status(status)
+                    .message(message)
+                    .build();
+        }
+    }
+
+    private static ProductCreatedEvent toCreatedEvent(ImportRow row) {
+        ProductDTO product = row.product;
+        return ProductCreatedEvent.builder()
+                .productId(row.id.toString())
+                .sku(product.getSku())
+                .name(product.getName())
+                .price(product.getPrice())
+                .description(product.getDescription())
+                .brand(product.getBrand())
+                .categoryName(row.category.getName())
+                .initialQuantity(product.getStockQuantity())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static ProductDTO toImportedProduct(ImportRow row, Timestamp insertedAt) {
+        ProductDTO product = row.product;
+        return ProductDTO.builder()
+                .id(row.id)
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .categoryId(row.category.getId())
+                .categoryName(row.category.getName())
+                .brand(product.getBrand())
+                .imageUrl(product.getImageUrl())
+                .sku(product.getSku())
+                .stockQuantity(product.getStockQuantity())
+                .status(Product.Status.PENDING.name())
+                .createdAt(insertedAt.toLocalDateTime())
+                .updatedAt(insertedAt.toLocalDateTime())
+                .build();
+    }
+
+    private static ProductDTO toProduct(List<String> record, Map<String, Integer> columns) {
+        String price = csvValue(record, columns, "price");
+        String stockQuantity = csvValue(record, columns, "stockquantity");
+        return ProductDTO.builder()
+                .name(csvValue(record, columns, "name"))
+                .description(csvValue(record, columns, "description"))
+                .price(price == null ? null : new BigDecimal(price))
+                .categoryName(csvValue(record, columns, "categoryname"))
+                .brand(csvValue(record, columns, "brand"))
+                .imageUrl(csvValue(record, columns, "imageurl"))
+                .sku(csvValue(record, columns, "sku"))
+                .stockQuantity(stockQuantity == null ? null : Integer.valueOf(stockQuantity))
+                .build();
+    }
+
+    private static String csvValue(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Reads one RFC 4180 record, which may span lines inside quotes; returns null at end of input
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted || (line = reader.readLine()) == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
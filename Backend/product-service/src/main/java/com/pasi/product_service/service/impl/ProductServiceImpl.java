@@ -1,25 +1,58 @@
 package com.pasi.product_service.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pasi.product_service.config.ProductSearchSchemaInitializer;
+import com.pasi.product_service.dto.ProductBatchDTO;
+import com.pasi.product_service.dto.ProductBatchRequestDTO;
+import com.pasi.product_service.dto.OutboxStatsDTO;
+import com.pasi.product_service.dto.ProductCacheStatsDTO;
 import com.pasi.product_service.dto.ProductCreatedEvent;
 import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductFacetsDTO;
+import com.pasi.product_service.dto.ProductPageDTO;
+import com.pasi.product_service.dto.ProductSearchIndexStatsDTO;
 import com.pasi.product_service.dto.ReviewStatusDTO;
 import com.pasi.product_service.entity.Product;
-import com.sysco.product_service.exception.*;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.exception.*;
 import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.ProductField;
 import com.pasi.product_service.repository.ProductRepository;
-import com.pasi.product_service.service.EventPublisher;
+import com.pasi.product_service.service.OutboxRelay;
+import com.pasi.product_service.service.OutboxService;
+import com.pasi.product_service.service.ProductCache;
+import com.pasi.product_service.service.ProductFacetIndex;
+import com.pasi.product_service.service.ProductSearchIndex;
+import com.pasi.product_service.service.ProductSearchMode;
 import com.pasi.product_service.service.ProductService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -31,7 +64,33 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
-    private final EventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final ProductSearchSchemaInitializer searchSchemaInitializer;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCache productCache;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${app.products.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.products.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.products.export.flush-every:500}")
+    private int exportFlushEvery;
+
+    @Value("${app.products.search.mode:FULL_TEXT}")
+    private ProductSearchMode searchMode;
+
+    @Value("${app.products.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${app.products.search.max-results:50}")
+    private int searchMaxResults;
 
     // Supplier operations
     @Override
@@ -51,31 +110,23 @@ public class ProductServiceImpl implements ProductService {
             Product savedProduct = productRepository.save(product);
             log.info("Product created successfully with ID: {}", savedProduct.getId());
 
-            // Publish ProductCreatedEvent to RabbitMQ for inventory creation
-            try {
-                ProductCreatedEvent event = ProductCreatedEvent.builder()
-                        .productId(savedProduct.getId().toString())
-                        .sku(savedProduct.getSku())
-                        .name(savedProduct.getName())
-                        .price(savedProduct.getPrice())
-                        .description(savedProduct.getDescription())
-                        .brand(savedProduct.getBrand())
-                        .categoryName(savedProduct.getCategory() != null ? savedProduct.getCategory().getName() : null)
-                        .initialQuantity(savedProduct.getStockQuantity() != null ? savedProduct.getStockQuantity() : 0)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-
-                eventPublisher.publishProductCreatedEvent(event);
-                log.info("Successfully published ProductCreatedEvent for SKU: {}", savedProduct.getSku());
-                
-            } catch (Exception e) {
-                log.error("Failed to publish ProductCreatedEvent for SKU: {} - Error: {}", 
-                         savedProduct.getSku(), e.getMessage());
-                // Note: We don't fail the product creation if event publishing fails
-                // The product is still created, but inventory creation might need manual intervention
-            }
+            // Record ProductCreatedEvent in the outbox, in this transaction, for inventory creation.
+            // OutboxRelay publishes it to RabbitMQ after commit, so the create never waits on the broker.
+            ProductCreatedEvent event = ProductCreatedEvent.builder()
+                    .productId(savedProduct.getId().toString())
+                    .sku(savedProduct.getSku())
+                    .name(savedProduct.getName())
+                    .price(savedProduct.getPrice())
+                    .description(savedProduct.getDescription())
+                    .brand(savedProduct.getBrand())
+                    .categoryName(savedProduct.getCategory() != null ? savedProduct.getCategory().getName() : null)
+                    .initialQuantity(savedProduct.getStockQuantity() != null ? savedProduct.getStockQuantity() : 0)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            outboxService.enqueueProductCreated(event);
 
             ProductDTO createdProductDTO = productMapper.toCreatedProduct(savedProduct);
+            publishProductChanged(ProductChangedEvent.ChangeType.CREATED, createdProductDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdProductDTO);
             
         } catch (DuplicateSkuException e) {
@@ -124,6 +175,7 @@ public class ProductServiceImpl implements ProductService {
             
             Product updatedProduct = productRepository.save(existingProduct);
             ProductDTO responseDTO = productMapper.toCreatedProduct(updatedProduct);
+            publishProductChanged(ProductChangedEvent.ChangeType.UPDATED, responseDTO);
             
             log.info("Product updated successfully: {}", updatedProduct.getName());
             return ResponseEntity.ok(responseDTO);
@@ -150,6 +202,8 @@ public class ProductServiceImpl implements ProductService {
             }
             
             productRepository.delete(product);
+            applicationEventPublisher.publishEvent(
+                    new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, id, null));
             
             log.info("Product deleted successfully with ID: {}", id);
             return ResponseEntity.noContent().build();
@@ -164,6 +218,7 @@ public class ProductServiceImpl implements ProductService {
 
     // Customer/General operations
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ResponseEntity<ProductDTO> getProductById(Long id) {
         try {
             log.info("Fetching product by ID: {}", id);
@@ -172,11 +227,14 @@ public class ProductServiceImpl implements ProductService {
                 throw new InvalidInputException("Product ID must be a positive number");
             }
 
-            Product product = productRepository.findById(id)
-                    .orElseThrow(() -> new ProductNotFoundException(PRODUCT_NOT_FOUND_MSG + id));
-
-            ProductDTO productDTO = productMapper.toCreatedProduct(product);
-            log.info("Product retrieved successfully: {} (SKU: {})", product.getName(), product.getSku());
+            // Cache misses load the product and its category in one query
+            ProductDTO productDTO = productCache.get(id, productId -> productRepository.findByIdWithCategory(productId)
+                    .map(productMapper::toCreatedProduct)
+                    .orElse(null));
+            if (productDTO == null) {
+                throw new ProductNotFoundException(PRODUCT_NOT_FOUND_MSG + id);
+            }
+            log.info("Product retrieved successfully: {} (SKU: {})", productDTO.getName(), productDTO.getSku());
 
             return ResponseEntity.ok(productDTO);
             
@@ -188,6 +246,82 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<ProductBatchDTO> getProductsBatch(ProductBatchRequestDTO batchRequest) {
+        try {
+            boolean byIds = batchRequest != null && batchRequest.getIds() != null && !batchRequest.getIds().isEmpty();
+            boolean bySkus = batchRequest != null && batchRequest.getSkus() != null && !batchRequest.getSkus().isEmpty();
+            if (byIds == bySkus) {
+                throw new InvalidInputException("Exactly one of ids or skus must be provided");
+            }
+
+            List<?> keys = byIds ? batchRequest.getIds() : batchRequest.getSkus();
+            if (keys.size() > batchMaxSize) {
+                throw new InvalidInputException("A batch can contain at most " + batchMaxSize + " keys");
+            }
+            if (keys.contains(null)) {
+                throw new InvalidInputException("Batch keys must not be null");
+            }
+            log.info("Fetching batch of {} products by {}", keys.size(), byIds ? "ID" : "SKU");
+
+            ProductBatchDTO batch = byIds
+                    ? getProductsByIds(new LinkedHashSet<>(batchRequest.getIds()))
+                    : getProductsBySkus(new LinkedHashSet<>(batchRequest.getSkus()));
+
+            log.info("Batch resolved {} products, {} missing", batch.getProducts().size(), batch.getMissing().size());
+            return ResponseEntity.ok(batch);
+
+        } catch (InvalidInputException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error while fetching product batch: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while retrieving products");
+        }
+    }
+
+    // Cache hits are served from memory, all misses are loaded by one IN query with the category fetch-joined
+    private ProductBatchDTO getProductsByIds(LinkedHashSet<Long> ids) {
+        Map<Long, ProductDTO> found = productCache.getAll(ids, missingIds ->
+                productRepository.findAllWithCategoryByIdIn(List.copyOf(missingIds)).stream()
+                        .map(productMapper::toCreatedProduct)
+                        .collect(Collectors.toMap(ProductDTO::getId, Function.identity())));
+
+        List<ProductDTO> products = new ArrayList<>(found.size());
+        List<Object> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missing.add(id);
+            }
+        }
+        return ProductBatchDTO.builder().products(products).missing(missing).build();
+    }
+
+    private ProductBatchDTO getProductsBySkus(LinkedHashSet<String> skus) {
+        Map<String, Long> idsBySku = productRepository.findIdsBySkuIn(skus).stream()
+                .collect(Collectors.toMap(ProductRepository.ProductSkuView::getSku, ProductRepository.ProductSkuView::getId));
+        ProductBatchDTO byIds = getProductsByIds(new LinkedHashSet<>(idsBySku.values()));
+        Map<Long, ProductDTO> productsById = byIds.getProducts().stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+
+        List<ProductDTO> products = new ArrayList<>(productsById.size());
+        List<Object> missing = new ArrayList<>();
+        for (String sku : skus) {
+            Long id = idsBySku.get(sku);
+            // A product deleted between the two lookups counts as missing
+            ProductDTO product = id == null ? null : productsById.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missing.add(sku);
+            }
+        }
+        return ProductBatchDTO.builder().products(products).missing(missing).build();
+    }
+
     @Override
     public ResponseEntity<List<ProductDTO>> getAllApprovedProducts() {
         try {
@@ -208,6 +342,188 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<ProductPageDTO> getApprovedProductsPage(String cursor, Integer size) {
+        try {
+            int pageSize = resolvePageSize(size);
+            long afterId = decodeCursor(cursor);
+            log.info("Fetching approved products page after ID: {} with size: {}", afterId, pageSize);
+
+            // Fetch one extra row to know whether another page exists without a count query
+            List<Product> products = productRepository.findApprovedProductsAfterId(afterId, PageRequest.of(0, pageSize + 1));
+            boolean hasMore = products.size() > pageSize;
+            if (hasMore) {
+                products = products.subList(0, pageSize);
+            }
+
+            List<ProductDTO> productDTOs = products.stream()
+                    .map(productMapper::toCreatedProduct)
+                    .toList();
+
+            String nextCursor = hasMore ? encodeCursor(products.get(products.size() - 1).getId()) : null;
+
+            log.info("Retrieved {} approved products, hasMore: {}", productDTOs.size(), hasMore);
+            return ResponseEntity.ok(ProductPageDTO.builder()
+                    .items(productDTOs)
+                    .size(productDTOs.size())
+                    .nextCursor(nextCursor)
+                    .hasMore(hasMore)
+                    .build());
+
+        } catch (InvalidInputException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error while fetching approved products page: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while retrieving approved products");
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(String search, String category, String brand, String price) {
+        try {
+            if (!productFacetIndex.isReady()) {
+                throw new IndexNotReadyException("Product facets are not available yet, please retry shortly");
+            }
+
+            Integer priceBucket = null;
+            if (price != null) {
+                priceBucket = productFacetIndex.findPriceBucket(price);
+                if (priceBucket < 0) {
+                    throw new InvalidInputException("Unknown price bucket: " + price);
+                }
+            }
+
+            int[] searchIds = null;
+            if (search != null) {
+                if (search.trim().length() < 2) {
+                    throw new InvalidInputException("Search value must be at least 2 characters long");
+                }
+                searchIds = approvedSearchIds(search.trim());
+            }
+
+            ProductFacetsDTO facets = productFacetIndex.count(searchIds, blankToNull(category), blankToNull(brand), priceBucket);
+            log.info("Computed facets for search: '{}', category: {}, brand: {}, price: {} - {} matching products",
+                    search, category, brand, price, facets.getTotal());
+            return ResponseEntity.ok(facets);
+
+        } catch (InvalidInputException | IndexNotReadyException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error while computing product facets: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while computing product facets");
+        }
+    }
+
+    // Ids of products matching the search, from the n-gram index when it is loaded; that one holds every
+    // status, which is fine since the facet index only counts approved ids
+    private int[] approvedSearchIds(String searchValue) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.searchIds(searchValue);
+        }
+        return productRepository.searchProductsByStatus(searchValue, Product.Status.APPROVED).stream()
+                .mapToInt(product -> Math.toIntExact(product.getId()))
+                .toArray();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<Map<String, Object>>> getProductFields(String fields, Product.Status status,
+                                                                      String categoryName) {
+        try {
+            EnumSet<ProductField> selected = parseFields(fields);
+            log.info("Fetching products with fields: {}, status: {}, category: {}", selected, status, categoryName);
+
+            List<Map<String, Object>> rows = productRepository.findProjected(selected, status, categoryName);
+
+            log.info("Retrieved {} product projections", rows.size());
+            return ResponseEntity.ok(rows);
+
+        } catch (InvalidInputException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error while fetching product projections: {}", e.getMessage(), e);
+            throw new InternalServerException("An unexpected error occurred while retrieving products");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<OutboxStatsDTO> getOutboxStats() {
+        return ResponseEntity.ok(outboxRelay.getStats());
+    }
+
+    @Override
+    public ResponseEntity<ProductSearchIndexStatsDTO> getSearchIndexStats() {
+        return ResponseEntity.ok(productSearchIndex.getStats());
+    }
+
+    @Override
+    public ResponseEntity<ProductCacheStatsDTO> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.getStats());
+    }
+
+    // Comma separated property names; "summary" expands to the listing card fields
+    private EnumSet<ProductField> parseFields(String fields) {
+        EnumSet<ProductField> selected = EnumSet.noneOf(ProductField.class);
+        for (String name : fields.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            if (name.trim().equalsIgnoreCase("summary")) {
+                selected.addAll(ProductField.SUMMARY);
+                continue;
+            }
+            ProductField field = ProductField.fromProperty(name);
+            if (field == null) {
+                throw new InvalidInputException("Unknown field: " + name.trim() + ". Valid fields are: summary, "
+                        + Arrays.stream(ProductField.values()).map(ProductField::getProperty).collect(Collectors.joining(", ")));
+            }
+            selected.add(field);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidInputException("At least one field must be requested");
+        }
+        return selected;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size <= 0) {
+            throw new InvalidInputException("Page size must be a positive number");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            long lastId = Long.parseLong(decoded);
+            if (lastId < 0) {
+                throw new InvalidInputException("Invalid page cursor");
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid page cursor");
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ResponseEntity<List<ProductDTO>> searchProducts(String searchValue) {
         try {
             log.info("Searching products with value: {}", searchValue);
@@ -221,10 +537,18 @@ public class ProductServiceImpl implements ProductService {
                 throw new InvalidInputException("Search value must be at least 2 characters long");
             }
 
-            List<Product> products = productRepository.searchProducts(trimmedSearchValue);
-            List<ProductDTO> productDTOs = products.stream()
-                    .map(productMapper::toCreatedProduct)
-                    .collect(Collectors.toList());
+            List<ProductDTO> productDTOs;
+            if (useInMemorySearch()) {
+                // Answered from the in-process index without touching the connection pool
+                productDTOs = productSearchIndex.search(trimmedSearchValue, searchMaxResults);
+            } else {
+                List<Product> products = useFullTextSearch()
+                        ? fullTextSearch(trimmedSearchValue)
+                        : productRepository.searchProducts(trimmedSearchValue);
+                productDTOs = products.stream()
+                        .map(productMapper::toCreatedProduct)
+                        .collect(Collectors.toList());
+            }
 
             log.info("Found {} products matching search criteria: {}", productDTOs.size(), trimmedSearchValue);
             return ResponseEntity.ok(productDTOs);
@@ -237,6 +561,29 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    private boolean useInMemorySearch() {
+        return searchMode == ProductSearchMode.IN_MEMORY && productSearchIndex.isReady();
+    }
+
+    private boolean useFullTextSearch() {
+        return searchMode != ProductSearchMode.LIKE && searchSchemaInitializer.isAvailable();
+    }
+
+    private List<Product> fullTextSearch(String searchValue) {
+        List<Long> rankedIds = productRepository.searchProductIdsByRank(searchValue, searchMaxResults);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+
+        // The IN query does not keep the rank order, so restore it from the ranked id list
+        Map<Long, Product> productsById = productRepository.findAllWithCategoryByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public ResponseEntity<List<ProductDTO>> getProductsByCategoryName(String categoryName) {
         try {
@@ -296,6 +643,7 @@ public class ProductServiceImpl implements ProductService {
                     reviewStatusDTO.getReviewComment(), reviewStatusDTO.getReviewedBy());
 
             ProductDTO productDTO = productMapper.toCreatedProduct(savedProduct);
+            publishProductChanged(ProductChangedEvent.ChangeType.REVIEWED, productDTO);
             return ResponseEntity.ok(productDTO);
             
         } catch (ProductNotFoundException | InvalidInputException e) {
@@ -344,4 +692,38 @@ public class ProductServiceImpl implements ProductService {
             throw new InternalServerException("Failed to retrieve products by status");
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAllProducts(OutputStream outputStream) throws IOException {
+        log.info("Exporting all products as NDJSON");
+        long startedAt = System.nanoTime();
+        long rows = 0;
+
+        try (Stream<Product> products = productRepository.streamAllWithCategory()) {
+            var iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                outputStream.write(objectMapper.writeValueAsBytes(productMapper.toCreatedProduct(product)));
+                outputStream.write('\n');
+
+                // Drop the row from the persistence context so memory stays flat over the whole cursor
+                entityManager.detach(product);
+                rows++;
+                // Zero or less leaves flushing to the stream's own buffer
+                if (exportFlushEvery > 0 && rows % exportFlushEvery == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000.0, 0.001);
+        log.info("Exported {} products in {} s ({} rows/s)", rows, String.format("%.2f", seconds), Math.round(rows / seconds));
+        return rows;
+    }
+
+    private void publishProductChanged(ProductChangedEvent.ChangeType changeType, ProductDTO productDTO) {
+        applicationEventPublisher.publishEvent(new ProductChangedEvent(changeType, productDTO.getId(), productDTO));
+    }
+}
@@ -0,0 +1,89 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.dto.ProductFacetsDTO;
+import com.pasi.product_service.entity.Product;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex(productRepository, mock(CategoryRepository.class), productMapper, true,
+                List.of(new BigDecimal("50")));
+        when(productMapper.toCreatedProduct(any())).thenReturn(product(1L, "Acme", "APPROVED"));
+    }
+
+    @Test
+    void changesCommittedDuringTheBuildAreReplayed() {
+        when(productRepository.findAllApprovedProducts()).thenAnswer(invocation -> {
+            // Committed after the snapshot query started: the snapshot has the old state of product 1
+            index.onProductChanged(changed(product(2L, "Globex", "APPROVED")));
+            index.onProductChanged(new ProductChangedEvent(ProductChangedEvent.ChangeType.DELETED, 1L, null));
+            return List.of(new Product());
+        });
+        assertThat(index.isReady()).isFalse();
+
+        index.build();
+
+        ProductFacetsDTO facets = index.count(null, null, null, null);
+        assertThat(index.isReady()).isTrue();
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getBrands()).extracting("value").containsExactly("Globex");
+    }
+
+    @Test
+    void changesBeforeTheBuildStartsAreKept() {
+        index.onProductChanged(changed(product(3L, "Initech", "APPROVED")));
+        index.onProductChanged(changed(product(1L, "Acme", "PENDING")));
+        when(productRepository.findAllApprovedProducts()).thenReturn(List.of(new Product()));
+
+        index.build();
+
+        ProductFacetsDTO facets = index.count(null, null, null, null);
+        assertThat(facets.getBrands()).extracting("value").containsExactly("Initech");
+    }
+
+    @Test
+    void changesAfterTheBuildApplyDirectly() {
+        when(productRepository.findAllApprovedProducts()).thenReturn(List.of(new Product()));
+        index.build();
+
+        index.onProductChanged(changed(product(4L, "Acme", "APPROVED")));
+
+        assertThat(index.count(null, null, "acme", null).getTotal()).isEqualTo(2);
+    }
+
+    private static ProductChangedEvent changed(ProductDTO product) {
+        return new ProductChangedEvent(ProductChangedEvent.ChangeType.UPDATED, product.getId(), product);
+    }
+
+    private static ProductDTO product(Long id, String brand, String status) {
+        return ProductDTO.builder()
+                .id(id)
+                .name("Product " + id)
+                .brand(brand)
+                .categoryId(10L)
+                .categoryName("Tools")
+                .price(new BigDecimal("19.99"))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.pasi.product_service.service;
+
+import com.pasi.product_service.dto.ProductDTO;
+import com.pasi.product_service.entity.Category;
+import com.pasi.product_service.entity.Product;
+import com.pasi.product_service.event.CategoryChangedEvent;
+import com.pasi.product_service.mapper.ProductMapper;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(productRepository, productMapper, categoryRepository);
+        ReflectionTestUtils.setField(index, "searchMode", ProductSearchMode.IN_MEMORY);
+        when(productRepository.streamAllWithCategory()).thenAnswer(invocation -> Stream.of(new Product(), new Product()));
+        when(productMapper.toCreatedProduct(any())).thenReturn(product(1L, 10L, "Tools"), product(2L, 20L, "Garden"));
+        when(categoryRepository.findById(10L)).thenReturn(Optional.of(category(10L, "Hardware")));
+    }
+
+    @Test
+    void categoryRenameRetokenizesItsProducts() {
+        index.build();
+
+        index.onCategoryChanged(new CategoryChangedEvent(CategoryChangedEvent.ChangeType.UPDATED, 10L));
+
+        assertThat(index.search("tools", 10)).isEmpty();
+        assertThat(index.search("hardware", 10)).extracting(ProductDTO::getId).containsExactly(1L);
+        assertThat(index.search("product", 10)).extracting(ProductDTO::getCategoryName).containsExactly("Hardware", "Garden");
+    }
+
+    @Test
+    void categoryRenameBeforeTheBuildIsReplayed() {
+        index.onCategoryChanged(new CategoryChangedEvent(CategoryChangedEvent.ChangeType.UPDATED, 10L));
+
+        index.build();
+
+        assertThat(index.searchIds("tools")).isEmpty();
+        assertThat(index.searchIds("hardware")).containsExactly(1);
+    }
+
+    private static ProductDTO product(Long id, Long categoryId, String categoryName) {
+        return ProductDTO.builder()
+                .id(id)
+                .name("Product " + id)
+                .brand("Acme")
+                .sku("SKU-" + id)
+                .categoryId(categoryId)
+                .categoryName(categoryName)
+                .status("PENDING")
+                .build();
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
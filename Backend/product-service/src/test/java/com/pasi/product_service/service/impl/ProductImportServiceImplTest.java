@@ -0,0 +1,156 @@
+package com.pasi.product_service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pasi.product_service.dto.ProductImportReportDTO;
+import com.pasi.product_service.dto.ProductImportRowResultDTO;
+import com.pasi.product_service.entity.Category;
+import com.pasi.product_service.event.ProductChangedEvent;
+import com.pasi.product_service.repository.CategoryRepository;
+import com.pasi.product_service.repository.ProductRepository;
+import com.pasi.product_service.service.OutboxService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductImportServiceImplTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final List<ProductChangedEvent> changes = new ArrayList<>();
+    private ProductImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ProductImportServiceImpl(productRepository, categoryRepository, jdbcTemplate,
+                mock(PlatformTransactionManager.class), mock(OutboxService.class), new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), event -> changes.add((ProductChangedEvent) event));
+        ReflectionTestUtils.setField(importService, "chunkSize", 8);
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Tools");
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(productRepository.findExistingSkus(anyCollection())).thenReturn(Set.of());
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt())).thenAnswer(invocation ->
+                LongStream.rangeClosed(1, invocation.<Integer>getArgument(2)).boxed().toList());
+    }
+
+    @Test
+    void badRowsFailAloneWithTheirOwnError() throws Exception {
+        rejectSkusInDatabase();
+
+        ProductImportReportDTO report = importNdjson(
+                row("SKU-1"), row("SKU-2"), row("TOO-LONG"), row("SKU-4"),
+                row("SKU-5"), row("TAKEN"), row("SKU-7"), row("SKU-8"));
+
+        assertThat(report.getImported()).isEqualTo(6);
+        assertThat(report.getRows()).extracting(ProductImportRowResultDTO::getStatus).containsExactly(
+                "IMPORTED", "IMPORTED", "FAILED", "IMPORTED", "IMPORTED", "DUPLICATE_SKU", "IMPORTED", "IMPORTED");
+        assertThat(report.getRows().get(2).getMessage()).contains("value too long for type character varying(1000)");
+        // The chunk, its failing halves and quarters, and each failing row alone
+        assertThat(batchSizes).containsExactly(8, 4, 2, 2, 1, 1, 4, 2, 1, 1, 2);
+        // Only the rows that went in reach the in-memory indexes
+        assertThat(changes).extracting(change -> change.getProduct().getSku())
+                .containsExactlyInAnyOrder("SKU-1", "SKU-2", "SKU-4", "SKU-5", "SKU-7", "SKU-8");
+        assertThat(changes).allSatisfy(change -> {
+            assertThat(change.getChangeType()).isEqualTo(ProductChangedEvent.ChangeType.CREATED);
+            assertThat(change.getProduct().getStatus()).isEqualTo("PENDING");
+            assertThat(change.getProduct().getCategoryName()).isEqualTo("Tools");
+            assertThat(change.getProductId()).isEqualTo(change.getProduct().getId());
+        });
+    }
+
+    @Test
+    void overlongDescriptionIsRejectedBeforeTheInsert() throws Exception {
+        rejectSkusInDatabase();
+
+        ProductImportReportDTO report = importNdjson(
+                "{\"name\":\"Drill\",\"description\":\"" + "x".repeat(1001) + "\",\"price\":10,"
+                        + "\"categoryName\":\"Tools\",\"brand\":\"Acme\",\"sku\":\"SKU-1\",\"stockQuantity\":5}",
+                row("SKU-2"));
+
+        assertThat(report.getRows()).extracting(ProductImportRowResultDTO::getStatus).containsExactly("INVALID", "IMPORTED");
+        assertThat(report.getRows().get(0).getMessage()).isEqualTo("Description must be at most 1000 characters");
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void invalidRowsStillFlushAtTheChunkSize() throws Exception {
+        rejectSkusInDatabase();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add("{not json");
+        }
+        lines.add(row("SKU-1"));
+
+        ProductImportReportDTO report = importNdjson(lines.toArray(String[]::new));
+
+        assertThat(report.getTotalRows()).isEqualTo(21);
+        assertThat(report.getRows()).hasSize(21);
+        assertThat(report.getRows().get(20).getStatus()).isEqualTo("IMPORTED");
+    }
+
+    // Fails any batch holding TOO-LONG or TAKEN the way PostgreSQL does
+    @SuppressWarnings("unchecked")
+    private void rejectSkusInDatabase() throws SQLException {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    batchSizes.add(rows.size());
+                    List<String> skus = new ArrayList<>();
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    doAnswer(set -> skus.add(set.getArgument(1))).when(statement).setString(eq(9), anyString());
+                    for (Object row : rows) {
+                        setter.setValues(statement, row);
+                    }
+                    if (skus.contains("TOO-LONG")) {
+                        SQLException batchFailure = new SQLException("Batch entry 0 INSERT INTO products was aborted");
+                        batchFailure.setNextException(new SQLException("ERROR: value too long for type character varying(1000)"));
+                        throw new DataIntegrityViolationException("could not execute batch", batchFailure);
+                    }
+                    if (skus.contains("TAKEN")) {
+                        throw new DuplicateKeyException("duplicate key value violates unique constraint");
+                    }
+                    return new int[][]{};
+                });
+    }
+
+    private ProductImportReportDTO importNdjson(String... lines) {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return importService.importNdjson(new ByteArrayInputStream(body)).getBody();
+    }
+
+    private static String row(String sku) {
+        return "{\"name\":\"Drill\",\"price\":10,\"categoryName\":\"Tools\",\"brand\":\"Acme\",\"sku\":\"" + sku
+                + "\",\"stockQuantity\":5}";
+    }
+}